@@ -0,0 +1,87 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.apache.xmlbeans.jmh;
+
+import com.easypo.XmlPurchaseOrderDocumentBean;
+import com.easypo.XmlPurchaseOrderDocumentBean.PurchaseOrder;
+import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Contention of setters, which copy between two synchronized documents and therefore need
+ * to lock both locales. Each invocation copies a customer between two randomly chosen documents,
+ * so the threads mostly work on distinct pairs and the throughput should scale with the thread count.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CrossDocumentSetBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Documents {
+        static final int DOCUMENTS = 256;
+
+        PurchaseOrder[] orders;
+
+        @Setup(Level.Trial)
+        public void setup() throws XmlException {
+            String xml = PurchaseOrderState.createDocument(3);
+            orders = new PurchaseOrder[DOCUMENTS];
+            for (int i = 0; i < DOCUMENTS; i++) {
+                orders[i] = XmlPurchaseOrderDocumentBean.Factory.parse(xml).getPurchaseOrder();
+            }
+        }
+
+        XmlObject copy() {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            int from = rnd.nextInt(DOCUMENTS);
+            int to = rnd.nextInt(DOCUMENTS - 1);
+            if (to >= from) {
+                to++;
+            }
+            orders[to].setCustomer(orders[from].getCustomer());
+            return orders[to];
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public XmlObject copy1(Documents docs) {
+        return docs.copy();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public XmlObject copy8(Documents docs) {
+        return docs.copy();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public XmlObject copy32(Documents docs) {
+        return docs.copy();
+    }
+}
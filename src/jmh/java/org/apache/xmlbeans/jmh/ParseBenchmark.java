@@ -0,0 +1,59 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.jmh;
+
+import com.easypo.XmlLineItemBean;
+import com.easypo.XmlPurchaseOrderDocumentBean;
+import com.easypo.XmlPurchaseOrderDocumentBean.PurchaseOrder;
+import org.apache.xmlbeans.XmlException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+/**
+ * Typed parsing of the easypo purchase order - successor of the former POTopDown/POReadAll perf tests.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ParseBenchmark {
+
+    @Benchmark
+    public XmlPurchaseOrderDocumentBean parse(PurchaseOrderState state) throws XmlException, IOException {
+        return XmlPurchaseOrderDocumentBean.Factory.parse(new ByteArrayInputStream(state.bytes));
+    }
+
+    @Benchmark
+    public void parseAndReadAll(PurchaseOrderState state, Blackhole bh) throws XmlException, IOException {
+        PurchaseOrder po = XmlPurchaseOrderDocumentBean.Factory.parse(new ByteArrayInputStream(state.bytes)).getPurchaseOrder();
+        bh.consume(po.getCustomer().getName());
+        bh.consume(po.getCustomer().getAddress());
+        bh.consume(po.getDate());
+        for (XmlLineItemBean li : po.getLineItemArray()) {
+            bh.consume(li.getDescription());
+            bh.consume(li.getPerUnitOunces());
+            bh.consume(li.getPrice());
+            bh.consume(li.getQuantity());
+        }
+        bh.consume(po.getShipper().getName());
+        bh.consume(po.getShipper().getPerOunceRate());
+    }
+}
@@ -0,0 +1,75 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.jmh;
+
+import com.easypo.XmlPurchaseOrderDocumentBean;
+import org.apache.xmlbeans.XmlException;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Shared purchase order instance of the easypo schema, scaled by the number of line items.
+ * <p>
+ * The document is provided as raw bytes for the parsing scenarios and as already parsed
+ * typed document for the scenarios which work on a loaded store.
+ */
+@State(Scope.Benchmark)
+public class PurchaseOrderState {
+    static final String PO_NS = "http://openuri.org/easypo";
+
+    @Param({"3", "1000"})
+    public int lineItems;
+
+    public byte[] bytes;
+
+    public XmlPurchaseOrderDocumentBean doc;
+
+    @Setup(Level.Trial)
+    public void setup() throws XmlException {
+        bytes = createDocument(lineItems).getBytes(StandardCharsets.UTF_8);
+        doc = XmlPurchaseOrderDocumentBean.Factory.parse(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    static String createDocument(int lineItems) {
+        StringBuilder sb = new StringBuilder(256 + lineItems * 220);
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+            .append("<po:purchase-order xmlns:po=\"").append(PO_NS).append("\">\n")
+            .append("  <po:customer>\n")
+            .append("    <po:name>David Bau</po:name>\n")
+            .append("    <po:address>Gladwyne, PA</po:address>\n")
+            .append("  </po:customer>\n")
+            .append("  <po:date>2002-09-30T14:16:00-05:00</po:date>\n");
+        for (int i = 0; i < lineItems; i++) {
+            sb.append("  <po:line-item>\n")
+                .append("    <po:description>Burnham's Celestial Handbook, Vol ").append(i + 1).append("</po:description>\n")
+                .append("    <po:per-unit-ounces>5</po:per-unit-ounces>\n")
+                .append("    <po:price>").append(10 + i % 90).append('.').append(10 + i % 89).append("</po:price>\n")
+                .append("    <po:quantity>").append(1 + i % 7).append("</po:quantity>\n")
+                .append("  </po:line-item>\n");
+        }
+        sb.append("  <po:shipper>\n")
+            .append("    <po:name>UPS</po:name>\n")
+            .append("    <po:per-ounce-rate>0.74</po:per-ounce-rate>\n")
+            .append("  </po:shipper>\n")
+            .append("</po:purchase-order>\n");
+        return sb.toString();
+    }
+}
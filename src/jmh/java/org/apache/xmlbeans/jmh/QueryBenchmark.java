@@ -0,0 +1,60 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.apache.xmlbeans.jmh;
+
+import org.apache.xmlbeans.XmlError;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Schema validation and XPath selection on a loaded document -
+ * successor of the former POValidateXmlObj and POSelectLineItems/POQueryLineItems perf tests.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class QueryBenchmark {
+
+    private static final String NS_DECL = "declare namespace po='" + PurchaseOrderState.PO_NS + "'; ";
+
+    @Benchmark
+    public boolean validate(PurchaseOrderState state) {
+        return state.doc.validate();
+    }
+
+    @Benchmark
+    public List<XmlError> validateWithErrorListener(PurchaseOrderState state) {
+        List<XmlError> errors = new ArrayList<>();
+        state.doc.validate(new XmlOptions().setErrorListener(errors));
+        return errors;
+    }
+
+    @Benchmark
+    public XmlObject[] selectPathChildren(PurchaseOrderState state) {
+        return state.doc.selectPath(NS_DECL + "$this/po:purchase-order/po:line-item");
+    }
+
+    @Benchmark
+    public XmlObject[] selectPathDescendants(PurchaseOrderState state) {
+        return state.doc.selectPath(NS_DECL + "$this//po:quantity");
+    }
+}
@@ -0,0 +1,334 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.apache.xmlbeans.jmh;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH result files (written with {@code -rf json}) - the counterpart of the
+ * XML based RunComparator of the ant driven perf tests in test/perf, which remain for the
+ * comparisons with other binding frameworks and parsers.
+ * <p>
+ * Benchmarks are matched by name, mode and parameters. The primary score is compared
+ * with regard to the mode, i.e. for throughput a higher score is better, for the time based
+ * modes a lower score is better. If the runs were profiled with {@code -prof gc}, the
+ * normalized allocation rate is reported too. Only deviations beyond the tolerance
+ * (in percent) are flagged as regression or improvement. Benchmarks without a numeric score,
+ * which JMH writes as "NaN" e.g. for failed iterations, are flagged as invalid.
+ * <p>
+ * The process exits with status 1, if at least one regression or invalid current score was found.
+ */
+public final class ResultComparator {
+    private static final String ALLOC_NORM = "gc.alloc.rate.norm";
+
+    private final double tolerance;
+    private int regressions;
+    private int invalid;
+
+    private ResultComparator(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args[0].isEmpty() || args[1].isEmpty()) {
+            System.err.println("Usage: ResultComparator <baseline.json> <current.json> [tolerance%]");
+            System.exit(2);
+            return;
+        }
+        double tolerance = (args.length > 2) ? Double.parseDouble(args[2]) : 5;
+        if (tolerance < 0 || tolerance > 100) {
+            throw new IllegalArgumentException("Invalid input value for 'tolerance': " + tolerance);
+        }
+
+        ResultComparator rc = new ResultComparator(tolerance);
+        rc.compare(load(args[0]), load(args[1]));
+        System.exit(rc.regressions > 0 || rc.invalid > 0 ? 1 : 0);
+    }
+
+    private void compare(Map<String, Map<String, Object>> baseline, Map<String, Map<String, Object>> current) {
+        System.out.printf(Locale.ROOT, "%-90s %14s %14s %9s %9s%n", "Benchmark", "baseline", "current", "delta%", "alloc%");
+        for (Map.Entry<String, Map<String, Object>> me : current.entrySet()) {
+            Map<String, Object> cur = me.getValue();
+            Map<String, Object> base = baseline.get(me.getKey());
+            if (base == null) {
+                System.out.printf(Locale.ROOT, "%-90s %14s %14.3f%n", me.getKey(), "-", score(cur));
+                continue;
+            }
+
+            double baseScore = score(base);
+            double curScore = score(cur);
+            if (Double.isNaN(baseScore) || Double.isNaN(curScore)) {
+                String verdict = "  INVALID";
+                if (Double.isNaN(curScore)) {
+                    invalid++;
+                } else {
+                    verdict += " baseline";
+                }
+                System.out.printf(Locale.ROOT, "%-90s %14.3f %14.3f %9s %9s%s%n",
+                    me.getKey(), baseScore, curScore, "-", "-", verdict);
+                continue;
+            }
+
+            // positive deltas are improvements
+            double delta = (baseScore == 0) ? 0 : (curScore - baseScore) / baseScore * 100;
+            if (!"thrpt".equals(cur.get("mode"))) {
+                delta = -delta;
+            }
+
+            Double baseAlloc = allocation(base);
+            Double curAlloc = allocation(cur);
+            String allocDelta = (baseAlloc == null || curAlloc == null || baseAlloc == 0 || baseAlloc.isNaN() || curAlloc.isNaN()) ? "-"
+                : String.format(Locale.ROOT, "%+.1f", (curAlloc - baseAlloc) / baseAlloc * 100);
+
+            String verdict = "";
+            if (delta < -tolerance) {
+                verdict = "  REGRESSION";
+                regressions++;
+            } else if (delta > tolerance) {
+                verdict = "  improvement";
+            }
+
+            System.out.printf(Locale.ROOT, "%-90s %14.3f %14.3f %+9.1f %9s%s%n",
+                me.getKey(), baseScore, curScore, delta, allocDelta, verdict);
+        }
+
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.printf(Locale.ROOT, "%-90s %14.3f %14s%n", key, score(baseline.get(key)), "-");
+            }
+        }
+
+        System.out.printf(Locale.ROOT, "%n%d regression(s) beyond a tolerance of %.1f%%, %d invalid score(s)%n",
+            regressions, tolerance, invalid);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static double score(Map<String, Object> result) {
+        Map<String, Object> primary = (Map<String, Object>) result.get("primaryMetric");
+        return toDouble(primary.get("score"));
+    }
+
+    /**
+     * @return the value of a score, which JMH writes as string if it isn't finite, or NaN if it's not a number
+     */
+    private static double toDouble(Object score) {
+        if (score instanceof Number) {
+            return ((Number) score).doubleValue();
+        }
+        if (score instanceof String) {
+            try {
+                return Double.parseDouble((String) score);
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+        return Double.NaN;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Double allocation(Map<String, Object> result) {
+        Map<String, Object> secondary = (Map<String, Object>) result.get("secondaryMetrics");
+        if (secondary == null) {
+            return null;
+        }
+        for (Map.Entry<String, Object> me : secondary.entrySet()) {
+            // the key is prefixed by a middle dot, which depends on the jmh version
+            if (me.getKey().endsWith(ALLOC_NORM)) {
+                return toDouble(((Map<String, Object>) me.getValue()).get("score"));
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Map<String, Object>> load(String file) throws IOException {
+        String json = new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8);
+        Map<String, Map<String, Object>> results = new TreeMap<>();
+        for (Object o : (List<Object>) new JsonParser(json).parse()) {
+            Map<String, Object> result = (Map<String, Object>) o;
+            StringBuilder key = new StringBuilder();
+            key.append(result.get("benchmark")).append(' ').append(result.get("mode"));
+            Map<String, Object> params = (Map<String, Object>) result.get("params");
+            if (params != null) {
+                params.forEach((k, v) -> key.append(' ').append(k).append('=').append(v));
+            }
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+
+    /**
+     * Minimal JSON parser for the JMH result format - numbers which JMH writes as "NaN"
+     * strings are kept as strings.
+     */
+    private static final class JsonParser {
+        private final String json;
+        private int pos;
+
+        JsonParser(String json) {
+            this.json = json;
+        }
+
+        Object parse() {
+            Object o = value();
+            skipWhitespace();
+            if (pos != json.length()) {
+                throw error("trailing characters");
+            }
+            return o;
+        }
+
+        private Object value() {
+            skipWhitespace();
+            if (pos >= json.length()) {
+                throw error("unexpected end of input");
+            }
+            char ch = json.charAt(pos);
+            switch (ch) {
+                case '{':
+                    return object();
+                case '[':
+                    return array();
+                case '"':
+                    return string();
+                case 't':
+                    return literal("true", Boolean.TRUE);
+                case 'f':
+                    return literal("false", Boolean.FALSE);
+                case 'n':
+                    return literal("null", null);
+                default:
+                    return number();
+            }
+        }
+
+        private Map<String, Object> object() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            pos++;
+            skipWhitespace();
+            if (json.charAt(pos) == '}') {
+                pos++;
+                return map;
+            }
+            for (; ; ) {
+                skipWhitespace();
+                String key = string();
+                skipWhitespace();
+                expect(':');
+                map.put(key, value());
+                skipWhitespace();
+                if (json.charAt(pos) == ',') {
+                    pos++;
+                } else {
+                    expect('}');
+                    return map;
+                }
+            }
+        }
+
+        private List<Object> array() {
+            List<Object> list = new ArrayList<>();
+            pos++;
+            skipWhitespace();
+            if (json.charAt(pos) == ']') {
+                pos++;
+                return list;
+            }
+            for (; ; ) {
+                list.add(value());
+                skipWhitespace();
+                if (json.charAt(pos) == ',') {
+                    pos++;
+                } else {
+                    expect(']');
+                    return list;
+                }
+            }
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            for (; ; ) {
+                char ch = json.charAt(pos++);
+                if (ch == '"') {
+                    return sb.toString();
+                }
+                if (ch != '\\') {
+                    sb.append(ch);
+                    continue;
+                }
+                ch = json.charAt(pos++);
+                switch (ch) {
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'u':
+                        sb.append((char) Integer.parseInt(json.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default: sb.append(ch); break;
+                }
+            }
+        }
+
+        private Number number() {
+            int start = pos;
+            while (pos < json.length() && "+-0123456789.eE".indexOf(json.charAt(pos)) >= 0) {
+                pos++;
+            }
+            if (start == pos) {
+                throw error("unexpected character '" + json.charAt(pos) + "'");
+            }
+            return Double.valueOf(json.substring(start, pos));
+        }
+
+        private Object literal(String lit, Object val) {
+            if (!json.startsWith(lit, pos)) {
+                throw error("invalid literal");
+            }
+            pos += lit.length();
+            return val;
+        }
+
+        private void expect(char ch) {
+            if (pos >= json.length() || json.charAt(pos) != ch) {
+                throw error("expected '" + ch + "'");
+            }
+            pos++;
+        }
+
+        private void skipWhitespace() {
+            while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private IllegalStateException error(String msg) {
+            return new IllegalStateException("Invalid json at offset " + pos + ": " + msg);
+        }
+    }
+}
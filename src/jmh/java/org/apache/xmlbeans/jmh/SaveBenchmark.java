@@ -0,0 +1,68 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.apache.xmlbeans.jmh;
+
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+
+/**
+ * Serializes a loaded document - successor of the former POTopDownSave perf tests.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SaveBenchmark {
+
+    private static final XmlOptions SPEED = new XmlOptions().setSaveOptimizeForSpeed(true);
+
+    @Benchmark
+    public byte[] saveOutputStream(PurchaseOrderState state) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(state.bytes.length);
+        state.doc.save(bos);
+        return bos.toByteArray();
+    }
+
+    @Benchmark
+    public String saveWriter(PurchaseOrderState state) throws IOException {
+        StringWriter sw = new StringWriter(state.bytes.length);
+        state.doc.save(sw);
+        return sw.toString();
+    }
+
+    @Benchmark
+    public String saveWriterOptimizedForSpeed(PurchaseOrderState state) throws IOException {
+        StringWriter sw = new StringWriter(state.bytes.length);
+        state.doc.save(sw, SPEED);
+        return sw.toString();
+    }
+
+    @Benchmark
+    public String xmlText(PurchaseOrderState state) {
+        return state.doc.xmlText();
+    }
+
+    @Benchmark
+    public XmlObject copy(PurchaseOrderState state) {
+        return state.doc.copy();
+    }
+}
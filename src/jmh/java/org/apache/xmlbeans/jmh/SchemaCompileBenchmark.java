@@ -0,0 +1,63 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.apache.xmlbeans.jmh;
+
+import org.apache.xmlbeans.SchemaTypeSystem;
+import org.apache.xmlbeans.XmlBeans;
+import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * In-memory schema compilation (without java code generation) of test schemas.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@State(Scope.Benchmark)
+public class SchemaCompileBenchmark {
+
+    @Param({"xbean/xmlobject/easypo.xsd", "xbean/xmlobject/soap12-encoding.xsd"})
+    public String schema;
+
+    private XmlObject[] schemas;
+
+    @Setup(Level.Trial)
+    public void setup() throws XmlException, IOException {
+        try (InputStream is = SchemaCompileBenchmark.class.getClassLoader().getResourceAsStream(schema)) {
+            if (is == null) {
+                throw new IOException("schema " + schema + " not found on classpath");
+            }
+            schemas = new XmlObject[]{XmlObject.Factory.parse(is, new XmlOptions().setLoadLineNumbers())};
+        }
+    }
+
+    @Benchmark
+    public SchemaTypeSystem compile() throws XmlException {
+        return XmlBeans.compileXsd(schemas, XmlBeans.getBuiltinTypeSystem(), new XmlOptions());
+    }
+}
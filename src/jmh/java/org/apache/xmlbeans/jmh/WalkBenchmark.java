@@ -0,0 +1,80 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.apache.xmlbeans.jmh;
+
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlCursor.TokenType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.w3c.dom.Node;
+
+/**
+ * Walks a loaded document via XmlCursor and via the DOM implementation of the store -
+ * successor of the former CursorWalk/DomWalk/DomWalkNL perf tests.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class WalkBenchmark {
+
+    @Benchmark
+    public void cursorWalk(PurchaseOrderState state, Blackhole bh) {
+        try (XmlCursor c = state.doc.newCursor()) {
+            while (!c.toNextToken().isNone()) {
+                TokenType tt = c.currentTokenType();
+                if (tt.isStart()) {
+                    bh.consume(c.getName());
+                } else if (tt.isText()) {
+                    bh.consume(c.getChars());
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void domWalk(PurchaseOrderState state, Blackhole bh) {
+        walk(state.doc.getDomNode(), bh);
+    }
+
+    @Benchmark
+    public void domWalkNodeList(PurchaseOrderState state, Blackhole bh) {
+        walkNodeList(state.doc.getDomNode(), bh);
+    }
+
+    private static void walk(Node n, Blackhole bh) {
+        for (Node c = n.getFirstChild(); c != null; c = c.getNextSibling()) {
+            bh.consume(c.getNodeName());
+            if (c.getNodeType() == Node.TEXT_NODE) {
+                bh.consume(c.getNodeValue());
+            }
+            walk(c, bh);
+        }
+    }
+
+    private static void walkNodeList(Node n, Blackhole bh) {
+        org.w3c.dom.NodeList nl = n.getChildNodes();
+        for (int i = 0, len = nl.getLength(); i < len; i++) {
+            Node c = nl.item(i);
+            bh.consume(c.getNodeName());
+            if (c.getNodeType() == Node.TEXT_NODE) {
+                bh.consume(c.getNodeValue());
+            }
+            walkNodeList(c, bh);
+        }
+    }
+}
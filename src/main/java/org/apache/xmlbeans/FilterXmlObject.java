@@ -123,6 +123,10 @@ public abstract class FilterXmlObject implements XmlObject, SimpleValue, Delegat
         return underlyingXmlObject().documentProperties();
     }
 
+    public XmlCompactionStats compact() {
+        return underlyingXmlObject().compact();
+    }
+
     public XmlCursor newCursor() {
         return underlyingXmlObject().newCursor();
     }
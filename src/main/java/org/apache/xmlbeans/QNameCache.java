@@ -16,18 +16,41 @@
 package org.apache.xmlbeans;
 
 import javax.xml.namespace.QName;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * A cache that can be used to pool QName instances.  Each thread has one.
- */ 
+ * A cache that can be used to pool QName instances.
+ * <p>
+ * By default each thread has one (see {@link XmlBeans#getQNameCache()}), which grows without bounds.
+ * A per-thread cache can be limited to a maximum number of entries, in which case the least
+ * recently used entries are evicted by a CLOCK (second chance) policy.
+ * <p>
+ * Alternatively a shared cache ({@link #newSharedCache(int)}) can be used by many threads at once.
+ * It's a lock-free, set-associative table with a fixed capacity - a concurrent miss might create
+ * duplicate QName instances, which is harmless as QNames are compared by value.
+ * <p>
+ * The lookup methods taking {@code char[]} slices hash and compare the characters directly,
+ * so cache hits don't allocate any objects.
+ */
 public final class QNameCache
 {
     private static final float DEFAULT_LOAD = 0.70f;
     private final float loadFactor;
+    private final int maxEntries;
     private int numEntries = 0;
     private int threshold;
     private int hashmask;
     private QName[] table;
+    // CLOCK state - only used for bounded caches
+    private boolean[] referenced;
+    private int clockHand;
+
+    private long hits;
+    private long misses;
+
+    // non-null for a shared cache
+    private final SharedTable shared;
 
     /**
      * Creates a QNameCache with the given initialCapacity and loadFactor.
@@ -36,9 +59,22 @@ public final class QNameCache
      * @param loadFactor a number to control the density of the hashtable
      */ 
     public QNameCache(int initialCapacity, float loadFactor)
+    {
+        this(initialCapacity, loadFactor, 0);
+    }
+
+    /**
+     * Creates a QNameCache with the given initialCapacity, loadFactor and a maximum number of entries.
+     *
+     * @param initialCapacity the number of entries to initially make space for
+     * @param loadFactor a number to control the density of the hashtable
+     * @param maxEntries the maximum number of cached entries or 0 for an unbounded cache
+     */
+    public QNameCache(int initialCapacity, float loadFactor, int maxEntries)
     {
         assert initialCapacity > 0;
         assert loadFactor > 0 && loadFactor < 1;
+        assert maxEntries >= 0;
 
         // Find a power of 2 >= initialCapacity
         int capacity = 16;
@@ -46,9 +82,12 @@ public final class QNameCache
             capacity <<= 1;
     
         this.loadFactor = loadFactor;
+        this.maxEntries = maxEntries;
         this.hashmask = capacity - 1;
         threshold = (int)(capacity * loadFactor);
         table = new QName[capacity];
+        referenced = (maxEntries > 0) ? new boolean[capacity] : null;
+        shared = null;
     }
 
     /**
@@ -61,6 +100,55 @@ public final class QNameCache
         this(initialCapacity, DEFAULT_LOAD);
     }
 
+    private QNameCache(SharedTable shared)
+    {
+        this.loadFactor = DEFAULT_LOAD;
+        this.maxEntries = 0;
+        this.shared = shared;
+    }
+
+    /**
+     * Creates a thread-safe QNameCache, which can be shared by many threads.
+     *
+     * @param capacity the maximum number of cached entries
+     */
+    public static QNameCache newSharedCache(int capacity)
+    {
+        return new QNameCache(new SharedTable(capacity));
+    }
+
+    /**
+     * @return true, if this cache can be used concurrently by many threads
+     */
+    public boolean isShared()
+    {
+        return shared != null;
+    }
+
+    /**
+     * @return the number of lookups, which were answered by a cached instance
+     */
+    public long getHits()
+    {
+        return shared != null ? shared.hits.sum() : hits;
+    }
+
+    /**
+     * @return the number of lookups, which created a new QName instance
+     */
+    public long getMisses()
+    {
+        return shared != null ? shared.misses.sum() : misses;
+    }
+
+    /**
+     * @return the number of cached entries
+     */
+    public int size()
+    {
+        return shared != null ? shared.size() : numEntries;
+    }
+
     public QName getName(String uri, String localName)
     {
         return getName( uri, localName, "" );
@@ -77,36 +165,157 @@ public final class QNameCache
      */ 
     public QName getName(String uri, String localName, String prefix)
     {
-        /*
-        return new QName(uri, localName, prefix);
-        */
         assert localName != null;
         
         if (uri == null) uri = "";
         if (prefix == null) prefix = "";
 
-        int index = hash(uri, localName, prefix) & hashmask;
+        int hash = hash(uri.hashCode(), localName.hashCode(), prefix.hashCode());
+
+        if (shared != null)
+            return shared.getName(hash, uri, localName, prefix);
+
+        int index = hash & hashmask;
         while (true) {
             QName q = table[index];
             if (q == null)
             {
-                numEntries++;
-                if (numEntries >= threshold)
-                    rehash();
-
-                return table[index] = new QName(uri, localName, prefix);
+                return add(new QName(uri, localName, prefix));
             }
             else if (equals(q, uri, localName, prefix))
-                return q;
+                return hit(index, q);
             else 
                 index = (index-1) & hashmask;
         }
     }
 
+    /**
+     * Fetches a QName with the given namespace and localname without a prefix.
+     * Creates one if one is not found in the cache.
+     */
+    public QName getName(char[] uriSrc, int uriPos, int uriCch,
+                         char[] localSrc, int localPos, int localCch)
+    {
+        return getName(uriSrc, uriPos, uriCch, localSrc, localPos, localCch, null, 0, 0);
+    }
+
+    /**
+     * Fetches a QName with the given namespace, localname and prefix.
+     * Creates one if one is not found in the cache. A cache hit doesn't allocate any objects.
+     */
+    public QName getName(char[] uriSrc, int uriPos, int uriCch,
+                         char[] localSrc, int localPos, int localCch,
+                         char[] prefixSrc, int prefixPos, int prefixCch)
+    {
+        int hash = hash(
+            hash(uriSrc, uriPos, uriCch),
+            hash(localSrc, localPos, localCch),
+            hash(prefixSrc, prefixPos, prefixCch));
+
+        if (shared != null)
+            return shared.getName(hash, uriSrc, uriPos, uriCch, localSrc, localPos, localCch, prefixSrc, prefixPos, prefixCch);
+
+        int index = hash & hashmask;
+        while (true) {
+            QName q = table[index];
+            if (q == null)
+            {
+                return add(newQName(uriSrc, uriPos, uriCch, localSrc, localPos, localCch, prefixSrc, prefixPos, prefixCch));
+            }
+            else if (equals(q, uriSrc, uriPos, uriCch, localSrc, localPos, localCch, prefixSrc, prefixPos, prefixCch))
+                return hit(index, q);
+            else
+                index = (index-1) & hashmask;
+        }
+    }
+
+    private QName hit(int index, QName q)
+    {
+        hits++;
+        if (referenced != null)
+            referenced[index] = true;
+        return q;
+    }
+
+    private QName add(QName q)
+    {
+        misses++;
+
+        if (maxEntries > 0 && numEntries >= maxEntries)
+            evict();
+
+        numEntries++;
+        if (numEntries >= threshold)
+            rehash();
+
+        int index = hash(q) & hashmask;
+        while (table[index] != null)
+            index = (index - 1) & hashmask;
+        table[index] = q;
+        return q;
+    }
+
+    /**
+     * Evicts one entry, which wasn't referenced since the last pass of the clock hand.
+     */
+    private void evict()
+    {
+        for (;;)
+        {
+            int index = clockHand;
+            clockHand = (clockHand + 1) & hashmask;
+
+            if (table[index] == null)
+                continue;
+
+            if (referenced[index])
+            {
+                referenced[index] = false;
+                continue;
+            }
+
+            remove(index);
+            return;
+        }
+    }
+
+    /**
+     * Removes the entry by shifting back the following entries of the probe sequence,
+     * so no tombstones are necessary.
+     */
+    private void remove(int index)
+    {
+        numEntries--;
+        table[index] = null;
+        referenced[index] = false;
+
+        int free = index;
+        int j = index;
+        for (;;)
+        {
+            j = (j - 1) & hashmask;
+            QName q = table[j];
+            if (q == null)
+                return;
+
+            // the entry can be moved to the free slot, if the slot is on its probe path
+            int home = hash(q) & hashmask;
+            if (((home - free) & hashmask) < ((home - j) & hashmask))
+            {
+                table[free] = q;
+                referenced[free] = referenced[j];
+                table[j] = null;
+                referenced[j] = false;
+                free = j;
+            }
+        }
+    }
+
     private void rehash()
     {
         int newLength = table.length * 2;
         QName[] newTable = new QName[newLength];
+        boolean[] newReferenced = (referenced != null) ? new boolean[newLength] : null;
         int newHashmask = newLength - 1;
 
         for (int i = 0 ; i < table.length ; i++)
@@ -114,32 +323,51 @@ public final class QNameCache
             QName q = table[i];
             if (q != null)
             {
-                int newIndex =
-                    hash( q.getNamespaceURI(), q.getLocalPart(), q.getPrefix() ) & newHashmask;
+                int newIndex = hash(q) & newHashmask;
                 
                 while (newTable[newIndex] != null)
                     newIndex = (newIndex - 1) & newHashmask;
                 
                 newTable[newIndex] = q;
+                if (newReferenced != null)
+                    newReferenced[newIndex] = referenced[i];
             }
         }
 
         table = newTable;
+        referenced = newReferenced;
         hashmask = newHashmask;
         threshold = (int) (newLength * loadFactor);
+        clockHand = 0;
     }
-    
-    private static int hash(String uri, String localName, String prefix)
+
+    private static int hash(QName q)
+    {
+        return hash(q.getNamespaceURI().hashCode(), q.getLocalPart().hashCode(), q.getPrefix().hashCode());
+    }
+
+    private static int hash(int uriHash, int localNameHash, int prefixHash)
     {
         int h = 0;
 
-        h += prefix.hashCode() << 10;
-        h += uri.hashCode() << 5;
-        h += localName.hashCode();
+        h += prefixHash << 10;
+        h += uriHash << 5;
+        h += localNameHash;
 
         return h;
     }
 
+    /**
+     * @return the same hash code as {@link String#hashCode()} of the char slice
+     */
+    private static int hash(char[] src, int pos, int cch)
+    {
+        int h = 0;
+        for (int i = 0; i < cch; i++)
+            h = 31 * h + src[pos + i];
+        return h;
+    }
+
     private static boolean equals(QName q, String uri, String localName, String prefix)
     {
         return
@@ -147,4 +375,151 @@ public final class QNameCache
                 q.getNamespaceURI().equals(uri) &&
                     q.getPrefix().equals(prefix);
     }
+
+    private static boolean equals(QName q, char[] uriSrc, int uriPos, int uriCch,
+                                  char[] localSrc, int localPos, int localCch,
+                                  char[] prefixSrc, int prefixPos, int prefixCch)
+    {
+        return
+            equals(q.getLocalPart(), localSrc, localPos, localCch) &&
+                equals(q.getNamespaceURI(), uriSrc, uriPos, uriCch) &&
+                    equals(q.getPrefix(), prefixSrc, prefixPos, prefixCch);
+    }
+
+    private static boolean equals(String s, char[] src, int pos, int cch)
+    {
+        if (s.length() != cch)
+            return false;
+        for (int i = 0; i < cch; i++)
+            if (s.charAt(i) != src[pos + i])
+                return false;
+        return true;
+    }
+
+    private static QName newQName(char[] uriSrc, int uriPos, int uriCch,
+                                  char[] localSrc, int localPos, int localCch,
+                                  char[] prefixSrc, int prefixPos, int prefixCch)
+    {
+        return new QName(
+            uriCch == 0 ? "" : new String(uriSrc, uriPos, uriCch),
+            new String(localSrc, localPos, localCch),
+            prefixCch == 0 ? "" : new String(prefixSrc, prefixPos, prefixCch));
+    }
+
+    /**
+     * Lock-free, set-associative table for the shared cache. Each hash code maps to a set of
+     * {@link #WAYS} slots, a miss replaces an empty slot or evicts an entry of the set by a CLOCK
+     * policy. The reference bits and clock hands are updated racy, which only affects the
+     * quality of the eviction decision.
+     */
+    private static final class SharedTable
+    {
+        private static final int WAYS = 4;
+
+        private final AtomicReferenceArray<QName> slots;
+        private final boolean[] referenced;
+        private final byte[] hands;
+        private final int setMask;
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        SharedTable(int capacity)
+        {
+            if (capacity <= 0)
+                throw new IllegalArgumentException("capacity must be positive");
+
+            int sets = 1;
+            while (sets * WAYS < capacity)
+                sets <<= 1;
+
+            slots = new AtomicReferenceArray<>(sets * WAYS);
+            referenced = new boolean[sets * WAYS];
+            hands = new byte[sets];
+            setMask = sets - 1;
+        }
+
+        int size()
+        {
+            int n = 0;
+            for (int i = 0; i < slots.length(); i++)
+            {
+                if (slots.get(i) != null)
+                    n++;
+            }
+            return n;
+        }
+
+        private int setIndex(int hash)
+        {
+            // spread the hash, as the lower bits of the combined hash are dominated by the local name
+            return (hash ^ (hash >>> 16)) & setMask;
+        }
+
+        QName getName(int hash, String uri, String localName, String prefix)
+        {
+            int set = setIndex(hash);
+            int base = set * WAYS;
+            for (int i = base; i < base + WAYS; i++)
+            {
+                QName q = slots.get(i);
+                if (q != null && QNameCache.equals(q, uri, localName, prefix))
+                    return hit(i, q);
+            }
+            return add(set, new QName(uri, localName, prefix));
+        }
+
+        QName getName(int hash, char[] uriSrc, int uriPos, int uriCch,
+                      char[] localSrc, int localPos, int localCch,
+                      char[] prefixSrc, int prefixPos, int prefixCch)
+        {
+            int set = setIndex(hash);
+            int base = set * WAYS;
+            for (int i = base; i < base + WAYS; i++)
+            {
+                QName q = slots.get(i);
+                if (q != null && QNameCache.equals(q, uriSrc, uriPos, uriCch, localSrc, localPos, localCch, prefixSrc, prefixPos, prefixCch))
+                    return hit(i, q);
+            }
+            return add(set, newQName(uriSrc, uriPos, uriCch, localSrc, localPos, localCch, prefixSrc, prefixPos, prefixCch));
+        }
+
+        private QName hit(int index, QName q)
+        {
+            hits.increment();
+            if (!referenced[index])
+                referenced[index] = true;
+            return q;
+        }
+
+        private QName add(int set, QName q)
+        {
+            misses.increment();
+
+            int base = set * WAYS;
+            for (int i = base; i < base + WAYS; i++)
+            {
+                if (slots.get(i) == null && slots.compareAndSet(i, null, q))
+                    return q;
+            }
+
+            // second chance - at most two rounds over the set
+            int hand = hands[set];
+            for (int n = 0; n < 2 * WAYS; n++)
+            {
+                int i = base + (hand & (WAYS - 1));
+                hand++;
+                if (referenced[i])
+                {
+                    referenced[i] = false;
+                    continue;
+                }
+                hands[set] = (byte) hand;
+                slots.set(i, q);
+                return q;
+            }
+
+            // unreachable, as all reference bits were cleared in the first round
+            return q;
+        }
+    }
 }
@@ -77,29 +77,52 @@ public final class XmlBeans {
         return XMLBEANS_VERSION;
     }
 
+    /**
+     * Maximum number of entries of a QName cache, 0 means unbounded
+     */
+    private static final int QNAME_CACHE_CAPACITY =
+        Integer.parseInt(SystemProperties.getProperty("xmlbean.qnamecache.capacity", "0"));
+
+    /**
+     * Process wide QName cache, if enabled by the system property "xmlbean.qnamecache.shared"
+     */
+    private static final QNameCache _sharedQNameCache =
+        "true".equals(SystemProperties.getProperty("xmlbean.qnamecache.shared", "false"))
+            ? QNameCache.newSharedCache(QNAME_CACHE_CAPACITY > 0 ? QNAME_CACHE_CAPACITY : 4096)
+            : null;
+
     /**
      * Thread local QName cache for general use
      */
     private static final ThreadLocal _threadLocalLoaderQNameCache =
         new ThreadLocal() {
             protected Object initialValue() {
-                return new SoftReference(new QNameCache(32));
+                return new SoftReference(newQNameCache());
             }
         };
 
+    private static QNameCache newQNameCache() {
+        return new QNameCache(32, 0.70f, QNAME_CACHE_CAPACITY);
+    }
+
     public static void clearThreadLocals() {
         // clear thread local here
         _threadLocalLoaderQNameCache.remove();
     }
 
     /**
-     * Returns a thread local QNameCache
+     * Returns a thread local QNameCache or the shared QNameCache,
+     * if the system property "xmlbean.qnamecache.shared" is set to true.
+     * The capacity of the cache can be limited via "xmlbean.qnamecache.capacity".
      */
     public static QNameCache getQNameCache() {
+        if (_sharedQNameCache != null) {
+            return _sharedQNameCache;
+        }
         SoftReference softRef = (SoftReference) _threadLocalLoaderQNameCache.get();
         QNameCache qnameCache = (QNameCache) (softRef).get();
         if (qnameCache == null) {
-            qnameCache = new QNameCache(32);
+            qnameCache = newQNameCache();
             _threadLocalLoaderQNameCache.set(new SoftReference(qnameCache));
         }
         return qnameCache;
@@ -224,6 +247,23 @@ public final class XmlBeans {
         return Locale.streamToNode(xs);
     }
 
+    /**
+     * Returns the number of cursors in this JVM which were not closed, but released
+     * after being garbage collected.
+     */
+    public static long getCursorReclaimedCount() {
+        return Locale.getCursorReclaimedCount();
+    }
+
+    /**
+     * Returns the number of currently open cursors in this JVM of the documents loaded with
+     * {@link XmlOptions#setExplicitCursorClose()}. A steadily growing value hints at cursors
+     * which are not closed.
+     */
+    public static long getUntrackedCursorOpenCount() {
+        return Locale.getUntrackedCursorOpenCount();
+    }
+
     /**
      * Returns the SchemaTypeSystem that results from compiling the XML
      * schema definitions passed.
@@ -0,0 +1,75 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans;
+
+/**
+ * The result of {@link XmlTokenSource#compact()}.
+ * <p>
+ * The retained chars are the sizes of all text buffers referenced by the document, including
+ * the parts which hold the text of other documents or text which was removed, i.e. the
+ * amount of memory which the document keeps from being collected (2 bytes per char).
+ */
+public final class XmlCompactionStats {
+    /**
+     * The result of a token source, which has nothing to compact
+     */
+    public static final XmlCompactionStats NONE = new XmlCompactionStats(0, 0, 0, 0);
+
+    private final int _textChars;
+    private final long _retainedCharsBefore;
+    private final long _retainedCharsAfter;
+    private final int _joinsFlattened;
+
+    public XmlCompactionStats(int textChars, long retainedCharsBefore, long retainedCharsAfter, int joinsFlattened) {
+        _textChars = textChars;
+        _retainedCharsBefore = retainedCharsBefore;
+        _retainedCharsAfter = retainedCharsAfter;
+        _joinsFlattened = joinsFlattened;
+    }
+
+    /**
+     * @return the number of chars of text, attribute values, comments and processing instructions
+     */
+    public int getTextChars() {
+        return _textChars;
+    }
+
+    /**
+     * @return the number of chars of the text buffers referenced before the compaction
+     */
+    public long getRetainedCharsBefore() {
+        return _retainedCharsBefore;
+    }
+
+    /**
+     * @return the number of chars of the text buffer referenced after the compaction
+     */
+    public long getRetainedCharsAfter() {
+        return _retainedCharsAfter;
+    }
+
+    /**
+     * @return the number of joins of text buffers, which were left behind by edits
+     */
+    public int getJoinsFlattened() {
+        return _joinsFlattened;
+    }
+
+    public String toString() {
+        return "text chars: " + _textChars + ", retained chars before: " + _retainedCharsBefore +
+               ", after: " + _retainedCharsAfter + ", joins flattened: " + _joinsFlattened;
+    }
+}
@@ -22,6 +22,7 @@ import org.xml.sax.XMLReader;
 import javax.xml.namespace.QName;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.Executor;
 
 /**
  * Used to supply options for loading, saving, and compiling, and validating.
@@ -134,6 +135,8 @@ public class XmlOptions implements java.io.Serializable {
         COMPILE_DOWNLOAD_URLS,
         COMPILE_MDEF_NAMESPACES,
         COMPILE_PARTIAL_TYPESYSTEM,
+        COMPILE_PARALLELISM,
+        COMPILE_XSB_PACK,
         COMPILE_PARTIAL_METHODS,
         COMPILE_ANNOTATION_JAVADOC,
         VALIDATE_ON_SET,
@@ -157,12 +160,19 @@ public class XmlOptions implements java.io.Serializable {
         XPATH_USE_SAXON,
         XPATH_USE_XMLBEANS,
         ATTRIBUTE_VALIDATION_COMPAT_MODE,
+        CHILD_INDEX_THRESHOLD,
+        EXPLICIT_CURSOR_CLOSE,
+        STREAM_READER_UNSYNCHRONIZED,
+        VALIDATE_PARALLELISM,
+        VALIDATE_EXECUTOR,
 
     }
 
 
     public static final int DEFAULT_ENTITY_EXPANSION_LIMIT = 2048;
 
+    public static final int DEFAULT_CHILD_INDEX_THRESHOLD = 64;
+
     private static final XmlOptions EMPTY_OPTIONS;
 
     static {
@@ -822,6 +832,7 @@ public class XmlOptions implements java.io.Serializable {
      * footprint.  Use this option if you are loading a large number
      * of unchanging documents that will stay in memory for some time.
      *
+     * @see XmlTokenSource#compact()
      * @see org.apache.xmlbeans.impl.schema.XmlObjectFactory#parse(java.io.File, XmlOptions)
      */
     public XmlOptions setLoadTrimTextBuffer() {
@@ -1102,6 +1113,45 @@ public class XmlOptions implements java.io.Serializable {
         return flag != null && flag;
     }
 
+    /**
+     * Sets the number of threads, which the schema compiler uses for the independent
+     * parts of the compilation, i.e. the validation of the schema documents and the checks
+     * of the compiled types. The reported errors are in the same order as for a single-threaded
+     * compilation. The default is 1, i.e. the compilation runs on the calling thread.
+     *
+     * @param parallelism the number of threads
+     * @see XmlBeans#compileXsd
+     */
+    public XmlOptions setCompileParallelism(int parallelism) {
+        return set(XmlOptionsKeys.COMPILE_PARALLELISM, parallelism);
+    }
+
+    public int getCompileParallelism() {
+        Integer parallelism = (Integer) get(XmlOptionsKeys.COMPILE_PARALLELISM);
+        return parallelism == null ? 1 : parallelism;
+    }
+
+    /**
+     * If this option is set, the compiled type system is saved as a single
+     * {@code index.xsbpack} resource with a shared string pool instead of one
+     * .xsb resource per schema component. At runtime the pack is memory-mapped
+     * where possible and the components are decoded on demand.
+     * The pointer files used to locate the type system are still written separately.
+     *
+     * @see XmlBeans#compileXmlBeans
+     */
+    public XmlOptions setCompileXsbPack() {
+        return setCompileXsbPack(true);
+    }
+
+    public XmlOptions setCompileXsbPack(boolean b) {
+        return set(XmlOptionsKeys.COMPILE_XSB_PACK, b);
+    }
+
+    public boolean isCompileXsbPack() {
+        return hasOption(XmlOptionsKeys.COMPILE_XSB_PACK);
+    }
+
     /**
      * If this option is set when an instance is created, then value
      * facets will be checked on each call to a setter or getter
@@ -1453,6 +1503,114 @@ public class XmlOptions implements java.io.Serializable {
         return flag != null && flag;
     }
 
+    /**
+     * Sets the number of element children, which a parent element needs to have before the store
+     * builds a lookup index of its children by name. The index turns the indexed array accessors
+     * of the generated classes, e.g. {@code getXArray(i)} or {@code sizeOfXArray()}, into map lookups
+     * instead of linear scans of the children. It's built lazily, updated when children are appended or removed and rebuilt
+     * on demand after other structural changes.
+     * The default value is {@link #DEFAULT_CHILD_INDEX_THRESHOLD}.
+     *
+     * @param threshold the minimum number of element children, a value &lt;= 0 disables the index
+     */
+    public XmlOptions setChildIndexThreshold(int threshold) {
+        return set(XmlOptionsKeys.CHILD_INDEX_THRESHOLD, threshold);
+    }
+
+    public int getChildIndexThreshold() {
+        Integer threshold = (Integer) get(XmlOptionsKeys.CHILD_INDEX_THRESHOLD);
+        return threshold == null ? DEFAULT_CHILD_INDEX_THRESHOLD : threshold;
+    }
+
+    /**
+     * If this option is set when a document is loaded or created, the cursors of the document
+     * are not tracked by a phantom reference. This saves the reference processing of the GC and
+     * the polling of the reference queue, but the caller promises to {@link XmlCursor#close() close}
+     * every cursor - an unclosed cursor stays registered with the document until the document
+     * itself is garbage collected and slows down the changes of the document.
+     * <p>
+     * Cursors which are neither closed nor reclaimed can be spotted with the counters of
+     * {@link XmlBeans#getUntrackedCursorOpenCount()} and {@link XmlBeans#getCursorReclaimedCount()}.
+     */
+    public XmlOptions setExplicitCursorClose() {
+        return setExplicitCursorClose(true);
+    }
+
+    public XmlOptions setExplicitCursorClose(boolean b) {
+        return set(XmlOptionsKeys.EXPLICIT_CURSOR_CLOSE, b);
+    }
+
+    public boolean isExplicitCursorClose() {
+        return hasOption(XmlOptionsKeys.EXPLICIT_CURSOR_CLOSE);
+    }
+
+    /**
+     * If this option is set, the XMLStreamReader returned by {@link XmlTokenSource#newXMLStreamReader(XmlOptions)}
+     * doesn't synchronize on the document's monitor for each call.
+     * <p>
+     * Only use this option if no other thread accesses the document while the reader is in use.
+     * Changes to the document are still detected and fail the reader with a
+     * {@link java.util.ConcurrentModificationException}.
+     */
+    public XmlOptions setStreamReaderUnsynchronized() {
+        return setStreamReaderUnsynchronized(true);
+    }
+
+    public XmlOptions setStreamReaderUnsynchronized(boolean b) {
+        return set(XmlOptionsKeys.STREAM_READER_UNSYNCHRONIZED, b);
+    }
+
+    public boolean isStreamReaderUnsynchronized() {
+        return hasOption(XmlOptionsKeys.STREAM_READER_UNSYNCHRONIZED);
+    }
+
+    /**
+     * Sets the number of threads used by {@link XmlObject#validate(XmlOptions)}.
+     * The default value is 1, i.e. the validation runs on the calling thread.
+     * <p>
+     * With more threads, the child elements of the document element, or of the validated
+     * element if it isn't a document, are validated concurrently. The document is still read
+     * by the calling thread, so this only pays off for large documents with complex content.
+     * <p>
+     * The errors are reported in document order, but the errors within the child elements
+     * are located by line and column only (if the document was loaded with
+     * {@link #setLoadLineNumbers()}) instead of a cursor. Elements which are in the scope
+     * of an identity constraint are validated sequentially.
+     * <p>
+     * The child elements are validated by the executor set with {@link #setValidateExecutor(Executor)},
+     * or else by a pool of daemon threads shared by all validations, with one thread per processor.
+     * The parallelism then limits the number of batches of child elements, which are in flight at once.
+     *
+     * @param parallelism the number of threads
+     * @return this
+     */
+    public XmlOptions setValidateParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        return set(XmlOptionsKeys.VALIDATE_PARALLELISM, parallelism);
+    }
+
+    public int getValidateParallelism() {
+        Integer parallelism = (Integer) get(XmlOptionsKeys.VALIDATE_PARALLELISM);
+        return parallelism == null ? 1 : parallelism;
+    }
+
+    /**
+     * Sets the executor, which validates the child elements if {@link #setValidateParallelism(int)}
+     * is more than 1. The executor isn't shut down by the validation.
+     *
+     * @param executor the executor or null to use the shared pool
+     * @return this
+     */
+    public XmlOptions setValidateExecutor(Executor executor) {
+        return set(XmlOptionsKeys.VALIDATE_EXECUTOR, executor);
+    }
+
+    public Executor getValidateExecutor() {
+        return (Executor) get(XmlOptionsKeys.VALIDATE_EXECUTOR);
+    }
+
     public enum BeanMethod {
         GET, XGET, IS_SET, IS_NIL, IS_NIL_IDX, SET, SET_NIL, SET_NIL_IDX, XSET, UNSET,
         GET_ARRAY, XGET_ARRAY, GET_IDX, XGET_IDX, XSET_ARRAY, XSET_IDX,
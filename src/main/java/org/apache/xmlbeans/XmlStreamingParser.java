@@ -0,0 +1,209 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans;
+
+import org.apache.xmlbeans.impl.common.StaxHelper;
+import org.apache.xmlbeans.impl.store.Locale;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Parses the occurrences of a repeating element of a large document one at a time.
+ * <p>
+ * Each occurrence is loaded into its own store, so the returned objects are detached from each
+ * other and from the rest of the document. As long as the caller doesn't keep the records,
+ * the memory use doesn't depend on the size of the document. The namespaces declared on the
+ * enclosing elements are copied to each record, so QName values and xsi:types keep resolving.
+ * <p>
+ * For example:
+ * <pre>{@code
+ * try (XmlStreamingParser parser = XmlStreamingParser.forElement(is,
+ *         new QName("urn:feed", "record"), RecordType.type, null)) {
+ *     while (parser.hasNext()) {
+ *         RecordType rec = (RecordType) parser.next();
+ *         ...
+ *     }
+ * }
+ * }</pre>
+ * If the requested type is a document type or null, the records are returned as documents,
+ * i.e. null will sniff the type of a record from the global element of the same name.
+ * Otherwise the record element is used as the container of the requested type, like when
+ * parsing a fragment with {@link XmlOptions#setLoadReplaceDocumentElement(QName)} set to null.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public final class XmlStreamingParser implements Closeable {
+    private final SchemaTypeLoader _typeLoader;
+    private final XMLStreamReader _xsr;
+    private final boolean _closeReader;
+    private final QName _recordName;
+    private final SchemaType _recordType;
+    private final XmlOptions _options;
+
+    // the namespace declarations of the enclosing elements, as prefix/uri pairs
+    private final List<String> _nsDecls = new ArrayList<>();
+    // the size of _nsDecls before each enclosing element
+    private final List<Integer> _nsMarks = new ArrayList<>();
+
+    private boolean _atRecord;
+    private boolean _afterRecord;
+    private boolean _finished;
+
+    private XmlStreamingParser(SchemaTypeLoader typeLoader, XMLStreamReader xsr, boolean closeReader,
+                               QName recordName, SchemaType recordType, XmlOptions options) {
+        if (xsr == null) {
+            throw new IllegalArgumentException("Null XMLStreamReader specified");
+        }
+        if (recordName == null) {
+            throw new IllegalArgumentException("Null record name specified");
+        }
+
+        _typeLoader = (typeLoader == null) ? XmlBeans.getContextTypeLoader() : typeLoader;
+        _xsr = xsr;
+        _closeReader = closeReader;
+        _recordName = recordName;
+        _recordType = recordType;
+
+        options = new XmlOptions(XmlOptions.maskNull(options));
+        if (recordType != null && !recordType.isDocumentType()) {
+            options.setLoadReplaceDocumentElement(null);
+        }
+        _options = options;
+    }
+
+    /**
+     * Reads the records from the given reader. The reader is not closed by this parser.
+     *
+     * @param xsr        the reader, positioned anywhere before the first record
+     * @param recordName the name of the repeating element
+     * @param recordType the type of the records or null to sniff the type
+     * @param options    the load options for each record
+     */
+    public static XmlStreamingParser forElement(XMLStreamReader xsr, QName recordName, SchemaType recordType, XmlOptions options) {
+        return forElement(null, xsr, recordName, recordType, options);
+    }
+
+    /**
+     * Reads the records from the given reader and looks up their types in the given type loader.
+     * The reader is not closed by this parser.
+     */
+    public static XmlStreamingParser forElement(SchemaTypeLoader typeLoader, XMLStreamReader xsr, QName recordName, SchemaType recordType, XmlOptions options) {
+        return new XmlStreamingParser(typeLoader, xsr, false, recordName, recordType, options);
+    }
+
+    /**
+     * Reads the records from the given stream. Closing the parser doesn't close the stream.
+     */
+    public static XmlStreamingParser forElement(InputStream is, QName recordName, SchemaType recordType, XmlOptions options) throws XmlException {
+        if (is == null) {
+            throw new IllegalArgumentException("Null InputStream specified");
+        }
+        try {
+            XMLStreamReader xsr = StaxHelper.newXMLInputFactory(XmlOptions.maskNull(options)).createXMLStreamReader(is);
+            return new XmlStreamingParser(null, xsr, true, recordName, recordType, options);
+        } catch (XMLStreamException e) {
+            throw new XmlException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return true, if there's another record in the document
+     */
+    public boolean hasNext() throws XmlException {
+        if (_atRecord) {
+            return true;
+        }
+        if (_finished) {
+            return false;
+        }
+
+        try {
+            int event = _xsr.getEventType();
+            for (; ; ) {
+                if (_afterRecord) {
+                    // the end element of the previous record, which didn't push a mark
+                    _afterRecord = false;
+                } else if (event == XMLStreamReader.START_ELEMENT) {
+                    if (_recordName.equals(_xsr.getName())) {
+                        _atRecord = true;
+                        return true;
+                    }
+                    _nsMarks.add(_nsDecls.size());
+                    for (int i = 0, n = _xsr.getNamespaceCount(); i < n; i++) {
+                        String prefix = _xsr.getNamespacePrefix(i);
+                        String uri = _xsr.getNamespaceURI(i);
+                        _nsDecls.add(prefix == null ? "" : prefix);
+                        _nsDecls.add(uri == null ? "" : uri);
+                    }
+                } else if (event == XMLStreamReader.END_ELEMENT && !_nsMarks.isEmpty()) {
+                    int mark = _nsMarks.remove(_nsMarks.size() - 1);
+                    _nsDecls.subList(mark, _nsDecls.size()).clear();
+                }
+
+                if (!_xsr.hasNext()) {
+                    _finished = true;
+                    return false;
+                }
+                event = _xsr.next();
+            }
+        } catch (XMLStreamException e) {
+            throw new XmlException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return the next record, detached from the document
+     * @throws NoSuchElementException if there are no more records
+     */
+    public XmlObject next() throws XmlException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        _atRecord = false;
+
+        Map<String, String> inherited = new HashMap<>();
+        for (int i = 0; i < _nsDecls.size(); i += 2) {
+            inherited.put(_nsDecls.get(i), _nsDecls.get(i + 1));
+        }
+
+        // leaves the reader at the end element of the record
+        XmlObject record = Locale.parseElementToXmlObject(_typeLoader, _xsr, _recordType, _options, inherited);
+        _afterRecord = true;
+        return record;
+    }
+
+    @Override
+    public void close() {
+        _finished = true;
+        _atRecord = false;
+        if (_closeReader) {
+            try {
+                _xsr.close();
+            } catch (XMLStreamException ignored) {
+                // nothing to do, the underlying stream is owned by the caller
+            }
+        }
+    }
+}
@@ -49,6 +49,25 @@ public interface XmlTokenSource {
      */
     XmlDocumentProperties documentProperties();
 
+    /**
+     * Copies the text of the whole document into a single buffer of the exact size.
+     * <p>
+     * A loaded document shares the text buffers of the parser with other documents and edits
+     * leave removed text and joins of text fragments behind, which are kept in memory as long
+     * as the document is. Call this when a document is done being modified and stays in memory
+     * for some time. The content of the document and the positions of cursors don't change.
+     * <p>
+     * The default implementation doesn't compact anything and returns {@link XmlCompactionStats#NONE}.
+     * <p>
+     * Note: Future major release will remove this default implementation.
+     *
+     * @return the sizes of the text buffers before and after the compaction
+     * @see XmlOptions#setLoadTrimTextBuffer()
+     */
+    default XmlCompactionStats compact() {
+        return XmlCompactionStats.NONE;
+    }
+
     /**
      * Returns a new XML cursor.
      * <p>
@@ -35,10 +35,51 @@ public class IdentityConstraint {
     private final Collection<XmlError> _errorListener;
     private boolean _invalid;
     private final boolean _trackIdrefs; // We only track idrefs if validating from the root element
+    private final boolean _deferIdrefs; // The idrefs of a subtree are resolved when it is merged
+    private IdState _idState;
+    private IdRefState _idRefState;
 
     public IdentityConstraint(Collection<XmlError> errorListener, boolean trackIdrefs) {
+        this(errorListener, trackIdrefs, false);
+    }
+
+    private IdentityConstraint(Collection<XmlError> errorListener, boolean trackIdrefs, boolean deferIdrefs) {
         _errorListener = errorListener;
         _trackIdrefs = trackIdrefs;
+        _deferIdrefs = deferIdrefs;
+    }
+
+    /**
+     * Creates the engine for a subtree, which is validated separately from this engine.
+     * The IDs and IDREFs of the subtree are checked against the rest of the document
+     * when it is merged back with {@link #merge}.
+     */
+    public IdentityConstraint forSubtree(Collection<XmlError> errorListener) {
+        return new IdentityConstraint(errorListener, _trackIdrefs, true);
+    }
+
+    /**
+     * Merges the IDs and IDREFs of a subtree engine. IDs which are already known are
+     * reported at the given event.
+     */
+    public void merge(IdentityConstraint subtree, Event e) {
+        if (subtree._invalid) {
+            _invalid = true;
+        }
+
+        if (subtree._idState == null || _idState == null) {
+            return;
+        }
+
+        for (XmlObjectList value : subtree._idState._values) {
+            if (!_idState._values.add(value)) {
+                emitError(e, XmlErrorCodes.ID_VALID$DUPLICATE, new Object[]{value.toString()});
+            }
+        }
+
+        if (_idRefState != null && subtree._idRefState != null) {
+            _idRefState._values.addAll(subtree._idRefState._values);
+        }
     }
 
     public void element(Event e, SchemaType st, SchemaIdentityConstraint[] ics) {
@@ -104,8 +145,9 @@ public class IdentityConstraint {
     private void buildIdStates() {
         // Construct states to hold the values for IDs and IDRefs
         IdState ids = new IdState();
+        _idState = ids;
         if (_trackIdrefs) {
-            new IdRefState(ids);
+            _idRefState = new IdRefState(ids);
         }
     }
 
@@ -635,6 +677,10 @@ public class IdentityConstraint {
         }
 
         void remove(Event e) {
+            if (_deferIdrefs) {
+                return;
+            }
+
             // Validate each ref has a corresponding ID
             for (XmlObjectList o : _values) {
                 if (!_ids._values.contains(o)) {
@@ -20,6 +20,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
 
@@ -40,6 +43,7 @@ public class JarHelper {
     private final byte[] mBuffer = new byte[BUFFER_SIZE];
     private boolean mVerbose = false;
     private String mDestJarName = "";
+    private Set<String> mWritten;
 
     // ========================================================================
     // Constructor
@@ -71,6 +75,56 @@ public class JarHelper {
         }
     }
 
+    /**
+     * Jars the given in-memory entries together with the content of a directory.
+     * The in-memory entries are keyed by their jar entry name, e.g. {@code a/b/C.class},
+     * and take precedence over files of the directory with the same name.
+     *
+     * @param dir     the directory to be added, may be null or not existing
+     * @param entries the in-memory entries
+     * @param destJar the jar file to be written
+     */
+    public void jarDir(File dir, Map<String, byte[]> entries, File destJar)
+            throws IOException {
+
+        if (entries == null || destJar == null) {
+            throw new IllegalArgumentException();
+        }
+
+        mDestJarName = destJar.getCanonicalPath();
+        long now = System.currentTimeMillis();
+        try (OutputStream fout = Files.newOutputStream(destJar.toPath());
+             JarOutputStream jout = new JarOutputStream(fout)) {
+            mWritten = new HashSet<>();
+            for (Map.Entry<String, byte[]> me : entries.entrySet()) {
+                String name = me.getKey();
+                for (int idx = name.indexOf(SEP); idx != -1; idx = name.indexOf(SEP, idx + 1)) {
+                    String dirName = name.substring(0, idx + 1);
+                    if (mWritten.add(dirName)) {
+                        JarEntry je = new JarEntry(dirName);
+                        je.setTime(now);
+                        jout.putNextEntry(je);
+                        jout.closeEntry();
+                    }
+                }
+                if (mVerbose) {
+                    System.out.println("adding " + name);
+                }
+                mWritten.add(name);
+                JarEntry entry = new JarEntry(name);
+                entry.setTime(now);
+                jout.putNextEntry(entry);
+                jout.write(me.getValue());
+                jout.closeEntry();
+            }
+            if (dir != null && dir.isDirectory()) {
+                jarDir(dir, jout, null);
+            }
+        } finally {
+            mWritten = null;
+        }
+    }
+
     public void setVerbose(boolean b) {
         mVerbose = b;
     }
@@ -91,7 +145,7 @@ public class JarHelper {
         if (dirOrFile2jar.isDirectory()) {
             String[] dirList = dirOrFile2jar.list();
             String subPath = (path == null) ? "" : (path + dirOrFile2jar.getName() + SEP);
-            if (path != null) {
+            if (path != null && (mWritten == null || mWritten.add(subPath))) {
                 JarEntry je = new JarEntry(subPath);
                 je.setTime(dirOrFile2jar.lastModified());
                 jos.putNextEntry(je);
@@ -111,6 +165,12 @@ public class JarHelper {
                 }
                 return;
             }
+            if (mWritten != null && !mWritten.add(path + dirOrFile2jar.getName())) {
+                if (mVerbose) {
+                    System.out.println("skipping " + dirOrFile2jar.getPath());
+                }
+                return;
+            }
 
             if (mVerbose) {
                 System.out.println("adding " + dirOrFile2jar.getPath());
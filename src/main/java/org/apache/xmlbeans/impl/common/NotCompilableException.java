@@ -16,15 +16,14 @@
 package org.apache.xmlbeans.impl.common;
 
 /**
- * Whenever multiple locks must be acquired within the implementation of
- * XML Beans, this GlobalLock is acquired first, and then released when all
- * the acutally-needed locks have been acquired.  This prevents deadlocks.
- */ 
-public class GlobalLock
-{
-    private static final Mutex GLOBAL_MUTEX = new Mutex();
-    
-    public static void acquire() throws InterruptedException { GLOBAL_MUTEX.acquire(); }
-    public static void tryToAcquire() { GLOBAL_MUTEX.tryToAcquire(); }
-    public static void release() { GLOBAL_MUTEX.release(); }
+ * Thrown while building an automaton, e.g. of a pattern or a content model, for constructs
+ * which the automaton doesn't support. It's caught by the builder, which then falls back to
+ * the interpreting matcher, so it has no stack trace.
+ */
+public final class NotCompilableException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public NotCompilableException() {
+        super(null, null, false, false);
+    }
 }
@@ -0,0 +1,85 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.common;
+
+import java.util.function.Supplier;
+
+/**
+ * Acquires the monitors of two objects (usually two locales) in a global order,
+ * so two threads locking the same pair never deadlock.
+ * <p>
+ * The monitors are ordered by their identity hash code. In the rare case of equal hash codes,
+ * a tie-breaker lock - chosen from a set of stripes by the hash code - is acquired first,
+ * so only threads locking colliding pairs are serialized.
+ * <p>
+ * Operations which lock two monitors need to use this class instead of nesting
+ * synchronized blocks, otherwise the order isn't guaranteed.
+ */
+public final class OrderedLock {
+    private static final int STRIPES = 16;
+
+    private static final Object[] TIE_LOCKS = new Object[STRIPES];
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            TIE_LOCKS[i] = new Object();
+        }
+    }
+
+    private OrderedLock() {
+    }
+
+    /**
+     * Runs the action while holding the monitors of both objects.
+     *
+     * @param a      the first monitor
+     * @param b      the second monitor
+     * @param action the action to run
+     * @return the result of the action
+     */
+    public static <T> T callLocked(Object a, Object b, Supplier<T> action) {
+        if (a == b) {
+            synchronized (a) {
+                return action.get();
+            }
+        }
+
+        int ha = System.identityHashCode(a);
+        int hb = System.identityHashCode(b);
+
+        if (ha < hb) {
+            synchronized (a) {
+                synchronized (b) {
+                    return action.get();
+                }
+            }
+        } else if (ha > hb) {
+            synchronized (b) {
+                synchronized (a) {
+                    return action.get();
+                }
+            }
+        } else {
+            synchronized (TIE_LOCKS[ha & (STRIPES - 1)]) {
+                synchronized (a) {
+                    synchronized (b) {
+                        return action.get();
+                    }
+                }
+            }
+        }
+    }
+}
@@ -57,6 +57,10 @@ public class SystemCache {
         tl_saxLoaders.remove();
     }
 
+    /**
+     * Returns the configured SAX loader of the current thread, which is reused for parsing
+     * documents with the same security relevant options. Return null to disable the reuse.
+     */
     public Object getSaxLoader() {
         SoftReference s = tl_saxLoaders.get();
         return s == null ? null : s.get();
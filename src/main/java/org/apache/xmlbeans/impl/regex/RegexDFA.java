@@ -0,0 +1,499 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.regex;
+
+import org.apache.xmlbeans.impl.common.NotCompilableException;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A lazily built DFA for regular expressions in XML schema mode.
+ * <p>
+ * XML schema patterns are implicitly anchored and have no back references, so they can be
+ * matched by a deterministic automaton. The token tree is compiled to an NFA, whose state
+ * sets are turned into DFA states on demand while matching. The code points are mapped to
+ * classes of characters, which no part of the pattern distinguishes, to keep the transition
+ * table small.
+ * <p>
+ * Once the states used by an input are built, matching neither allocates nor locks.
+ * If the pattern can't be compiled or the automaton grows beyond its limit, the caller
+ * has to fall back to the backtracking matcher.
+ */
+final class RegexDFA {
+    static final int NO_MATCH = 0;
+    static final int MATCH = 1;
+    static final int UNKNOWN = -1;
+
+    private static final int MAX_NFA_STATES = 10000;
+    private static final int MAX_TRANSITIONS = 1 << 18;
+
+    private static final int UNBUILT = -1;
+    private static final int DEAD = -2;
+    private static final int OVERFLOW = -3;
+
+    // the atom consumed by each NFA state or -1, the target of the atom and the epsilon targets
+    private final int[] _nfaAtom;
+    private final int[] _nfaNext;
+    private final int[][] _nfaEps;
+    private final int _nfaAccept;
+
+    // the classes of the code point intervals, of the ascii characters and the atoms they match
+    private final int[] _intervalStart;
+    private final int[] _intervalClass;
+    private final int[] _asciiClass;
+    private final boolean[][] _classAtoms;
+
+    private volatile State[] _states;
+    private volatile boolean _overflow;
+
+    // guarded by this
+    private final Map<Key, Integer> _stateIds = new HashMap<>();
+    private final int[] _marks;
+    private int _mark;
+
+    private RegexDFA(Builder b, int start) {
+        int n = b._atoms.size();
+        _nfaAtom = new int[n];
+        _nfaNext = new int[n];
+        _nfaEps = new int[n][];
+        for (int i = 0; i < n; i++) {
+            _nfaAtom[i] = b._atoms.get(i);
+            _nfaNext[i] = b._next.get(i);
+            _nfaEps[i] = b._eps.get(i);
+        }
+        _nfaAccept = b._accept;
+        _marks = new int[n];
+
+        // split the code points at the boundaries of all atoms
+        TreeSet<Integer> bounds = new TreeSet<>();
+        bounds.add(0);
+        for (Object atom : b._atomList) {
+            if (atom instanceof Integer) {
+                addRange(bounds, (Integer) atom, (Integer) atom);
+            } else if (atom instanceof RangeToken) {
+                int[] ranges = ((RangeToken) atom).ranges;
+                for (int i = 0; ranges != null && i + 1 < ranges.length; i += 2) {
+                    addRange(bounds, ranges[i], ranges[i + 1]);
+                }
+            } else {
+                for (int eol : EOL_CHARS) {
+                    addRange(bounds, eol, eol);
+                }
+            }
+        }
+
+        // intervals, in which all atoms match alike, share a class
+        _intervalStart = new int[bounds.size()];
+        _intervalClass = new int[bounds.size()];
+        Map<BitSet, Integer> classIds = new HashMap<>();
+        List<boolean[]> classAtoms = new ArrayList<>();
+        int idx = 0;
+        for (int ch : bounds) {
+            boolean[] matched = new boolean[b._atomList.size()];
+            BitSet signature = new BitSet();
+            for (int a = 0; a < matched.length; a++) {
+                if (atomMatches(b._atomList.get(a), ch)) {
+                    matched[a] = true;
+                    signature.set(a);
+                }
+            }
+            Integer cls = classIds.get(signature);
+            if (cls == null) {
+                cls = classAtoms.size();
+                classIds.put(signature, cls);
+                classAtoms.add(matched);
+            }
+            _intervalStart[idx] = ch;
+            _intervalClass[idx] = cls;
+            idx++;
+        }
+        _classAtoms = classAtoms.toArray(new boolean[0][]);
+
+        _asciiClass = new int[128];
+        for (int ch = 0; ch < 128; ch++) {
+            _asciiClass[ch] = intervalClass(ch);
+        }
+
+        _states = new State[0];
+        addState(closure(new int[]{start}));
+    }
+
+    /**
+     * @param singleLine true, if the dot matches line terminators as well (option SINGLE_LINE)
+     * @return the automaton for the token tree or null, if the pattern contains constructs
+     * which aren't supported, e.g. anchors, look-arounds or back references
+     */
+    static RegexDFA build(Token tokentree, boolean singleLine) {
+        Builder b = new Builder(singleLine ? ANY_CHAR : Token.token_dot);
+        try {
+            int start = b.compile(tokentree, b._accept);
+            return new RegexDFA(b, start);
+        } catch (NotCompilableException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Matches the whole range of the target
+     *
+     * @return MATCH, NO_MATCH or UNKNOWN, if the automaton can't decide, e.g. because
+     * of unpaired surrogates in the target or because it grew too large
+     */
+    int match(String target, int start, int end) {
+        if (_overflow) {
+            return UNKNOWN;
+        }
+
+        State[] states = _states;
+        State state = states[0];
+
+        for (int i = start; i < end; ) {
+            int ch = target.charAt(i++);
+
+            if (REUtil.isHighSurrogate(ch)) {
+                if (i >= end || !REUtil.isLowSurrogate(target.charAt(i))) {
+                    return UNKNOWN;
+                }
+                ch = REUtil.composeFromSurrogates(ch, target.charAt(i++));
+            } else if (REUtil.isLowSurrogate(ch)) {
+                return UNKNOWN;
+            }
+
+            int cls = classOf(ch);
+            int next = state._next.get(cls);
+
+            if (next < 0) {
+                next = (next == UNBUILT) ? buildTransition(state, cls) : next;
+                if (next == DEAD) {
+                    return NO_MATCH;
+                }
+                if (next == OVERFLOW) {
+                    return UNKNOWN;
+                }
+            }
+
+            // the volatile read of the transition guarantees that the new state array is visible
+            if (next >= states.length) {
+                states = _states;
+            }
+            state = states[next];
+        }
+
+        return state._accept ? MATCH : NO_MATCH;
+    }
+
+    private int classOf(int ch) {
+        return (ch < 128) ? _asciiClass[ch] : intervalClass(ch);
+    }
+
+    private int intervalClass(int ch) {
+        int idx = Arrays.binarySearch(_intervalStart, ch);
+        return _intervalClass[(idx >= 0) ? idx : -idx - 2];
+    }
+
+    private synchronized int buildTransition(State from, int cls) {
+        int next = from._next.get(cls);
+        if (next != UNBUILT) {
+            return next;
+        }
+        if (_overflow) {
+            return OVERFLOW;
+        }
+
+        int[] targets = step(from._nfaStates, cls);
+
+        if (targets.length == 0) {
+            next = DEAD;
+        } else {
+            Integer id = _stateIds.get(new Key(targets));
+            if (id == null) {
+                if ((long) (_states.length + 1) * _classAtoms.length > MAX_TRANSITIONS) {
+                    _overflow = true;
+                    return OVERFLOW;
+                }
+                id = addState(targets);
+            }
+            next = id;
+        }
+
+        from._next.set(cls, next);
+        return next;
+    }
+
+    private int addState(int[] nfaStates) {
+        State[] states = _states;
+        int id = states.length;
+
+        boolean accept = Arrays.binarySearch(nfaStates, _nfaAccept) >= 0;
+        State[] grown = Arrays.copyOf(states, id + 1);
+        grown[id] = new State(nfaStates, accept, _classAtoms.length);
+
+        _stateIds.put(new Key(nfaStates), id);
+        _states = grown;
+        return id;
+    }
+
+    private int[] step(int[] from, int cls) {
+        boolean[] atoms = _classAtoms[cls];
+        List<Integer> targets = new ArrayList<>();
+        for (int s : from) {
+            int atom = _nfaAtom[s];
+            if (atom >= 0 && atoms[atom]) {
+                targets.add(_nfaNext[s]);
+            }
+        }
+
+        int[] start = new int[targets.size()];
+        for (int i = 0; i < start.length; i++) {
+            start[i] = targets.get(i);
+        }
+        return closure(start);
+    }
+
+    /**
+     * @return the sorted states reachable by epsilon transitions, which consume an atom or accept
+     */
+    private int[] closure(int[] from) {
+        int mark = ++_mark;
+        IntStack stack = new IntStack();
+        List<Integer> result = new ArrayList<>();
+
+        for (int s : from) {
+            if (_marks[s] != mark) {
+                _marks[s] = mark;
+                stack.push(s);
+            }
+        }
+
+        while (stack.size() > 0) {
+            int s = stack.pop();
+            if (_nfaAtom[s] >= 0 || s == _nfaAccept) {
+                result.add(s);
+            }
+            int[] eps = _nfaEps[s];
+            if (eps != null) {
+                for (int t : eps) {
+                    if (_marks[t] != mark) {
+                        _marks[t] = mark;
+                        stack.push(t);
+                    }
+                }
+            }
+        }
+
+        int[] states = new int[result.size()];
+        for (int i = 0; i < states.length; i++) {
+            states[i] = result.get(i);
+        }
+        Arrays.sort(states);
+        return states;
+    }
+
+    private static final int[] EOL_CHARS = {0x0A, 0x0D, 0x2028, 0x2029};
+
+    // the dot in SINGLE_LINE mode
+    private static final Token ANY_CHAR = Token.createRange();
+
+    static {
+        ANY_CHAR.addRange(0, Token.UTF16_MAX);
+    }
+
+    private static void addRange(TreeSet<Integer> bounds, int from, int to) {
+        bounds.add(from);
+        if (to < Token.UTF16_MAX) {
+            bounds.add(to + 1);
+        }
+    }
+
+    private static boolean atomMatches(Object atom, int ch) {
+        if (atom instanceof Integer) {
+            return (Integer) atom == ch;
+        } else if (atom instanceof RangeToken) {
+            return ((RangeToken) atom).match(ch);
+        } else {
+            // the dot token doesn't match line terminators, in SINGLE_LINE mode ANY_CHAR is used instead
+            for (int eol : EOL_CHARS) {
+                if (ch == eol) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class State {
+        final int[] _nfaStates;
+        final boolean _accept;
+        final AtomicIntegerArray _next;
+
+        State(int[] nfaStates, boolean accept, int classCount) {
+            _nfaStates = nfaStates;
+            _accept = accept;
+
+            int[] next = new int[classCount];
+            Arrays.fill(next, UNBUILT);
+            _next = new AtomicIntegerArray(next);
+        }
+    }
+
+    private static final class Key {
+        private final int[] _states;
+        private final int _hash;
+
+        Key(int[] states) {
+            _states = states;
+            _hash = Arrays.hashCode(states);
+        }
+
+        @Override
+        public int hashCode() {
+            return _hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && Arrays.equals(_states, ((Key) o)._states);
+        }
+    }
+
+    /**
+     * Compiles a token tree to an NFA, in the same way as the operations of
+     * {@link RegularExpression} are compiled, i.e. from the end of the pattern.
+     */
+    private static final class Builder {
+        // the atoms: Integer for chars, RangeToken for ranges and the dot token
+        final List<Object> _atomList = new ArrayList<>();
+        final Token _dot;
+        final Map<Object, Integer> _atomIds = new HashMap<>();
+
+        final List<Integer> _atoms = new ArrayList<>();
+        final List<Integer> _next = new ArrayList<>();
+        final List<int[]> _eps = new ArrayList<>();
+        final int _accept = newState(-1, -1, null);
+
+        Builder(Token dot) {
+            _dot = dot;
+        }
+
+        int compile(Token tok, int next) {
+            switch (tok.type) {
+                case Token.DOT:
+                    return newAtomState(_dot, next);
+
+                case Token.CHAR:
+                    return newCharState(tok.getChar(), next);
+
+                case Token.RANGE:
+                case Token.NRANGE:
+                    return newAtomState(tok, next);
+
+                case Token.STRING: {
+                    String s = tok.getString();
+                    for (int i = s.length() - 1; i >= 0; i--) {
+                        next = newCharState(s.charAt(i), next);
+                    }
+                    return next;
+                }
+
+                case Token.EMPTY:
+                    return next;
+
+                case Token.PAREN:
+                    return compile(tok.getChild(0), next);
+
+                case Token.CONCAT:
+                    for (int i = tok.size() - 1; i >= 0; i--) {
+                        next = compile(tok.getChild(i), next);
+                    }
+                    return next;
+
+                case Token.UNION: {
+                    int[] alternatives = new int[tok.size()];
+                    for (int i = 0; i < alternatives.length; i++) {
+                        alternatives[i] = compile(tok.getChild(i), next);
+                    }
+                    return newState(-1, -1, alternatives);
+                }
+
+                case Token.CLOSURE:
+                case Token.NONGREEDYCLOSURE: {
+                    // greediness doesn't matter, as the whole input has to match
+                    Token child = tok.getChild(0);
+                    int min = tok.getMin();
+                    int max = tok.getMax();
+                    int ret;
+                    if (min >= 0 && min == max) {
+                        ret = next;
+                        for (int i = 0; i < min; i++) {
+                            ret = compile(child, ret);
+                        }
+                        return ret;
+                    }
+                    if (min > 0 && max > 0) {
+                        max -= min;
+                    }
+                    if (max > 0) {
+                        // X{2,6} -> XX(X(X(XX?)?)?)?
+                        ret = next;
+                        for (int i = 0; i < max; i++) {
+                            ret = newState(-1, -1, new int[]{compile(child, ret), next});
+                        }
+                    } else {
+                        ret = newState(-1, -1, null);
+                        _eps.set(ret, new int[]{compile(child, ret), next});
+                    }
+                    for (int i = 0; i < min; i++) {
+                        ret = compile(child, ret);
+                    }
+                    return ret;
+                }
+
+                default:
+                    // anchors, back references, look-arounds, conditions and modifiers
+                    throw new NotCompilableException();
+            }
+        }
+
+        private int newCharState(int ch, int next) {
+            // chars are compared by UTF-16 unit by the backtracking matcher
+            if (ch >= 0xD800 && ch <= 0xDFFF || ch >= 0x10000) {
+                throw new NotCompilableException();
+            }
+            return newAtomState(ch, next);
+        }
+
+        private int newAtomState(Object atom, int next) {
+            Integer id = _atomIds.get(atom);
+            if (id == null) {
+                id = _atomList.size();
+                _atomList.add(atom);
+                _atomIds.put(atom, id);
+            }
+            return newState(id, next, null);
+        }
+
+        private int newState(int atom, int next, int[] eps) {
+            if (_atoms.size() >= MAX_NFA_STATES) {
+                throw new NotCompilableException();
+            }
+            _atoms.add(atom);
+            _next.add(next);
+            _eps.add(eps);
+            return _atoms.size() - 1;
+        }
+    }
+}
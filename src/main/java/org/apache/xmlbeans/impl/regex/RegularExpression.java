@@ -717,6 +717,7 @@ public class RegularExpression implements java.io.Serializable {
                 con.setInUse(false);
                 return true;
             }
+            con.setInUse(false);
             return false;
         }
 
@@ -869,6 +870,12 @@ public class RegularExpression implements java.io.Serializable {
      */
     public boolean matches(String  target, int start, int end, Match match) {
 
+        if (match == null && RegularExpression.isSet(this.options, XMLSCHEMA_MODE)) {
+            int result = this.matchDFA(target, start, end);
+            if (result != RegexDFA.UNKNOWN)
+                return result == RegexDFA.MATCH;
+        }
+
         synchronized (this) {
             if (this.operations == null)
                 this.prepare();
@@ -908,6 +915,7 @@ public class RegularExpression implements java.io.Serializable {
                 con.setInUse(false);
                 return true;
             }
+            con.setInUse(false);
             return false;
         }
 
@@ -1018,6 +1026,35 @@ public class RegularExpression implements java.io.Serializable {
         }
     }
 
+    /**
+     * Matches the target with the DFA of this XML schema pattern, which is built on first use.
+     *
+     * @return RegexDFA.MATCH, RegexDFA.NO_MATCH or RegexDFA.UNKNOWN, if the backtracking
+     * matcher has to be used
+     */
+    private int matchDFA(String target, int start, int end) {
+        RegexDFA dfa = this.dfa;
+        if (dfa == null) {
+            if (this.dfaUnsupported)
+                return RegexDFA.UNKNOWN;
+            synchronized (this) {
+                dfa = this.dfa;
+                if (dfa == null && !this.dfaUnsupported) {
+                    if (this.hasBackReferences || isSet(this.options, IGNORE_CASE)) {
+                        dfa = null;
+                    } else {
+                        dfa = RegexDFA.build(this.tokentree, isSet(this.options, SINGLE_LINE));
+                    }
+                    this.dfa = dfa;
+                    this.dfaUnsupported = dfa == null;
+                }
+                if (dfa == null)
+                    return RegexDFA.UNKNOWN;
+            }
+        }
+        return dfa.match(target, start, end);
+    }
+
     /**
      * @return -1 when not match; offset of the end of matched string when match.
      */
@@ -1583,6 +1620,7 @@ public class RegularExpression implements java.io.Serializable {
                 con.setInUse(false);
                 return true;
             }
+            con.setInUse(false);
             return false;
         }
 
@@ -1728,6 +1766,8 @@ public class RegularExpression implements java.io.Serializable {
     transient int fixedStringOptions;
     transient BMPattern fixedStringTable = null;
     transient boolean fixedStringOnly = false;
+    transient volatile RegexDFA dfa = null;
+    transient volatile boolean dfaUnsupported = false;
 
     static abstract class ExpressionTarget {
         abstract char charAt(int index);
@@ -2266,6 +2306,8 @@ public class RegularExpression implements java.io.Serializable {
 
         this.operations = null;
         this.context = null;
+        this.dfa = null;
+        this.dfaUnsupported = false;
     }
     /**
      *
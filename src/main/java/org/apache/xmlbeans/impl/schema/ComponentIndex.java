@@ -0,0 +1,178 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.schema;
+
+import org.apache.xmlbeans.impl.common.QNameHelper;
+import org.apache.xmlbeans.impl.common.XBeanDebug;
+
+import javax.xml.namespace.QName;
+import java.io.*;
+import java.net.URL;
+import java.util.*;
+
+import static org.apache.xmlbeans.impl.schema.SchemaTypeSystemImpl.*;
+
+/**
+ * The pointer files of all type systems on a class loader, merged into one map.
+ * <p>
+ * Each compiled type system writes the names of its pointer files into one index resource
+ * per metadata path. The loader reads all copies of that resource on the class path once, so
+ * a component is located with a map lookup instead of a resource lookup, which has to search
+ * all jars and is most expensive for components which don't exist.
+ * <p>
+ * The index resource has a fixed name, so the index of a type system saved to the same directory
+ * as another one replaces the index of the other, and type systems compiled without an index may
+ * define components in the same namespaces. The components which aren't in the index are therefore
+ * still looked up as resources, but only if their namespace is defined, which is known without a
+ * lookup for the indexed namespaces. A hit is only trusted, if the class loader resolves the pointer
+ * resource to the class path entry of the index, as an earlier entry without index shadows it.
+ * <p>
+ * Layout:
+ * <pre>
+ * int   magic, short major, short minor, short release, short filetype (FILETYPE_COMPONENTINDEX)
+ * utf   type system name
+ * int   pointer count
+ * pointer count * utf pointer resource name
+ * </pre>
+ */
+final class ComponentIndex {
+    static final String INDEX_NAME = "component.xsbindex";
+
+    // pointer resource name -> type system name and class path entry of the index
+    private final Map<String, Pointer> _pointers;
+    private final String _namespaceDir;
+
+    private ComponentIndex(Map<String, Pointer> pointers, String metadataPath) {
+        _pointers = pointers;
+        _namespaceDir = metadataPath + "/namespace/";
+    }
+
+    /**
+     * Reads and merges the indexes of the class loader
+     *
+     * @return the merged index or null, if there are no indexes or one of them can't be read
+     */
+    static ComponentIndex load(ClassLoader loader, String metadataPath) {
+        Map<String, Pointer> pointers = new HashMap<>();
+        boolean found = false;
+        String indexName = metadataPath + "/" + INDEX_NAME;
+        try {
+            Enumeration<URL> urls = loader.getResources(indexName);
+            while (urls.hasMoreElements()) {
+                URL url = urls.nextElement();
+                String location = url.toString();
+                if (!location.endsWith(indexName)) {
+                    XBeanDebug.LOG.atDebug().log("Ignoring component indexes, can't locate the class path entry of {}", url);
+                    return null;
+                }
+                String root = location.substring(0, location.length() - indexName.length());
+                try (InputStream is = url.openStream()) {
+                    if (!read(is, root, pointers)) {
+                        XBeanDebug.LOG.atDebug().log("Ignoring component indexes, {} has an incompatible version", url);
+                        return null;
+                    }
+                }
+                found = true;
+            }
+        } catch (IOException e) {
+            XBeanDebug.LOG.atDebug().withThrowable(e).log("Ignoring component indexes: {}", e.getMessage());
+            return null;
+        }
+        return found ? new ComponentIndex(pointers, metadataPath) : null;
+    }
+
+    private static boolean read(InputStream is, String root, Map<String, Pointer> pointers) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(is));
+        if (input.readInt() != DATA_BABE || input.readShort() != MAJOR_VERSION) {
+            return false;
+        }
+        int minorver = input.readShort();
+        input.readShort(); // release number
+        if (minorver > MINOR_VERSION || input.readShort() != FILETYPE_COMPONENTINDEX) {
+            return false;
+        }
+
+        Pointer target = new Pointer(input.readUTF(), root);
+        for (int i = input.readInt(); i > 0; i--) {
+            // like the pointer resources, the first type system on the class path wins
+            pointers.putIfAbsent(input.readUTF(), target);
+        }
+        return true;
+    }
+
+    /**
+     * @return true, if an indexed type system defines components in the namespace
+     */
+    boolean covers(String namespace) {
+        return _pointers.containsKey(_namespaceDir + QNameHelper.hexsafedir(new QName(namespace, "xmlns")) + ".xsb");
+    }
+
+    /**
+     * @return the name of the type system of the given pointer resource or null, if it's not indexed
+     * or shadowed by a pointer resource of an earlier class path entry without index
+     */
+    String typeSystemFor(ClassLoader loader, String pointer) {
+        Pointer p = _pointers.get(pointer);
+        if (p == null) {
+            return null;
+        }
+        // resolving the first resource is still cheaper than reading it, and respects the class path order
+        URL url = loader.getResource(pointer);
+        return url != null && url.toString().equals(p._root + pointer) ? p._typeSystem : null;
+    }
+
+    private static final class Pointer {
+        final String _typeSystem;
+        final String _root;
+
+        Pointer(String typeSystem, String root) {
+            _typeSystem = typeSystem;
+            _root = root;
+        }
+    }
+
+    /**
+     * Collects the pointer files of a type system while it is saved
+     */
+    static final class Writer {
+        private final String _name;
+        private final Set<String> _pointers = new LinkedHashSet<>();
+
+        Writer(String name) {
+            _name = name;
+        }
+
+        void addPointer(String resourcename) {
+            _pointers.add(resourcename);
+        }
+
+        void writeTo(OutputStream os) throws IOException {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os));
+            out.writeInt(DATA_BABE);
+            out.writeShort(MAJOR_VERSION);
+            out.writeShort(MINOR_VERSION);
+            out.writeShort(RELEASE_NUMBER);
+            out.writeShort(FILETYPE_COMPONENTINDEX);
+
+            out.writeUTF(_name);
+            out.writeInt(_pointers.size());
+            for (String pointer : _pointers) {
+                out.writeUTF(pointer);
+            }
+            out.flush();
+        }
+    }
+}
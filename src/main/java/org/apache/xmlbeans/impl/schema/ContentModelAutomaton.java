@@ -0,0 +1,373 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.apache.xmlbeans.impl.schema;
+
+import org.apache.xmlbeans.QNameSet;
+import org.apache.xmlbeans.SchemaParticle;
+import org.apache.xmlbeans.impl.common.NotCompilableException;
+
+import javax.xml.namespace.QName;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deterministic finite automaton of a content model, which is used by the
+ * {@link SchemaTypeVisitorImpl} instead of walking the particle tree for each element.
+ * <p>
+ * The automaton is built by the Glushkov (position automaton) construction followed by a
+ * subset construction. Occurrence bounds are unrolled, i.e. each repetition of a particle
+ * gets its own positions. The construction is abandoned - and the particle walk is used -
+ * for content models with all groups, for content models which would exceed the position
+ * or state limits and for content models where an element name can't be attributed to
+ * exactly one particle (which can only happen, if the UPA check was switched off).
+ */
+public final class ContentModelAutomaton {
+    private static final int MAX_POSITIONS = 512;
+    private static final int MAX_STATES = 1024;
+
+    /**
+     * A transition of the automaton to the state {@code target}, which matches the element
+     * to the local element or wildcard {@code particle}
+     */
+    public static final class Transition {
+        final SchemaParticle particle;
+        final QNameSet openSet;
+        final int target;
+
+        Transition(SchemaParticle particle, QNameSet openSet, int target) {
+            this.particle = particle;
+            this.openSet = openSet;
+            this.target = target;
+        }
+
+        public SchemaParticle getParticle() {
+            return particle;
+        }
+
+        public int getTarget() {
+            return target;
+        }
+    }
+
+    private static final class State {
+        boolean accepting;
+        // transitions for all names, which are explicitly listed in the candidate particles
+        Map<QName, Transition> named;
+        // transitions of wildcards with infinite name sets, checked in order
+        Transition[] open;
+    }
+
+    private final State[] _states;
+
+    private ContentModelAutomaton(State[] states) {
+        _states = states;
+    }
+
+    /**
+     * @return the initial state
+     */
+    public int start() {
+        return 0;
+    }
+
+    /**
+     * @return true, if the content can end in the given state
+     */
+    public boolean isAccepting(int state) {
+        return _states[state].accepting;
+    }
+
+    /**
+     * @return the transition for the element name or {@code null}, if the element is not allowed in the given state
+     */
+    public Transition next(int state, QName name) {
+        State s = _states[state];
+        Transition t = s.named.get(name);
+        if (t != null) {
+            return t;
+        }
+        for (Transition o : s.open) {
+            if (o.openSet.contains(name)) {
+                return o;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compiles the content model into an automaton.
+     *
+     * @return the automaton or {@code null}, if the content model can't be compiled
+     */
+    public static ContentModelAutomaton build(SchemaParticle contentModel) {
+        if (contentModel == null) {
+            return null;
+        }
+        try {
+            return new Builder().build(contentModel);
+        } catch (NotCompilableException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Glushkov fragment of a (sub-)expression
+     */
+    private static final class Fragment {
+        boolean nullable;
+        final BitSet first = new BitSet();
+        final BitSet last = new BitSet();
+
+        static Fragment empty() {
+            Fragment f = new Fragment();
+            f.nullable = true;
+            return f;
+        }
+    }
+
+    private static final class Builder {
+        private final List<SchemaParticle> _positions = new ArrayList<>();
+        private final List<BitSet> _follow = new ArrayList<>();
+
+        private final Map<BitSet, Integer> _stateIds = new HashMap<>();
+        private final List<BitSet> _stateCandidates = new ArrayList<>();
+        private final List<State> _states = new ArrayList<>();
+
+        ContentModelAutomaton build(SchemaParticle contentModel) {
+            Fragment root = particle(contentModel);
+
+            // the initial state is not a set of matched positions - its candidates are the first positions
+            BitSet lastPositions = root.last;
+            State initial = new State();
+            initial.accepting = root.nullable;
+            _states.add(initial);
+            _stateCandidates.add(root.first);
+
+            for (int i = 0; i < _states.size(); i++) {
+                computeTransitions(_states.get(i), _stateCandidates.get(i), lastPositions);
+            }
+
+            return new ContentModelAutomaton(_states.toArray(new State[0]));
+        }
+
+        private int stateFor(BitSet matched, BitSet lastPositions) {
+            Integer id = _stateIds.get(matched);
+            if (id != null) {
+                return id;
+            }
+            if (_states.size() >= MAX_STATES) {
+                throw new NotCompilableException();
+            }
+
+            State s = new State();
+            s.accepting = matched.intersects(lastPositions);
+            BitSet candidates = new BitSet();
+            for (int p = matched.nextSetBit(0); p >= 0; p = matched.nextSetBit(p + 1)) {
+                candidates.or(_follow.get(p));
+            }
+
+            id = _states.size();
+            _stateIds.put(matched, id);
+            _states.add(s);
+            _stateCandidates.add(candidates);
+            return id;
+        }
+
+        private void computeTransitions(State state, BitSet candidates, BitSet lastPositions) {
+            Map<QName, Transition> named = new HashMap<>();
+            List<Transition> open = new ArrayList<>();
+
+            for (int p = candidates.nextSetBit(0); p >= 0; p = candidates.nextSetBit(p + 1)) {
+                QNameSet set = _positions.get(p).acceptedStartNames();
+                if (!isFinite(set)) {
+                    continue;
+                }
+                for (QName name : set.includedQNamesInExcludedURIs()) {
+                    if (named.containsKey(name)) {
+                        continue;
+                    }
+                    BitSet matched = new BitSet();
+                    SchemaParticle part = matching(candidates, name, null, matched);
+                    named.put(name, new Transition(part, null, stateFor(matched, lastPositions)));
+                }
+            }
+
+            List<SchemaParticle> openParts = new ArrayList<>();
+            for (int p = candidates.nextSetBit(0); p >= 0; p = candidates.nextSetBit(p + 1)) {
+                SchemaParticle part = _positions.get(p);
+                QNameSet set = part.acceptedStartNames();
+                if (isFinite(set) || openParts.contains(part)) {
+                    continue;
+                }
+                for (SchemaParticle other : openParts) {
+                    if (!set.isDisjoint(other.acceptedStartNames())) {
+                        throw new NotCompilableException();
+                    }
+                }
+                openParts.add(part);
+
+                BitSet matched = new BitSet();
+                matching(candidates, null, part, matched);
+                open.add(new Transition(part, set, stateFor(matched, lastPositions)));
+            }
+
+            state.named = named;
+            state.open = open.toArray(new Transition[0]);
+        }
+
+        /**
+         * Collects the candidate positions, which match the name or belong to the open particle.
+         *
+         * @return the single particle of the matched positions
+         */
+        private SchemaParticle matching(BitSet candidates, QName name, SchemaParticle openPart, BitSet matched) {
+            SchemaParticle result = null;
+            for (int p = candidates.nextSetBit(0); p >= 0; p = candidates.nextSetBit(p + 1)) {
+                SchemaParticle part = _positions.get(p);
+                boolean hit = (name != null)
+                    ? part.acceptedStartNames().contains(name)
+                    : part == openPart;
+                if (!hit) {
+                    continue;
+                }
+                if (result != null && result != part) {
+                    // the name can't be attributed to a single particle
+                    throw new NotCompilableException();
+                }
+                result = part;
+                matched.set(p);
+            }
+            return result;
+        }
+
+        private static boolean isFinite(QNameSet set) {
+            return set.excludedURIs() == null && set.includedURIs().isEmpty();
+        }
+
+        private Fragment particle(SchemaParticle part) {
+            int min = part.getIntMinOccurs();
+            boolean unbounded = part.getMaxOccurs() == null;
+            int max = unbounded ? -1 : part.getIntMaxOccurs();
+
+            if (!unbounded && max == 0) {
+                return Fragment.empty();
+            }
+            if (min > MAX_POSITIONS || (!unbounded && max - min > MAX_POSITIONS)) {
+                throw new NotCompilableException();
+            }
+
+            // X{min,max} -> X ... X (X (X ...)?)?  and  X{min,} -> X ... X X+  resp.  (X+)?
+            Fragment result = Fragment.empty();
+            int mandatory = (unbounded && min > 0) ? min - 1 : min;
+            for (int i = 0; i < mandatory; i++) {
+                result = sequence(result, single(part));
+            }
+
+            if (unbounded) {
+                Fragment loop = single(part);
+                for (int p = loop.last.nextSetBit(0); p >= 0; p = loop.last.nextSetBit(p + 1)) {
+                    _follow.get(p).or(loop.first);
+                }
+                if (min == 0) {
+                    loop.nullable = true;
+                }
+                result = sequence(result, loop);
+            } else {
+                Fragment optional = null;
+                for (int i = min; i < max; i++) {
+                    Fragment f = single(part);
+                    optional = (optional == null) ? f : sequence(f, optional);
+                    optional.nullable = true;
+                }
+                if (optional != null) {
+                    result = sequence(result, optional);
+                }
+            }
+
+            return result;
+        }
+
+        /**
+         * @return the fragment of one occurrence of the particle
+         */
+        private Fragment single(SchemaParticle part) {
+            switch (part.getParticleType()) {
+                case SchemaParticle.ELEMENT:
+                case SchemaParticle.WILDCARD: {
+                    if (_positions.size() >= MAX_POSITIONS) {
+                        throw new NotCompilableException();
+                    }
+                    int pos = _positions.size();
+                    _positions.add(part);
+                    _follow.add(new BitSet());
+                    Fragment f = new Fragment();
+                    f.first.set(pos);
+                    f.last.set(pos);
+                    return f;
+                }
+
+                case SchemaParticle.SEQUENCE: {
+                    Fragment f = Fragment.empty();
+                    for (SchemaParticle child : part.getParticleChildren()) {
+                        f = sequence(f, particle(child));
+                    }
+                    return f;
+                }
+
+                case SchemaParticle.CHOICE: {
+                    SchemaParticle[] children = part.getParticleChildren();
+                    if (children.length == 0) {
+                        throw new NotCompilableException();
+                    }
+                    Fragment f = new Fragment();
+                    for (SchemaParticle child : children) {
+                        Fragment c = particle(child);
+                        f.nullable |= c.nullable;
+                        f.first.or(c.first);
+                        f.last.or(c.last);
+                    }
+                    return f;
+                }
+
+                default:
+                    // all groups are left to the particle walk
+                    throw new NotCompilableException();
+            }
+        }
+
+        private Fragment sequence(Fragment f, Fragment g) {
+            for (int p = f.last.nextSetBit(0); p >= 0; p = f.last.nextSetBit(p + 1)) {
+                _follow.get(p).or(g.first);
+            }
+
+            Fragment r = new Fragment();
+            r.nullable = f.nullable && g.nullable;
+            r.first.or(f.first);
+            if (f.nullable) {
+                r.first.or(g.first);
+            }
+            r.last.or(g.last);
+            if (g.nullable) {
+                r.last.or(f.last);
+            }
+            return r;
+        }
+    }
+}
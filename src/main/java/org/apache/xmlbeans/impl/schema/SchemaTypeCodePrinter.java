@@ -34,6 +34,7 @@ import java.util.*;
 public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
 
     static final String INDEX_CLASSNAME = "TypeSystemHolder";
+    private static final int MAX_FACTORY_CASES = 500;
     private static final String MAX_SPACES = "                                        ";
     private static final int INDENT_INCREMENT = 4;
 
@@ -1982,7 +1983,8 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
                     }
                     emit("public void set" + arrayName + "(" + type + "[] " + safeVarName + "Array) {");
                     startBlock();
-                    // do not use synchronize (monitor()) {  and GlobalLock inside  } !!! deadlock
+                    // do not use synchronize (monitor()) { } - the setters of the elements lock the sources
+                    // with OrderedLock and an outer monitor would break the lock order !!! deadlock
                     //emitImplementationPreamble();
                     emit("check_orphaned();");
                     emitPre(sType, PrePostExtension.OPERATION_SET, identifier, isAttr);
@@ -2415,9 +2417,25 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
         if (repackager != null) {
             sysPack = repackager.repackage(new StringBuffer(sysPack)).toString();
         }
+
+        List<String> implNames = new ArrayList<>();
+        for (SchemaType[] types : new SchemaType[][]{system.globalTypes(), system.documentTypes(), system.attributeTypes()}) {
+            for (SchemaType sType : types) {
+                if (!sType.isBuiltinType() && sType.getFullJavaName() != null) {
+                    collectImplNames(sType, implNames);
+                }
+            }
+        }
+
         emit("package "+sysPack+";");
         emit("");
+        if (!implNames.isEmpty()) {
+            emit("import org.apache.xmlbeans.SchemaType;");
+        }
         emit("import org.apache.xmlbeans.impl.schema.SchemaTypeSystemImpl;");
+        if (!implNames.isEmpty()) {
+            emit("import org.apache.xmlbeans.impl.values.XmlObjectBase;");
+        }
         emit("");
         emit("public final class TypeSystemHolder extends SchemaTypeSystemImpl {");
         indent();
@@ -2428,10 +2446,85 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
         emit("super(TypeSystemHolder.class);");
         outdent();
         emit("}");
+        if (!implNames.isEmpty()) {
+            printImplFactory(implNames);
+        }
         outdent();
         emit("}");
     }
 
+    /**
+     * Collects the implementation classes of a type and its nested types in the same way as printInnerTypeImpl.
+     * The anonymous types of a redefined base type are left out, they are instantiated reflectively.
+     */
+    private static void collectImplNames(SchemaType sType, List<String> implNames) {
+        if (sType.getFullJavaImplName() != null) {
+            implNames.add(sType.getFullJavaImplName());
+        }
+        collectNestedImplNames(sType, implNames);
+    }
+
+    private static void collectNestedImplNames(SchemaType sType, List<String> implNames) {
+        for (SchemaType anonType : sType.getAnonymousTypes()) {
+            if (anonType.isSkippedAnonymousType()) {
+                collectNestedImplNames(anonType, implNames);
+            } else {
+                collectImplNames(anonType, implNames);
+            }
+        }
+    }
+
+    /**
+     * Prints a factory of the implementation classes to avoid the reflective constructor calls
+     * in SchemaTypeImpl. The switch is split by the hash of the class name into methods of at most
+     * {@code MAX_FACTORY_CASES} cases, to stay below the method size limit for large type systems.
+     */
+    private void printImplFactory(List<String> implNames) throws IOException {
+        int buckets = (implNames.size() + MAX_FACTORY_CASES - 1) / MAX_FACTORY_CASES;
+        List<List<String>> bucketNames = new ArrayList<>();
+        for (int i = 0; i < buckets; i++) {
+            bucketNames.add(new ArrayList<>());
+        }
+        for (String name : implNames) {
+            bucketNames.get(Math.floorMod(name.hashCode(), buckets)).add(name);
+        }
+
+        emit("");
+        emit("@Override");
+        emit("protected XmlObjectBase newImplInstance(String implClassName, SchemaType sType) {");
+        indent();
+        if (buckets == 1) {
+            emit("return newImplInstance0(implClassName, sType);");
+        } else {
+            emit("switch (Math.floorMod(implClassName.hashCode(), " + buckets + ")) {");
+            indent();
+            for (int i = 0; i < buckets; i++) {
+                emit("case " + i + ": return newImplInstance" + i + "(implClassName, sType);");
+            }
+            emit("default: return null;");
+            outdent();
+            emit("}");
+        }
+        outdent();
+        emit("}");
+
+        for (int i = 0; i < buckets; i++) {
+            emit("");
+            emit("private static XmlObjectBase newImplInstance" + i + "(String implClassName, SchemaType sType) {");
+            indent();
+            emit("switch (implClassName) {");
+            indent();
+            for (String name : bucketNames.get(i)) {
+                emit("case \"" + name + "\": return new " + name.replace('$', '.') + "(sType);");
+            }
+            emit("default: return null;");
+            outdent();
+            emit("}");
+            outdent();
+            emit("}");
+        }
+    }
+
     private static class Identifier {
         private final int getindex;
         private Integer setindex = null;
@@ -75,6 +75,7 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
     private volatile Constructor<? extends XmlObjectBase> _javaImplConstructor;
     private volatile Constructor<? extends XmlObjectBase> _javaImplConstructor2;
     private volatile boolean _implNotAvailable;
+    private volatile boolean _implFactoryNotAvailable;
 
     // user data objects not persisted
     private volatile Object _userData;
@@ -155,6 +156,8 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
     private volatile List<StringEnumAbstractBase> _listOfStringEnum;
     private volatile Map<String, SchemaStringEnumEntry> _lookupStringEnumEntry;
     private SchemaStringEnumEntry[] _stringEnumEntries;
+    private volatile EnumerationIndex _enumerationIndex;
+    private volatile boolean _enumerationIndexEnsured;
 
     // for lists only
     private SchemaType.Ref _listItemTyperef;
@@ -176,6 +179,12 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
     // lazy loading support
     private volatile boolean _unloaded;
 
+    // validation support - compiled content model, built on first use
+    private static final boolean USE_AUTOMATON =
+        "true".equals(SystemProperties.getProperty("xmlbean.contentmodelautomaton", "true"));
+    private volatile ContentModelAutomaton _contentModelAutomaton;
+    private volatile boolean _contentModelAutomatonBuilt;
+
     // for document types only - only valid during compilation
     private QName _sg;
     private final List<QName> _sgMembers = new ArrayList<>();
@@ -419,7 +428,7 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
             return new SequencerImpl(null);
         }
 
-        return new SequencerImpl(new SchemaTypeVisitorImpl(_contentModel));
+        return new SequencerImpl(new SchemaTypeVisitorImpl(this));
     }
 
     /**
@@ -660,6 +669,23 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
         return _contentModel;
     }
 
+    /**
+     * Returns the automaton of the content model, which is compiled on first use.
+     *
+     * @return the automaton or {@code null}, if the content model can't be compiled or the type isn't resolved yet
+     */
+    public ContentModelAutomaton getContentModelAutomaton() {
+        if (!_contentModelAutomatonBuilt) {
+            if (!USE_AUTOMATON || !isResolved()) {
+                return null;
+            }
+            // benign race - concurrent callers compile an equivalent automaton
+            _contentModelAutomaton = ContentModelAutomaton.build(getContentModel());
+            _contentModelAutomatonBuilt = true;
+        }
+        return _contentModelAutomaton;
+    }
+
     private static void buildEltList(List<SchemaLocalElement> eltList, SchemaParticle contentModel) {
         if (contentModel == null) {
             return;
@@ -1474,6 +1500,26 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
         return result;
     }
 
+    /**
+     * @return the hash index of the enumeration values or null, if the type has
+     * no enumeration facet, is not resolved yet or its values are not indexed
+     */
+    public EnumerationIndex getEnumerationIndex() {
+        if (_enumerationIndexEnsured) {
+            return _enumerationIndex;
+        }
+
+        // the enumeration is validated against itself while resolving
+        if (_enumerationValues == null || !isResolved()) {
+            return null;
+        }
+
+        // racy but benign - the index may be built twice
+        _enumerationIndex = EnumerationIndex.build(this, getEnumerationValues());
+        _enumerationIndexEnsured = true;
+        return _enumerationIndex;
+    }
+
     public void setEnumerationValues(XmlValueRef[] a) {
         assertResolving();
         _enumerationValues = a == null ? null : a.clone();
@@ -1886,6 +1932,11 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
         XmlObject result = null;
 
         if (!isBuiltinType() && !isNoType()) {
+            XmlObjectBase obj = createFactoryInstance();
+            if (obj != null) {
+                return obj;
+            }
+
             // System.out.println("Attempting to load impl class: " + getFullJavaImplName());
             Constructor<? extends XmlObjectBase> ctr = getJavaImplConstructor();
             if (ctr != null) {
@@ -1909,6 +1960,24 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
         return result;
     }
 
+    /**
+     * Creates an instance via the factory of the generated TypeSystemHolder,
+     * type systems without a factory fall back to the reflective constructor
+     */
+    private XmlObjectBase createFactoryInstance() {
+        if (_implFactoryNotAvailable) {
+            return null;
+        }
+        String implName = getFullJavaImplName();
+        SchemaTypeSystem sts = getTypeSystem();
+        XmlObjectBase obj = (implName == null || !(sts instanceof SchemaTypeSystemImpl)) ? null
+            : ((SchemaTypeSystemImpl) sts).newImplInstance(implName, this);
+        if (obj == null) {
+            _implFactoryNotAvailable = true;
+        }
+        return obj;
+    }
+
     private XmlObject createUnattachedSubclass(SchemaType sType) {
         if (!isBuiltinType() && !isNoType()) {
             Constructor<? extends XmlObjectBase> ctr = getJavaImplConstructor2();
@@ -23,8 +23,13 @@ import org.apache.xmlbeans.impl.xb.xsdschema.SchemaDocument;
 
 import javax.xml.namespace.QName;
 import java.io.InputStream;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static org.apache.xmlbeans.impl.schema.SchemaTypeSystemImpl.METADATA_PACKAGE_GEN;
 
@@ -34,7 +39,7 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
     private final SchemaTypeLoader[] _searchPath;
 
     private Map<String, SchemaTypeSystemImpl> _classpathTypeSystems;
-    private Map<String, SchemaTypeSystemImpl> _classLoaderTypeSystems;
+    private Map<String, Object> _classLoaderTypeSystems;
     private Map<QName, Object> _elementCache;
     private Map<QName, Object> _attributeCache;
     private Map<QName, Object> _modelGroupCache;
@@ -44,8 +49,13 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
     private Map<QName, Object> _documentCache;
     private Map<QName, Object> _attributeTypeCache;
     private Map<String, Object> _classnameCache;
+    // namespace -> whether a type system on the class loader defines it, for namespaces not in the component index
+    private Map<String, Boolean> _namespaceCache;
     private final String _metadataPath;
 
+    private volatile ComponentIndex _componentIndex;
+    private volatile boolean _componentIndexLoaded;
+
     public static String METADATA_PACKAGE_LOAD = METADATA_PACKAGE_GEN;
     private static final Object CACHED_NOT_FOUND = new Object();
 
@@ -53,6 +63,20 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
     private static final String[] baseSchemas = {"sXMLCONFIG", "sXMLLANG", "sXMLSCHEMA", "sXMLTOOLS"};
 
 
+    /**
+     * Use a process wide type loader per class loader, unless the system property
+     * "xmlbean.typeloadercache.shared" is set to false
+     */
+    private static final boolean SHARED_TYPE_LOADER_CACHE =
+        "true".equals(SystemProperties.getProperty("xmlbean.typeloadercache.shared", "true"));
+
+    /**
+     * Look up the components on a class loader in the merged component indexes,
+     * unless the system property "xmlbean.componentindex" is set to false
+     */
+    private static final boolean USE_COMPONENT_INDEX =
+        "true".equals(SystemProperties.getProperty("xmlbean.componentindex", "true"));
+
     private static class SchemaTypeLoaderCache extends SystemCache {
         // The following maintains a cache of SchemaTypeLoaders per ClassLoader per Thread.
         // I use soft references to allow the garbage collector to reclaim the type loaders
@@ -112,6 +136,67 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
         }
     }
 
+    private static class SharedSchemaTypeLoaderCache extends SystemCache {
+        // The following maintains a process wide cache of SchemaTypeLoaders per ClassLoader.
+        // The class loaders are weakly referenced, so they can be unloaded, and the type loaders
+        // softly, because a type loader references its class loader.
+
+        private final ConcurrentMap<LoaderKey, SoftReference<SchemaTypeLoaderImpl>> _cachedTypeSystems = new ConcurrentHashMap<>();
+        private final ReferenceQueue<ClassLoader> _collected = new ReferenceQueue<>();
+        // the context class loader can be null, which can't be weakly referenced
+        private volatile SoftReference<SchemaTypeLoaderImpl> _nullLoader;
+
+        public SchemaTypeLoader getFromTypeLoaderCache(ClassLoader cl) {
+            SoftReference<SchemaTypeLoaderImpl> ref = (cl == null) ? _nullLoader : _cachedTypeSystems.get(new LoaderKey(cl, null));
+            return (ref == null) ? null : ref.get();
+        }
+
+        public void addToTypeLoaderCache(SchemaTypeLoader stl, ClassLoader cl) {
+            assert (stl instanceof SchemaTypeLoaderImpl) &&
+                   ((SchemaTypeLoaderImpl) stl)._classLoader == cl;
+
+            SoftReference<SchemaTypeLoaderImpl> ref = new SoftReference<>((SchemaTypeLoaderImpl) stl);
+            if (cl == null) {
+                _nullLoader = ref;
+                return;
+            }
+
+            for (Reference<? extends ClassLoader> key; (key = _collected.poll()) != null; ) {
+                _cachedTypeSystems.remove(key);
+            }
+
+            // threads racing for the same class loader built equivalent type loaders,
+            // so it doesn't matter which one is kept
+            _cachedTypeSystems.put(new LoaderKey(cl, _collected), ref);
+        }
+    }
+
+    private static final class LoaderKey extends WeakReference<ClassLoader> {
+        private final int _hash;
+
+        LoaderKey(ClassLoader cl, ReferenceQueue<ClassLoader> queue) {
+            super(cl, queue);
+            _hash = System.identityHashCode(cl);
+        }
+
+        @Override
+        public int hashCode() {
+            return _hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof LoaderKey)) {
+                return false;
+            }
+            ClassLoader cl = get();
+            return cl != null && cl == ((LoaderKey) obj).get();
+        }
+    }
+
     public static SchemaTypeLoaderImpl getContextTypeLoader() {
         ClassLoader cl = Thread.currentThread().getContextClassLoader();
         SchemaTypeLoaderImpl result = (SchemaTypeLoaderImpl)
@@ -244,17 +329,18 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
      * Initializes the caches.
      */
     private void initCaches() {
-        _classpathTypeSystems = Collections.synchronizedMap(new HashMap<>());
-        _classLoaderTypeSystems = Collections.synchronizedMap(new HashMap<>());
-        _elementCache = Collections.synchronizedMap(new HashMap<>());
-        _attributeCache = Collections.synchronizedMap(new HashMap<>());
-        _modelGroupCache = Collections.synchronizedMap(new HashMap<>());
-        _attributeGroupCache = Collections.synchronizedMap(new HashMap<>());
-        _idConstraintCache = Collections.synchronizedMap(new HashMap<>());
-        _typeCache = Collections.synchronizedMap(new HashMap<>());
-        _documentCache = Collections.synchronizedMap(new HashMap<>());
-        _attributeTypeCache = Collections.synchronizedMap(new HashMap<>());
-        _classnameCache = Collections.synchronizedMap(new HashMap<>());
+        _classpathTypeSystems = new ConcurrentHashMap<>();
+        _classLoaderTypeSystems = new ConcurrentHashMap<>();
+        _elementCache = new ConcurrentHashMap<>();
+        _attributeCache = new ConcurrentHashMap<>();
+        _modelGroupCache = new ConcurrentHashMap<>();
+        _attributeGroupCache = new ConcurrentHashMap<>();
+        _idConstraintCache = new ConcurrentHashMap<>();
+        _typeCache = new ConcurrentHashMap<>();
+        _documentCache = new ConcurrentHashMap<>();
+        _attributeTypeCache = new ConcurrentHashMap<>();
+        _classnameCache = new ConcurrentHashMap<>();
+        _namespaceCache = new ConcurrentHashMap<>();
     }
 
     SchemaTypeSystemImpl typeSystemForComponent(String searchdir, QName name) {
@@ -266,7 +352,7 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
         }
 
         if (tsname == null && _classLoader != null) {
-            tsname = crackEntry(_classLoader, searchfor);
+            tsname = findPointerOnClassLoader(name, searchfor);
         }
 
         if (tsname != null) {
@@ -276,6 +362,44 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
         return null;
     }
 
+    private String findPointerOnClassLoader(QName name, String searchfor) {
+        ComponentIndex index = getComponentIndex();
+        if (index == null) {
+            return crackEntry(_classLoader, searchfor);
+        }
+
+        String tsname = index.typeSystemFor(_classLoader, searchfor);
+        if (tsname != null) {
+            return tsname;
+        }
+
+        // a miss isn't final, as type systems without index or with an index overwritten by another
+        // type system saved to the same directory may define other components of the namespace
+        String namespace = name.getNamespaceURI();
+        if (index.covers(namespace)) {
+            return crackEntry(_classLoader, searchfor);
+        }
+
+        // a type system with components in a namespace has a pointer for the namespace,
+        // so a namespace which isn't defined anywhere is only looked up once
+        Boolean defined = _namespaceCache.get(namespace);
+        if (defined == null) {
+            String pointer = _metadataPath + "/namespace/" + QNameHelper.hexsafedir(new QName(namespace, "xmlns")) + ".xsb";
+            defined = _classLoader.getResource(pointer) != null;
+            _namespaceCache.put(namespace, defined);
+        }
+        return defined ? crackEntry(_classLoader, searchfor) : null;
+    }
+
+    private ComponentIndex getComponentIndex() {
+        if (!_componentIndexLoaded) {
+            // racing threads read the same indexes
+            _componentIndex = USE_COMPONENT_INDEX ? ComponentIndex.load(_classLoader, _metadataPath) : null;
+            _componentIndexLoaded = true;
+        }
+        return _componentIndex;
+    }
+
     public SchemaTypeSystem typeSystemForName(String name) {
         if (_resourceLoader != null) {
             SchemaTypeSystem result = getTypeSystemOnClasspath(name);
@@ -304,7 +428,12 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
         }
 
         if (_classLoader != null) {
-            String tsname = crackEntry(_classLoader, searchfor);
+            // class names have no namespace, so the index can only shortcut the hits
+            ComponentIndex index = getComponentIndex();
+            String tsname = (index == null) ? null : index.typeSystemFor(_classLoader, searchfor);
+            if (tsname == null) {
+                tsname = crackEntry(_classLoader, searchfor);
+            }
             if (tsname != null) {
                 return getTypeSystemOnClassloader(tsname);
             }
@@ -314,16 +443,29 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
     }
 
     SchemaTypeSystemImpl getTypeSystemOnClasspath(String name) {
-        return _classpathTypeSystems.computeIfAbsent(name, n -> new SchemaTypeSystemImpl(_resourceLoader, n, this));
+        // not computeIfAbsent, as reading the type system might look up other type systems
+        SchemaTypeSystemImpl result = _classpathTypeSystems.get(name);
+        if (result == null) {
+            SchemaTypeSystemImpl ts = new SchemaTypeSystemImpl(_resourceLoader, name, this);
+            result = _classpathTypeSystems.putIfAbsent(name, ts);
+            if (result == null) {
+                result = ts;
+            }
+        }
+        return result;
     }
 
     SchemaTypeSystemImpl getTypeSystemOnClassloader(String name) {
         XBeanDebug.LOG.atTrace().log("Finding type system {} on classloader", name);
-        SchemaTypeSystemImpl result = _classLoaderTypeSystems.get(name);
+        Object cached = _classLoaderTypeSystems.get(name);
+        if (cached == CACHED_NOT_FOUND) {
+            return null;
+        }
+        SchemaTypeSystemImpl result = (SchemaTypeSystemImpl) cached;
         if (result == null) {
             XBeanDebug.LOG.atTrace().log("Type system {}} not cached - consulting field", name);
             result = SchemaTypeSystemImpl.forName(name, _classLoader);
-            _classLoaderTypeSystems.put(name, result);
+            _classLoaderTypeSystems.put(name, result == null ? CACHED_NOT_FOUND : result);
         }
         return result;
     }
@@ -354,7 +496,7 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
     }
 
     public SchemaType.Ref findTypeRef(QName name) {
-        // The maps are synchronized, we use two accesses to the cache (one read and one write), but the code in-between
+        // The maps are concurrent, we use two accesses to the cache (one read and one write), but the code in-between
         // is not synchronized. The assumption is that the underlying datastructures (the search path and the classloader)
         // do not change, so two threads running the code in parallel will come up with the same result.
         Object cached = _typeCache.get(name);
@@ -595,6 +737,6 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
     private static final SchemaTypeLoader[] EMPTY_SCHEMATYPELOADER_ARRAY = new SchemaTypeLoader[0];
 
     static {
-        SystemCache.set(new SchemaTypeLoaderCache());
+        SystemCache.set(SHARED_TYPE_LOADER_CACHE ? new SharedSchemaTypeLoaderCache() : new SchemaTypeLoaderCache());
     }
 }
@@ -19,14 +19,19 @@ import org.apache.xmlbeans.*;
 import org.apache.xmlbeans.impl.common.XmlErrorWatcher;
 import org.apache.xmlbeans.impl.repackage.Repackager;
 import org.apache.xmlbeans.impl.util.FilerImpl;
+import org.apache.xmlbeans.impl.util.MemoryFiler;
 import org.apache.xmlbeans.impl.xb.xsdschema.SchemaDocument;
 import org.apache.xmlbeans.impl.xb.xsdschema.SchemaDocument.Schema;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public class SchemaTypeSystemCompiler {
     public static class Parameters {
@@ -225,13 +230,26 @@ public class SchemaTypeSystemCompiler {
 
             // load all the xsd files into it
             if (validate) {
-                XmlOptions validateOptions = new XmlOptions().setErrorListener(errorWatcher);
-                if (options != null && options.isValidateTreatLaxAsSkip()) {
-                    validateOptions.setValidateTreatLaxAsSkip();
+                boolean treatLaxAsSkip = options != null && options.isValidateTreatLaxAsSkip();
+                boolean[] valid = new boolean[schemas.length];
+                List<Integer> indexes = new ArrayList<>(schemas.length);
+                for (int i = 0; i < schemas.length; i++) {
+                    indexes.add(i);
                 }
-                for (Schema schema : schemas) {
-                    if (schema.validate(validateOptions)) {
-                        validSchemas.add(schema);
+                // the schema documents are validated independently of each other
+                state.runParallel(indexes, i -> {
+                    XmlOptions validateOptions = new XmlOptions().setErrorListener(state.getErrorListener());
+                    if (treatLaxAsSkip) {
+                        validateOptions.setValidateTreatLaxAsSkip();
+                    }
+                    // schemas of the same (unsynchronized) document must not be validated concurrently
+                    synchronized (schemas[i].monitor()) {
+                        valid[i] = schemas[i].validate(validateOptions);
+                    }
+                });
+                for (int i = 0; i < schemas.length; i++) {
+                    if (valid[i]) {
+                        validSchemas.add(schemas[i]);
                     }
                 }
             } else {
@@ -288,6 +306,7 @@ public class SchemaTypeSystemCompiler {
 
             return StscState.get().sts();
         } finally {
+            state.shutdownPool();
             StscState.end();
         }
     }
@@ -374,28 +393,30 @@ public class SchemaTypeSystemCompiler {
 
 
         SchemaCodePrinter printer = (options == null) ? null : options.getSchemaCodePrinter();
+        // the default printer keeps state per printed type, so each thread gets its own instance
+        boolean parallel = printer == null && options != null && options.getCompileParallelism() > 1;
         if (printer == null) {
             printer = new SchemaTypeCodePrinter();
         }
 
         String indexClassName = SchemaTypeCodePrinter.indexClassForSystem(system);
 
+        Repackager repackager = (filer instanceof FilerImpl) ? ((FilerImpl) filer).getRepackager()
+            : (filer instanceof MemoryFiler) ? ((MemoryFiler) filer).getRepackager() : null;
         try (Writer out = filer.createSourceFile(indexClassName)) {
-            Repackager repackager = (filer instanceof FilerImpl) ? ((FilerImpl) filer).getRepackager() : null;
             printer.printHolder(out, system, options, repackager);
         } catch (IOException e) {
             System.err.println("IO Error " + e);
             success = false;
         }
 
-        for (SchemaType type : types) {
-            if (type.isBuiltinType()) {
-                continue;
-            }
-            if (type.getFullJavaName() == null) {
-                continue;
-            }
+        types.removeIf(type -> type.isBuiltinType() || type.getFullJavaName() == null);
+
+        if (parallel) {
+            return generateTypesParallel(types, filer, options) && success;
+        }
 
+        for (SchemaType type : types) {
             String fjn = type.getFullJavaName();
 
             try (Writer writer = filer.createSourceFile(fjn)) {
@@ -419,4 +440,61 @@ public class SchemaTypeSystemCompiler {
 
         return success;
     }
+
+    /**
+     * Prints the sources of the types concurrently into memory and passes them on to the filer
+     * in the order of the types, so the filer doesn't need to be thread-safe.
+     */
+    private static boolean generateTypesParallel(List<SchemaType> types, Filer filer, XmlOptions options) {
+        boolean success = true;
+        ForkJoinPool pool = new ForkJoinPool(options.getCompileParallelism());
+        try {
+            List<Future<String[]>> sources = new ArrayList<>(types.size());
+            for (SchemaType type : types) {
+                sources.add(pool.submit(() -> {
+                    SchemaTypeCodePrinter printer = new SchemaTypeCodePrinter();
+                    StringWriter intf = new StringWriter();
+                    printer.printType(intf, type, options);
+                    StringWriter impl = new StringWriter();
+                    printer.printTypeImpl(impl, type, options);
+                    return new String[]{intf.toString(), impl.toString()};
+                }));
+            }
+
+            for (int i = 0; i < types.size(); i++) {
+                SchemaType type = types.get(i);
+                String[] src = sources.get(i).get();
+
+                try (Writer writer = filer.createSourceFile(type.getFullJavaName())) {
+                    writer.write(src[0]);
+                } catch (IOException e) {
+                    System.err.println("IO Error " + e);
+                    success = false;
+                }
+
+                try (Writer writer = filer.createSourceFile(type.getFullJavaImplName())) {
+                    writer.write(src[1]);
+                } catch (IOException e) {
+                    System.err.println("IO Error " + e);
+                    success = false;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new XmlRuntimeException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            System.err.println("IO Error " + cause);
+            success = false;
+        } finally {
+            pool.shutdown();
+        }
+        return success;
+    }
 }
@@ -17,6 +17,7 @@ package org.apache.xmlbeans.impl.schema;
 
 import org.apache.xmlbeans.*;
 import org.apache.xmlbeans.impl.common.DefaultClassLoaderResourceLoader;
+import org.apache.xmlbeans.impl.common.IOUtil;
 import org.apache.xmlbeans.impl.common.QNameHelper;
 import org.apache.xmlbeans.impl.common.XBeanDebug;
 import org.apache.xmlbeans.impl.util.ExceptionUtil;
@@ -24,10 +25,17 @@ import org.apache.xmlbeans.impl.util.FilerImpl;
 import org.apache.xmlbeans.impl.util.HexBin;
 import org.apache.xmlbeans.impl.util.LongUTFDataInputStream;
 import org.apache.xmlbeans.impl.util.LongUTFDataOutputStream;
+import org.apache.xmlbeans.impl.values.XmlObjectBase;
 
 import javax.xml.namespace.QName;
 import java.io.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
@@ -40,6 +48,7 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
     public static final int DATA_BABE = 0xDA7ABABE;
     public static final int MAJOR_VERSION = 2;  // must match == to be compatible
     public static final int MINOR_VERSION = 24; // must be <= to be compatible
+    static final int PACK_MINOR_VERSION = 24; // first minor version, which can be saved as a pack
     public static final int RELEASE_NUMBER = 0; // should be compatible even if < or >
 
     public static final int FILETYPE_SCHEMAINDEX = 1;
@@ -50,6 +59,15 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
     public static final int FILETYPE_SCHEMAMODELGROUP = 6;
     public static final int FILETYPE_SCHEMAATTRIBUTEGROUP = 7;
     public static final int FILETYPE_SCHEMAIDENTITYCONSTRAINT = 8;
+    public static final int FILETYPE_SCHEMAPACK = 9;
+    public static final int FILETYPE_COMPONENTINDEX = 10;
+
+    /**
+     * Memory-map packs, which are plain files on the classpath. A mapping is only released when
+     * the buffer is collected, which keeps the file locked on Windows, so it's disabled there by default.
+     */
+    private static final boolean MAP_PACK = "true".equals(SystemProperties.getProperty("xmlbean.xsbpack.mmap",
+        String.valueOf(!SystemProperties.getProperty("os.name", "").startsWith("Windows"))));
 
     public static final int FLAG_PART_SKIPPABLE = 1;
     public static final int FLAG_PART_FIXED = 4;
@@ -140,6 +158,13 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
     private SchemaTypePool _localHandles;
     private Filer _filer;
 
+    // the single-file index, if the type system was saved packed
+    private XsbPack _pack;
+    private XsbPack.Writer _packWriter;
+    private boolean _savePacked;
+    // the names of the pointer files, while the type system is saved
+    private ComponentIndex.Writer _indexWriter;
+
     // top-level annotations
     private List<SchemaAnnotation> _annotations;
 
@@ -236,6 +261,8 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
         XBeanDebug.LOG.atTrace().log("Reading unresolved handles for type system {}", _name);
         XsbReader reader = null;
         try {
+            _pack = XsbPack.open(getTypeSystem());
+
             // Read the index file, which starts with a header.
             reader = new XsbReader(getTypeSystem(), "index", FILETYPE_SCHEMAINDEX);
 
@@ -339,6 +366,9 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
         saver.writeRealHeader(filename, FILETYPE_SCHEMAPOINTER);
         saver.writeString(name);
         saver.writeEnd();
+        if (_indexWriter != null) {
+            _indexWriter.addPointer(filename + ".xsb");
+        }
     }
 
     private Map<String, SchemaComponent.Ref> buildTypeRefsByClassname(Map<String, SchemaType> typesByClassname) {
@@ -619,6 +649,7 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
         _identityConstraints = buildComponentRefMap(state.idConstraints());
         _annotations = state.annotations();
         _namespaces = new HashSet<>(Arrays.asList(state.getNamespaces()));
+        _savePacked = state.isXsbPack();
         _containers = state.getContainerMap();
         fixupContainers();
         // Checks that data in the containers matches the lookup maps
@@ -680,6 +711,10 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
             return code == 0 ? null : intsToStrings.get(code);
         }
 
+        int size() {
+            return intsToStrings.size();
+        }
+
         void writeTo(LongUTFDataOutputStream output) {
             try {
                 int cnt = intsToStrings.size();
@@ -731,6 +766,7 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
         _filer = filer;
 
         _localHandles.startWriteMode();
+        _packWriter = _savePacked ? new XsbPack.Writer(_name) : null;
         saveTypesRecursively(globalTypes());
         saveTypesRecursively(documentTypes());
         saveTypesRecursively(attributeTypes());
@@ -745,7 +781,36 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
         saveAttributeGroups(redefinedAttributeGroups());
 
         saveIndex();
-        savePointers();
+        if (_packWriter != null) {
+            savePack();
+        }
+        _indexWriter = new ComponentIndex.Writer(_name);
+        try {
+            savePointers();
+            saveComponentIndex();
+        } finally {
+            _indexWriter = null;
+        }
+    }
+
+    private void saveComponentIndex() {
+        String resourcename = getMetadataPath() + "/" + ComponentIndex.INDEX_NAME;
+        try (OutputStream os = getSaverStream(resourcename, ComponentIndex.INDEX_NAME)) {
+            _indexWriter.writeTo(os);
+        } catch (IOException e) {
+            throw new SchemaTypeLoaderException(e.getMessage(), getName(), ComponentIndex.INDEX_NAME, SchemaTypeLoaderException.IO_EXCEPTION, e);
+        }
+    }
+
+    private void savePack() {
+        String resourcename = getBasePackage() + XsbPack.PACK_NAME;
+        try (OutputStream os = getSaverStream(resourcename, XsbPack.PACK_NAME)) {
+            _packWriter.writeTo(os);
+        } catch (IOException e) {
+            throw new SchemaTypeLoaderException(e.getMessage(), getName(), XsbPack.PACK_NAME, SchemaTypeLoaderException.IO_EXCEPTION, e);
+        } finally {
+            _packWriter = null;
+        }
     }
 
     void saveTypesRecursively(SchemaType[] types) {
@@ -1125,6 +1190,18 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
         return _name;
     }
 
+    /**
+     * Creates an instance of a generated implementation class without reflection.
+     * The generated TypeSystemHolder overrides this with a switch over its implementation classes.
+     *
+     * @param implClassName the full java name of the implementation class, see {@link SchemaTypeImpl#getFullJavaImplName()}
+     * @param sType the schema type of the new instance
+     * @return the new instance or null, if the implementation class is not known by this type system
+     */
+    protected XmlObjectBase newImplInstance(String implClassName, SchemaType sType) {
+        return null;
+    }
+
     /**
      * Provide method to be overridden by user typesystems using a different metadata path
      *
@@ -1168,4 +1245,43 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
     InputStream getLoaderStream(String resourcename) {
         return _resourceLoader.getResourceAsStream(resourcename);
     }
+
+    /**
+     * @return the resource memory-mapped, if it's a plain file on the classpath and mapping is enabled,
+     *  otherwise - e.g. if it's inside of a jar - read into a heap buffer, or null if the resource doesn't exist
+     */
+    ByteBuffer getLoaderBuffer(String resourcename) {
+        try {
+            if (_resourceLoader instanceof ClassLoaderResourceLoader) {
+                URL url = ((ClassLoaderResourceLoader) _resourceLoader)._classLoader.getResource(resourcename);
+                if (url == null) {
+                    return null;
+                }
+                if (MAP_PACK && "file".equals(url.getProtocol())) {
+                    try (FileChannel fc = FileChannel.open(Paths.get(url.toURI()), StandardOpenOption.READ)) {
+                        return fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+                    }
+                }
+            }
+
+            try (InputStream is = getLoaderStream(resourcename)) {
+                if (is == null) {
+                    return null;
+                }
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                IOUtil.copyCompletely(is, bos);
+                return ByteBuffer.wrap(bos.toByteArray());
+            }
+        } catch (IOException | URISyntaxException e) {
+            throw new SchemaTypeLoaderException(e.getMessage(), getName(), XsbPack.PACK_NAME, SchemaTypeLoaderException.IO_EXCEPTION, e);
+        }
+    }
+
+    XsbPack getPack() {
+        return _pack;
+    }
+
+    XsbPack.Writer getPackWriter() {
+        return _packWriter;
+    }
 }
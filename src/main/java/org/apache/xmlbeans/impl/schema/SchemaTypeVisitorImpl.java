@@ -21,6 +21,7 @@ import javax.xml.namespace.QName;
 import org.apache.xmlbeans.SchemaParticle;
 import org.apache.xmlbeans.SchemaLocalElement;
 import org.apache.xmlbeans.SchemaField;
+import org.apache.xmlbeans.SchemaType;
 
 import java.util.Arrays;
 
@@ -38,13 +39,34 @@ public class SchemaTypeVisitorImpl implements TypeStoreVisitor
         init(part);
     }
 
+    /**
+     * Construct it by passing the type of the content model - this uses the
+     * precompiled automaton of the type, if available.
+     */
+    public SchemaTypeVisitorImpl(SchemaType type)
+    {
+        init(type);
+    }
+
     public SchemaTypeVisitorImpl()
     {
 
     }
 
+    public void init(SchemaType type)
+    {
+        init(type.getContentModel());
+        _automaton = (type instanceof SchemaTypeImpl)
+            ? ((SchemaTypeImpl) type).getContentModelAutomaton()
+            : null;
+        _automatonState = (_automaton == null) ? 0 : _automaton.start();
+    }
+
     public void init(SchemaParticle part)
     {
+        _automaton = null;
+        _matchedParticle = null;
+
         if (_stack == null)
         {
             _stack = expand(null);
@@ -89,6 +111,8 @@ public class SchemaTypeVisitorImpl implements TypeStoreVisitor
     private SchemaParticle _matchedParticle;
     private VisitorState _top;
     private int _rollbackIndex;
+    private ContentModelAutomaton _automaton;
+    private int _automatonState;
 
     private static class VisitorState
     {
@@ -318,6 +342,9 @@ public class SchemaTypeVisitorImpl implements TypeStoreVisitor
 
     public boolean visit(QName eltName, boolean testValidity)
     {
+        if (_automaton != null)
+            return visitAutomaton(eltName, testValidity);
+
         if (!prepare())
             return notValid();
 
@@ -455,6 +482,41 @@ public class SchemaTypeVisitorImpl implements TypeStoreVisitor
         return notValid();
     }
 
+    /**
+     * Table driven variant of visit, which is used if the content model
+     * could be compiled into an automaton.
+     */
+    private boolean visitAutomaton(QName eltName, boolean testValidity)
+    {
+        if (eltName == null)
+        {
+            if (!_automaton.isAccepting(_automatonState))
+            {
+                _isValid = false;
+                _matchedParticle = null;
+                return false;
+            }
+            if (!testValidity)
+                _matchedParticle = null;
+            return true;
+        }
+
+        ContentModelAutomaton.Transition t = _automaton.next(_automatonState, eltName);
+        if (t == null)
+        {
+            _isValid = false;
+            _matchedParticle = null;
+            return false;
+        }
+
+        if (!testValidity)
+        {
+            _matchedParticle = t.getParticle();
+            _automatonState = t.getTarget();
+        }
+        return true;
+    }
+
     public boolean testValid(QName eltName)
     {
       return visit(eltName,PROBE_VALIDITY);
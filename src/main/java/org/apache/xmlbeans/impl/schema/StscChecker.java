@@ -35,19 +35,33 @@ public class StscChecker {
         allSeenTypes.addAll(Arrays.asList(state.globalTypes()));
 
         for (int i = 0; i < allSeenTypes.size(); i++) {
-            SchemaType gType = allSeenTypes.get(i);
+            allSeenTypes.addAll(Arrays.asList(allSeenTypes.get(i).getAnonymousTypes()));
+        }
+
+        // the types are checked independently of each other, the parse objects are only used
+        // through selectAttribute and the error locations, which lock their documents
+        state.runParallel(allSeenTypes, gType -> {
             // option to turn off particle restriction checking
             // Don't check doc types for restriction.
             if (!state.noPvr() && !gType.isDocumentType()) {
                 checkRestriction((SchemaTypeImpl) gType);
             }
             checkFields((SchemaTypeImpl) gType);
-            allSeenTypes.addAll(Arrays.asList(gType.getAnonymousTypes()));
-        }
+        });
 
         checkSubstitutionGroups(state.globalElements());
     }
 
+    /**
+     * Selects an attribute of a parse object. The types are checked in parallel, so the document
+     * is locked, as documents loaded unsynchronized must not be used concurrently.
+     */
+    private static XmlObject selectAttribute(XmlObject location, String localName) {
+        synchronized (location.monitor()) {
+            return location.selectAttribute("", localName);
+        }
+    }
+
     /**
      * The following code checks rule #5 of http://www.w3.org/TR/xmlschema-1/#coss-ct
      * as well as attribute + element default/fixed validity.<p>
@@ -133,7 +147,7 @@ public class StscChecker {
                             String constraintName = (sAttr.isFixed() ? "fixed" : "default");
                             XmlObject constraintLocation = location;
                             if (attrLocation != null) {
-                                constraintLocation = attrLocation.selectAttribute("", constraintName);
+                                constraintLocation = selectAttribute(attrLocation, constraintName);
                                 if (constraintLocation == null) {
                                     constraintLocation = attrLocation;
                                 }
@@ -191,7 +205,7 @@ public class StscChecker {
                         } catch (Exception e) {
                             // move to 'fixed' or 'default' attribute on the element definition
                             String constraintName = (model.isFixed() ? "fixed" : "default");
-                            XmlObject constraintLocation = location.selectAttribute("", constraintName);
+                            XmlObject constraintLocation = selectAttribute(location, constraintName);
 
                             StscState.get().error(XmlErrorCodes.ELEM_PROPERTIES$CONSTRAINT_VALID,
                                 new Object[]{QNameHelper.pretty(model.getName()),
@@ -203,7 +217,7 @@ public class StscChecker {
                     } else if (model.getType().getContentType() == SchemaType.MIXED_CONTENT) {
                         if (!model.getType().getContentModel().isSkippable()) {
                             String constraintName = (model.isFixed() ? "fixed" : "default");
-                            XmlObject constraintLocation = location.selectAttribute("", constraintName);
+                            XmlObject constraintLocation = selectAttribute(location, constraintName);
 
                             StscState.get().error(XmlErrorCodes.ELEM_DEFAULT_VALID$MIXED_AND_EMPTIABLE,
                                 new Object[]{QNameHelper.pretty(model.getName()),
@@ -219,14 +233,14 @@ public class StscChecker {
                             }
                         }
                     } else if (model.getType().getContentType() == SchemaType.ELEMENT_CONTENT) {
-                        XmlObject constraintLocation = location.selectAttribute("", "default");
+                        XmlObject constraintLocation = selectAttribute(location, "default");
                         StscState.get().error(XmlErrorCodes.ELEM_DEFAULT_VALID$SIMPLE_TYPE_OR_MIXED,
                             new Object[]{QNameHelper.pretty(model.getName()),
                                 valueConstraint,
                                 "element"},
                             (constraintLocation == null ? location : constraintLocation));
                     } else if (model.getType().getContentType() == SchemaType.EMPTY_CONTENT) {
-                        XmlObject constraintLocation = location.selectAttribute("", "default");
+                        XmlObject constraintLocation = selectAttribute(location, "default");
                         StscState.get().error(XmlErrorCodes.ELEM_DEFAULT_VALID$SIMPLE_TYPE_OR_MIXED,
                             new Object[]{QNameHelper.pretty(model.getName()),
                                 valueConstraint,
@@ -251,7 +265,7 @@ public class StscChecker {
                         StscState.get().recover(XmlErrorCodes.ELEM_NOTATION_TYPE_FORBIDDEN,
                             new Object[]{QNameHelper.pretty(model.getName())},
                             ((SchemaLocalElementImpl) model)._parseObject == null ? location :
-                                ((SchemaLocalElementImpl) model)._parseObject.selectAttribute("", "type"));
+                                selectAttribute(((SchemaLocalElementImpl) model)._parseObject, "type"));
                     } else {
                         if (model.getType().getSimpleVariety() == SchemaType.UNION) {
                             SchemaType[] members = model.getType().getUnionConstituentTypes();
@@ -260,7 +274,7 @@ public class StscChecker {
                                     StscState.get().recover(XmlErrorCodes.ELEM_NOTATION_TYPE_FORBIDDEN,
                                         new Object[]{QNameHelper.pretty(model.getName())},
                                         ((SchemaLocalElementImpl) model)._parseObject == null ? location :
-                                            ((SchemaLocalElementImpl) model)._parseObject.selectAttribute("", "type"));
+                                            selectAttribute(((SchemaLocalElementImpl) model)._parseObject, "type"));
                                 }
                             }
                         }
@@ -290,7 +304,7 @@ public class StscChecker {
                     StscState.get().warning(XmlErrorCodes.ELEM_COMPATIBILITY_TYPE, new Object[]
                             {QNameHelper.pretty(model.getName()), warningType},
                         ((SchemaLocalElementImpl) model)._parseObject == null ? location :
-                            ((SchemaLocalElementImpl) model)._parseObject.selectAttribute("", "type"));
+                            selectAttribute(((SchemaLocalElementImpl) model)._parseObject, "type"));
                 }
 
                 break;
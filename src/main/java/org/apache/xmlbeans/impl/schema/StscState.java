@@ -31,6 +31,10 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 
 /**
@@ -61,6 +65,9 @@ public class StscState {
 
     private static final ThreadLocal<StscStack> tl_stscStack = new ThreadLocal<>();
 
+    // errors of a task running in parallel - see runParallel
+    private static final ThreadLocal<TaskErrors> tl_taskErrors = new ThreadLocal<>();
+
     private final static String PROJECT_URL_PREFIX = "project://local";
 
 
@@ -77,6 +84,11 @@ public class StscState {
     private boolean _allowPartial = false;
     private int _recoveredErrors = 0;
 
+    private int _parallelism = 1;
+    // the pool of the parallel tasks, created on first use and shut down at the end of the compilation
+    private ForkJoinPool _pool;
+    private boolean _xsbPack;
+
     private SchemaTypeLoader _importingLoader;
 
     private final Map<String, SchemaContainer> _containers = new LinkedHashMap<>();
@@ -236,29 +248,29 @@ public class StscState {
      * KHK: remove this
      */
     public void error(String message, int code, XmlObject loc) {
-        addError(_errorListener, message, code, loc);
+        addError(getErrorListener(), message, code, loc);
     }
 
     /**
      * Passes an error on to the current error listener.
      */
     public void error(String code, Object[] args, XmlObject loc) {
-        addError(_errorListener, code, args, loc);
+        addError(getErrorListener(), code, args, loc);
     }
 
     /**
      * Passes a recovered error on to the current error listener.
      */
     public void recover(String code, Object[] args, XmlObject loc) {
-        addError(_errorListener, code, args, loc);
-        _recoveredErrors++;
+        addError(getErrorListener(), code, args, loc);
+        addRecovered();
     }
 
     /**
      * Passes an error on to the current error listener.
      */
     public void warning(String message, int code, XmlObject loc) {
-        addWarning(_errorListener, message, code, loc);
+        addWarning(getErrorListener(), message, code, loc);
     }
 
     /**
@@ -272,40 +284,31 @@ public class StscState {
             return;
         }
 
-        addWarning(_errorListener, code, args, loc);
+        addWarning(getErrorListener(), code, args, loc);
     }
 
     /**
      * Passes a warning on to the current error listener.
      */
     public void info(String message) {
-        addInfo(_errorListener, message);
+        addInfo(getErrorListener(), message);
     }
 
     /**
      * Passes a warning on to the current error listener.
      */
     public void info(String code, Object[] args) {
-        addInfo(_errorListener, code, args);
+        addInfo(getErrorListener(), code, args);
     }
 
     // KHK: remove this
     public static void addError(Collection<XmlError> errorListener, String message, int code, XmlObject location) {
-        XmlError err =
-            XmlError.forObject(
-                message,
-                XmlError.SEVERITY_ERROR,
-                location);
+        XmlError err = forObject(message, XmlError.SEVERITY_ERROR, location);
         errorListener.add(err);
     }
 
     public static void addError(Collection<XmlError> errorListener, String code, Object[] args, XmlObject location) {
-        XmlError err =
-            XmlError.forObject(
-                code,
-                args,
-                XmlError.SEVERITY_ERROR,
-                location);
+        XmlError err = forObject(code, args, XmlError.SEVERITY_ERROR, location);
         errorListener.add(err);
     }
 
@@ -331,24 +334,35 @@ public class StscState {
 
     // KHK: remove this
     public static void addWarning(Collection<XmlError> errorListener, String message, int code, XmlObject location) {
-        XmlError err =
-            XmlError.forObject(
-                message,
-                XmlError.SEVERITY_WARNING,
-                location);
+        XmlError err = forObject(message, XmlError.SEVERITY_WARNING, location);
         errorListener.add(err);
     }
 
     public static void addWarning(Collection<XmlError> errorListener, String code, Object[] args, XmlObject location) {
-        XmlError err =
-            XmlError.forObject(
-                code,
-                args,
-                XmlError.SEVERITY_WARNING,
-                location);
+        XmlError err = forObject(code, args, XmlError.SEVERITY_WARNING, location);
         errorListener.add(err);
     }
 
+    // the location is locked, as it may be part of a document loaded unsynchronized,
+    // which is also used by other tasks - see runParallel
+    private static XmlError forObject(String message, int severity, XmlObject location) {
+        if (location == null) {
+            return XmlError.forMessage(message, severity);
+        }
+        synchronized (location.monitor()) {
+            return XmlError.forObject(message, severity, location);
+        }
+    }
+
+    private static XmlError forObject(String code, Object[] args, int severity, XmlObject location) {
+        if (location == null) {
+            return XmlError.forMessage(code, args, severity);
+        }
+        synchronized (location.monitor()) {
+            return XmlError.forObject(code, args, severity, location);
+        }
+    }
+
     public static void addInfo(Collection<XmlError> errorListener, String message) {
         XmlError err = XmlError.forMessage(message, XmlError.SEVERITY_INFO);
         errorListener.add(err);
@@ -449,6 +463,8 @@ public class StscState {
         }
 
         _allowPartial = options.isCompilePartialTypesystem();
+        _parallelism = Math.max(1, options.getCompileParallelism());
+        _xsbPack = options.isCompileXsbPack();
 
         _compatMap = options.getCompileSubstituteNames();
         _noUpa = options.isCompileNoUpaRule() ||
@@ -523,6 +539,20 @@ public class StscState {
         return _allowPartial;
     }
 
+    /**
+     * The number of threads used for the independent parts of the compilation
+     */
+    public int getParallelism() {
+        return _parallelism;
+    }
+
+    /**
+     * True if the type system is saved as a single xsb pack
+     */
+    public boolean isXsbPack() {
+        return _xsbPack;
+    }
+
     /**
      * Get count of recovered errors. Not for public.
      */
@@ -531,6 +561,80 @@ public class StscState {
         return _recoveredErrors;
     }
 
+    /**
+     * Runs the task for each item, with this state being the current state of the task.
+     * <p>
+     * If the parallelism is greater than 1, the tasks are executed by a fork-join pool.
+     * Their errors are buffered per item and passed on to the error listener in the order
+     * of the items, so the errors are reported the same way as by a sequential run.
+     * The tasks must not depend on each other and must not modify shared parts of the state.
+     */
+    <T> void runParallel(List<T> items, Consumer<T> task) {
+        if (_parallelism <= 1 || items.size() <= 1) {
+            items.forEach(task);
+            return;
+        }
+
+        List<Callable<TaskErrors>> tasks = new ArrayList<>(items.size());
+        for (T item : items) {
+            tasks.add(() -> {
+                StscStack stscStack = tl_stscStack.get();
+                if (stscStack == null) {
+                    stscStack = new StscStack();
+                    tl_stscStack.set(stscStack);
+                }
+                stscStack.push(this);
+                TaskErrors taskErrors = new TaskErrors();
+                tl_taskErrors.set(taskErrors);
+                try {
+                    task.accept(item);
+                } finally {
+                    tl_taskErrors.remove();
+                    end();
+                }
+                return taskErrors;
+            });
+        }
+
+        if (_pool == null) {
+            _pool = new ForkJoinPool(_parallelism);
+        }
+        try {
+            for (Future<TaskErrors> f : _pool.invokeAll(tasks)) {
+                TaskErrors taskErrors = f.get();
+                _errorListener.addAll(taskErrors.errors);
+                _recoveredErrors += taskErrors.recovered;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new XmlRuntimeException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Shuts down the pool of the parallel tasks, if it was created
+     */
+    void shutdownPool() {
+        if (_pool != null) {
+            _pool.shutdown();
+            _pool = null;
+        }
+    }
+
+    private static final class TaskErrors {
+        final List<XmlError> errors = new ArrayList<>();
+        int recovered;
+    }
+
     /**
      * Intercepts XML names and translates them
      * through the compat map, if any.
@@ -1119,8 +1223,12 @@ public class StscState {
         List<StscState> stack = new ArrayList<>();
 
         final StscState push() {
+            return push(new StscState());
+        }
+
+        final StscState push(StscState state) {
             stack.add(current);
-            current = new StscState();
+            current = state;
             return current;
         }
 
@@ -1194,7 +1302,7 @@ public class StscState {
         String sourceName = null;
 
         if (recovered) {
-            _recoveredErrors++;
+            addRecovered();
         }
 
         switch (code) {
@@ -1384,7 +1492,17 @@ public class StscState {
      * Returns the error listener being filled in during this compilation
      */
     public Collection<XmlError> getErrorListener() {
-        return _errorListener;
+        TaskErrors taskErrors = tl_taskErrors.get();
+        return taskErrors != null ? taskErrors.errors : _errorListener;
+    }
+
+    private void addRecovered() {
+        TaskErrors taskErrors = tl_taskErrors.get();
+        if (taskErrors != null) {
+            taskErrors.recovered++;
+        } else {
+            _recoveredErrors++;
+        }
     }
 
     /**
@@ -0,0 +1,344 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.schema;
+
+import org.apache.xmlbeans.SchemaTypeLoaderException;
+import org.apache.xmlbeans.impl.util.LongUTFDataInputStream;
+import org.apache.xmlbeans.impl.util.LongUTFDataOutputStream;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.xmlbeans.impl.schema.SchemaTypeSystemImpl.*;
+
+/**
+ * A single resource holding all .xsb components of a type system.
+ * <p>
+ * The components share one string pool and are addressed by an offset table,
+ * so a type system is located with one resource lookup instead of one per component.
+ * The pack is memory-mapped if possible and components and strings are only decoded
+ * when their handle is resolved.
+ * <p>
+ * Layout (all offsets are relative to the start of the resource):
+ * <pre>
+ * int   magic, short major, short minor, short release, short filetype (FILETYPE_SCHEMAPACK)
+ * int   entry count
+ * entry count * (int handle string code, short filetype, int offset, int length)
+ * int   string count (including the null string at code 0)
+ * (string count - 1) * int string offset
+ * long utf strings ...
+ * component data ...
+ * </pre>
+ * The pointer files are still written as separate .xsb files, as they are looked up
+ * by name from other type systems.
+ */
+final class XsbPack {
+    static final String PACK_NAME = "index.xsbpack";
+
+    private static final int HEADER_SIZE = 12;
+    private static final int ENTRY_SIZE = 14;
+
+    private final String _name;
+    private final ByteBuffer _buffer;
+    private final int _majorver;
+    private final int _minorver;
+    private final int _releaseno;
+    private final Map<String, Integer> _entries;
+    private final int _entryStart;
+    private final LazyStringPool _stringPool;
+
+    private XsbPack(String name, ByteBuffer buffer) {
+        _name = name;
+        _buffer = buffer;
+
+        if (buffer.getInt(0) != DATA_BABE) {
+            throw new SchemaTypeLoaderException("XML-BEANS compiled schema: Wrong magic cookie", name, PACK_NAME, SchemaTypeLoaderException.WRONG_MAGIC_COOKIE);
+        }
+        _majorver = buffer.getShort(4) & 0xFFFF;
+        _minorver = buffer.getShort(6) & 0xFFFF;
+        _releaseno = buffer.getShort(8) & 0xFFFF;
+        if (_majorver != MAJOR_VERSION) {
+            throw new SchemaTypeLoaderException("XML-BEANS compiled schema: Wrong major version - expecting " + MAJOR_VERSION + ", got " + _majorver, name, PACK_NAME, SchemaTypeLoaderException.WRONG_MAJOR_VERSION);
+        }
+        if (_minorver > MINOR_VERSION || _minorver < PACK_MINOR_VERSION) {
+            throw new SchemaTypeLoaderException("XML-BEANS compiled schema: Incompatible minor version - expecting " + PACK_MINOR_VERSION + " up to " + MINOR_VERSION + ", got " + _minorver, name, PACK_NAME, SchemaTypeLoaderException.WRONG_MINOR_VERSION);
+        }
+        int filetype = buffer.getShort(10) & 0xFFFF;
+        if (filetype != FILETYPE_SCHEMAPACK) {
+            throw new SchemaTypeLoaderException("XML-BEANS compiled schema: File has the wrong type - expecting type " + FILETYPE_SCHEMAPACK + ", got type " + filetype, name, PACK_NAME, SchemaTypeLoaderException.WRONG_FILE_TYPE);
+        }
+
+        int entryCount = buffer.getInt(HEADER_SIZE);
+        _entryStart = HEADER_SIZE + 4;
+        int stringStart = _entryStart + entryCount * ENTRY_SIZE;
+        _stringPool = new LazyStringPool(buffer.getInt(stringStart), stringStart + 4);
+
+        // only the handles are decoded eagerly, the remaining strings on demand
+        _entries = new HashMap<>(entryCount * 2);
+        for (int i = 0; i < entryCount; i++) {
+            _entries.put(_stringPool.stringForCode(buffer.getInt(_entryStart + i * ENTRY_SIZE)), i);
+        }
+    }
+
+    /**
+     * @return the pack of the type system or null, if the type system was saved as separate files
+     */
+    static XsbPack open(SchemaTypeSystemImpl typeSystem) {
+        ByteBuffer buffer = typeSystem.getLoaderBuffer(typeSystem.getBasePackage() + PACK_NAME);
+        return (buffer == null) ? null : new XsbPack(typeSystem.getName(), buffer);
+    }
+
+    int getMajorVersion() {
+        return _majorver;
+    }
+
+    int getMinorVersion() {
+        return _minorver;
+    }
+
+    int getReleaseNumber() {
+        return _releaseno;
+    }
+
+    SchemaTypeSystemImpl.StringPool getStringPool() {
+        return _stringPool;
+    }
+
+    /**
+     * @return the filetype of the component or -1, if the handle is not part of this pack
+     */
+    int getFiletype(String handle) {
+        Integer idx = _entries.get(handle);
+        return (idx == null) ? -1 : (_buffer.getShort(_entryStart + idx * ENTRY_SIZE + 4) & 0xFFFF);
+    }
+
+    /**
+     * @return a stream over the component data without header and string pool
+     */
+    LongUTFDataInputStream openComponent(String handle) {
+        Integer idx = _entries.get(handle);
+        if (idx == null) {
+            throw new SchemaTypeLoaderException("XML-BEANS compiled schema: Could not locate compiled schema component " + handle + " in " + PACK_NAME, _name, handle, SchemaTypeLoaderException.NO_RESOURCE);
+        }
+        int pos = _entryStart + idx * ENTRY_SIZE;
+        return new LongUTFDataInputStream(new BufferInputStream(_buffer, _buffer.getInt(pos + 6), _buffer.getInt(pos + 10)));
+    }
+
+    private final class LazyStringPool extends SchemaTypeSystemImpl.StringPool {
+        private final String[] _strings;
+        private final int _offsetStart;
+        // reverse lookup and strings added after loading, only created when codes are requested
+        private Map<String, Integer> _codes;
+        private List<String> _added;
+
+        LazyStringPool(int count, int offsetStart) {
+            super(PACK_NAME, _name);
+            _strings = new String[count];
+            _offsetStart = offsetStart;
+        }
+
+        @Override
+        String stringForCode(int code) {
+            if (code == 0) {
+                return null;
+            }
+            if (code >= _strings.length) {
+                synchronized (this) {
+                    return _added.get(code - _strings.length);
+                }
+            }
+            // racy but benign - a string may be decoded twice
+            String str = _strings[code];
+            if (str == null) {
+                int offset = _buffer.getInt(_offsetStart + (code - 1) * 4);
+                try {
+                    str = new LongUTFDataInputStream(new BufferInputStream(_buffer, offset, _buffer.limit() - offset)).readLongUTF().intern();
+                } catch (IOException e) {
+                    throw new SchemaTypeLoaderException(e.getMessage(), _name, PACK_NAME, SchemaTypeLoaderException.IO_EXCEPTION, e);
+                }
+                _strings[code] = str;
+            }
+            return str;
+        }
+
+        @Override
+        synchronized int codeForString(String str) {
+            if (str == null) {
+                return 0;
+            }
+            if (_codes == null) {
+                _codes = new HashMap<>(_strings.length * 2);
+                _added = new ArrayList<>();
+                for (int code = 1; code < _strings.length; code++) {
+                    _codes.put(stringForCode(code), code);
+                }
+            }
+            Integer result = _codes.get(str);
+            if (result == null) {
+                result = _strings.length + _added.size();
+                _added.add(str);
+                _codes.put(str, result);
+            }
+            return result;
+        }
+
+        @Override
+        synchronized int size() {
+            return _strings.length + (_added == null ? 0 : _added.size());
+        }
+
+        @Override
+        void writeTo(LongUTFDataOutputStream output) {
+            try {
+                int cnt = size();
+                output.writeShortOrInt(cnt);
+                for (int code = 1; code < cnt; code++) {
+                    output.writeLongUTF(stringForCode(code));
+                }
+            } catch (IOException e) {
+                throw new SchemaTypeLoaderException(e.getMessage(), _name, PACK_NAME, SchemaTypeLoaderException.IO_EXCEPTION, e);
+            }
+        }
+
+        @Override
+        void readFrom(LongUTFDataInputStream input) {
+            throw new IllegalStateException();
+        }
+    }
+
+    /**
+     * Reads a region of a shared buffer with absolute gets, so it can be used concurrently
+     */
+    private static final class BufferInputStream extends InputStream {
+        private final ByteBuffer _buf;
+        private int _pos;
+        private final int _end;
+
+        BufferInputStream(ByteBuffer buf, int offset, int length) {
+            _buf = buf;
+            _pos = offset;
+            _end = offset + length;
+        }
+
+        @Override
+        public int read() {
+            return (_pos < _end) ? (_buf.get(_pos++) & 0xFF) : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (_pos >= _end) {
+                return -1;
+            }
+            int cnt = Math.min(len, _end - _pos);
+            for (int i = 0; i < cnt; i++) {
+                b[off + i] = _buf.get(_pos++);
+            }
+            return cnt;
+        }
+
+        @Override
+        public int available() {
+            return _end - _pos;
+        }
+    }
+
+    /**
+     * Collects the components of a type system while it is saved
+     */
+    static final class Writer {
+        private final SchemaTypeSystemImpl.StringPool _stringPool;
+        private final List<String> _handles = new ArrayList<>();
+        private final List<Integer> _filetypes = new ArrayList<>();
+        private final List<byte[]> _data = new ArrayList<>();
+
+        Writer(String name) {
+            _stringPool = new SchemaTypeSystemImpl.StringPool(PACK_NAME, name);
+        }
+
+        SchemaTypeSystemImpl.StringPool getStringPool() {
+            return _stringPool;
+        }
+
+        OutputStream createComponent(String handle, int filetype) {
+            // register the handle before the component data is written
+            _stringPool.codeForString(handle);
+            return new ByteArrayOutputStream() {
+                @Override
+                public void close() {
+                    synchronized (Writer.this) {
+                        _handles.add(handle);
+                        _filetypes.add(filetype);
+                        _data.add(toByteArray());
+                    }
+                }
+            };
+        }
+
+        synchronized void writeTo(OutputStream os) throws IOException {
+            // encode the strings first to know the offsets
+            ByteArrayOutputStream strBytes = new ByteArrayOutputStream();
+            List<Integer> strOffsets = new ArrayList<>();
+            try (LongUTFDataOutputStream strOut = new LongUTFDataOutputStream(strBytes)) {
+                for (int code = 1; code < _stringPool.size(); code++) {
+                    strOffsets.add(strBytes.size());
+                    strOut.writeLongUTF(_stringPool.stringForCode(code));
+                }
+            }
+
+            int count = _handles.size();
+            int stringStart = HEADER_SIZE + 4 + count * ENTRY_SIZE;
+            int stringDataStart = stringStart + 4 + strOffsets.size() * 4;
+            int dataStart = stringDataStart + strBytes.size();
+
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os));
+            out.writeInt(DATA_BABE);
+            out.writeShort(MAJOR_VERSION);
+            out.writeShort(MINOR_VERSION);
+            out.writeShort(RELEASE_NUMBER);
+            out.writeShort(FILETYPE_SCHEMAPACK);
+
+            out.writeInt(count);
+            int offset = dataStart;
+            for (int i = 0; i < count; i++) {
+                int len = _data.get(i).length;
+                out.writeInt(_stringPool.codeForString(_handles.get(i)));
+                out.writeShort(_filetypes.get(i));
+                out.writeInt(offset);
+                out.writeInt(len);
+                offset += len;
+            }
+
+            out.writeInt(strOffsets.size() + 1);
+            for (int strOffset : strOffsets) {
+                out.writeInt(stringDataStart + strOffset);
+            }
+            strBytes.writeTo(out);
+
+            for (byte[] data : _data) {
+                out.write(data);
+            }
+            out.flush();
+        }
+    }
+}
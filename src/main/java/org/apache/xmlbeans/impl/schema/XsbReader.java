@@ -52,11 +52,20 @@ class XsbReader {
     XsbReader(SchemaTypeSystemImpl typeSystem, String handle) {
         this.typeSystem = typeSystem;
         _handle = handle;
-        _stringPool = new SchemaTypeSystemImpl.StringPool(_handle, typeSystem.getName());
+        // pointer files (handles with a "/") are never packed
+        XsbPack.Writer packWriter = typeSystem.getPackWriter();
+        _stringPool = (packWriter != null && handle.indexOf('/') < 0) ? packWriter.getStringPool()
+            : new SchemaTypeSystemImpl.StringPool(_handle, typeSystem.getName());
     }
 
     public XsbReader(SchemaTypeSystemImpl typeSystem, String handle, int filetype) {
         this.typeSystem = typeSystem;
+        XsbPack pack = typeSystem.getPack();
+        if (pack != null) {
+            initFromPack(pack, handle, filetype);
+            return;
+        }
+
         String resourcename = typeSystem.getBasePackage()  + handle + ".xsb";
         InputStream rawinput = typeSystem.getLoaderStream(resourcename);
         if (rawinput == null) {
@@ -105,6 +114,24 @@ class XsbReader {
         _actualfiletype = actualfiletype;
     }
 
+    private void initFromPack(XsbPack pack, String handle, int filetype) {
+        int actualfiletype = pack.getFiletype(handle);
+        if (actualfiletype == -1) {
+            throw new SchemaTypeLoaderException("XML-BEANS compiled schema: Could not locate compiled schema component " + handle, typeSystem.getName(), handle, SchemaTypeLoaderException.NO_RESOURCE);
+        }
+        if (actualfiletype != filetype && filetype != 0xFFFF) {
+            throw new SchemaTypeLoaderException("XML-BEANS compiled schema: File has the wrong type - expecting type " + filetype + ", got type " + actualfiletype, typeSystem.getName(), handle, SchemaTypeLoaderException.WRONG_FILE_TYPE);
+        }
+
+        _input = pack.openComponent(handle);
+        _handle = handle;
+        _majorver = pack.getMajorVersion();
+        _minorver = pack.getMinorVersion();
+        _releaseno = pack.getReleaseNumber();
+        _stringPool = pack.getStringPool();
+        _actualfiletype = actualfiletype;
+    }
+
     protected boolean atLeast(int majorver, int minorver, int releaseno) {
         if (_majorver > majorver) {
             return true;
@@ -149,6 +176,14 @@ class XsbReader {
             resourcename = handle + ".xsb";
         } else {
             resourcename = typeSystem.getBasePackage() + handle + ".xsb";
+
+            XsbPack.Writer packWriter = typeSystem.getPackWriter();
+            if (packWriter != null) {
+                // the version, filetype and the shared string pool are written once for the whole pack
+                _output = new LongUTFDataOutputStream(packWriter.createComponent(handle, filetype));
+                _handle = handle;
+                return;
+            }
         }
 
         OutputStream rawoutput = typeSystem.getSaverStream(resourcename, _handle);
@@ -0,0 +1,102 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.store;
+
+import javax.xml.namespace.QName;
+import java.util.IdentityHashMap;
+
+/**
+ * Lookup index of the attributes of an element by name.
+ * <p>
+ * The index is an open addressing table over the attribute nodes, which is built lazily
+ * when a lookup has to scan more than {@link #THRESHOLD} attributes. The indexes are kept
+ * in a table of the locale, so only elements with that many attributes pay for them.
+ * They are snapshots, which are all dropped by any structural change of the locale.
+ */
+final class AttrIndex {
+    static final int THRESHOLD = 16;
+
+    private final QName[] _names;
+    private final Xobj[] _attrs;
+    private final int _mask;
+
+    /**
+     * @return the index of the attributes of parent, which is built if necessary
+     */
+    static AttrIndex forElement(Xobj parent) {
+        Locale l = parent._locale;
+
+        if (l._attrIndexes == null) {
+            l._attrIndexes = new IdentityHashMap<>();
+        } else if (l._attrIndexVersion != l._versionSansText) {
+            l._attrIndexes.clear();
+        }
+        l._attrIndexVersion = l._versionSansText;
+
+        return l._attrIndexes.computeIfAbsent(parent, AttrIndex::new);
+    }
+
+    /**
+     * Drops the index of parent, if there is one, after an attribute was added without
+     * a structural change of the locale
+     */
+    static void invalidate(Xobj parent) {
+        Locale l = parent._locale;
+
+        if (l._attrIndexes != null) {
+            l._attrIndexes.remove(parent);
+        }
+    }
+
+    private AttrIndex(Xobj parent) {
+        int n = 0;
+        for (Xobj x = parent._firstChild; x != null && x.isAttr(); x = x._nextSibling) {
+            n++;
+        }
+
+        // keep the load factor at or below 0.5
+        int capacity = 2;
+        while (capacity < n * 2) {
+            capacity <<= 1;
+        }
+
+        _names = new QName[capacity];
+        _attrs = new Xobj[capacity];
+        _mask = capacity - 1;
+
+        for (Xobj x = parent._firstChild; x != null && x.isAttr(); x = x._nextSibling) {
+            int i = slot(x._name);
+            // the first of duplicate attributes wins, like in the linear scan
+            if (_names[i] == null) {
+                _names[i] = x._name;
+                _attrs[i] = x;
+            }
+        }
+    }
+
+    Xobj find(QName name) {
+        return _attrs[slot(name)];
+    }
+
+    private int slot(QName name) {
+        int h = name.hashCode();
+        int i = (h ^ (h >>> 16)) & _mask;
+        while (_names[i] != null && !_names[i].equals(name)) {
+            i = (i + 1) & _mask;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,91 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.apache.xmlbeans.impl.store;
+
+import javax.xml.namespace.QName;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lookup index of the element children of a container by name.
+ * <p>
+ * The index is built lazily for parents with many element children (see
+ * {@link org.apache.xmlbeans.XmlOptions#setChildIndexThreshold(int)}). Appended children are
+ * added in place, other structural changes of the children, including removals, mark the index
+ * as stale, and it's only rebuilt when it's looked up twice without a change in between, so
+ * alternating changes and lookups don't rebuild it each time.
+ * <p>
+ * Besides real indexes, {@link Xobj#_childIndex} holds the markers {@link #NARROW} for parents
+ * below the threshold and {@link #STALE} and {@link #PENDING} for invalidated indexes.
+ */
+final class ChildIndex {
+    // too few element children for an index, until children are added
+    static final ChildIndex NARROW = new ChildIndex();
+    // the index was invalidated, the next lookup scans the children
+    static final ChildIndex STALE = new ChildIndex();
+    // looked up once since the invalidation, the next lookup rebuilds the index
+    static final ChildIndex PENDING = new ChildIndex();
+
+    private final Map<QName, List<Xobj>> _byName;
+
+    private ChildIndex() {
+        _byName = null;
+    }
+
+    ChildIndex(Xobj parent) {
+        _byName = new HashMap<>();
+        for (Xobj x = parent._firstChild; x != null; x = x._nextSibling) {
+            if (x.isElem()) {
+                _byName.computeIfAbsent(x._name, k -> new ArrayList<>()).add(x);
+            }
+        }
+    }
+
+    boolean isIndex() {
+        return _byName != null;
+    }
+
+    /**
+     * @return the state of the index of a parent after a structural change of its children,
+     * which can't be applied to the index
+     */
+    ChildIndex invalidate() {
+        return isIndex() || this == PENDING ? STALE : (this == NARROW ? null : this);
+    }
+
+    void append(Xobj x) {
+        _byName.computeIfAbsent(x._name, k -> new ArrayList<>()).add(x);
+    }
+
+    Xobj find(QName name, int i) {
+        List<Xobj> children = _byName.get(name);
+        return (children == null || i >= children.size()) ? null : children.get(i);
+    }
+
+    int count(QName name) {
+        List<Xobj> children = _byName.get(name);
+        return children == null ? 0 : children.size();
+    }
+
+    List<Xobj> findAll(QName name) {
+        List<Xobj> children = _byName.get(name);
+        return children == null ? Collections.emptyList() : children;
+    }
+}
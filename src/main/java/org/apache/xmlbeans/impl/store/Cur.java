@@ -2754,6 +2754,8 @@ public final class Cur {
             _substituteNamespaces = options.getLoadSubstituteNamespaces();
             _additionalNamespaces = options.getLoadAdditionalNamespaces();
 
+            _trimTextBuffer = options.isLoadTrimTextBuffer();
+
             _locale._versionAll++;
             _locale._versionSansText++;
         }
@@ -2773,6 +2775,11 @@ public final class Cur {
                 _after = false;
             }
 
+            if (xo.isAttr()) {
+                // lookups while loading, e.g. for bookmarks, may have indexed the attributes
+                AttrIndex.invalidate(_frontier);
+            }
+
             _frontier.appendXobj(xo);
             _frontier = xo;
 
@@ -3063,7 +3070,7 @@ public final class Cur {
             Cur c = _frontier.tempCur();
 
             if (!Locale.toFirstChildElement(c)) {
-                return c;
+                return finishDocument(c);
             }
 
             // See if the document element is a fragment
@@ -3171,6 +3178,13 @@ public final class Cur {
 
             assert c.isRoot();
 
+            return finishDocument(c);
+        }
+
+        private Cur finishDocument(Cur c) {
+            if (_trimTextBuffer) {
+                Locale.compact(_frontier);
+            }
             return c;
         }
 
@@ -3194,6 +3208,7 @@ public final class Cur {
         private final boolean _stripProcinsts;
         private final Map<String, String> _substituteNamespaces;
         private final Map<String, String> _additionalNamespaces;
+        private final boolean _trimTextBuffer;
 
         private String _doctypeName;
         private String _doctypePublicId;
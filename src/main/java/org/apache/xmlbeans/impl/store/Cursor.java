@@ -15,11 +15,12 @@
 
 package org.apache.xmlbeans.impl.store;
 
+import org.apache.xmlbeans.XmlCompactionStats;
 import org.apache.xmlbeans.XmlCursor;
 import org.apache.xmlbeans.XmlDocumentProperties;
 import org.apache.xmlbeans.XmlObject;
 import org.apache.xmlbeans.XmlOptions;
-import org.apache.xmlbeans.impl.common.GlobalLock;
+import org.apache.xmlbeans.impl.common.OrderedLock;
 import org.apache.xmlbeans.impl.common.XMLChar;
 import org.apache.xmlbeans.impl.store.Locale.ChangeListener;
 import org.apache.xmlbeans.impl.store.Saver.TextSaver;
@@ -53,7 +54,7 @@ public final class Cursor implements XmlCursor, ChangeListener {
     private ChangeListener _nextChangeListener;
 
     Cursor(Xobj x, int p) {
-        _cur = x._locale.weakCur(this);
+        _cur = x._locale.cursorCur(this);
         _cur.moveTo(x, p);
         _currentSelection = -1;
     }
@@ -203,6 +204,7 @@ public final class Cursor implements XmlCursor, ChangeListener {
     // to do when I dequeue from the old q.
 
     public void _dispose() {
+        Locale.cursorClosed(_cur);
         _cur.release();
         _cur = null;
     }
@@ -526,6 +528,10 @@ public final class Cursor implements XmlCursor, ChangeListener {
         return Locale.getDocProps(_cur, true);
     }
 
+    public XmlCompactionStats _compact() {
+        return Locale.compact(_cur._xobj);
+    }
+
     public XMLStreamReader _newXMLStreamReader(XmlOptions options) {
         return Jsr173.newXmlStreamReader(_cur, options);
     }
@@ -564,6 +570,10 @@ public final class Cursor implements XmlCursor, ChangeListener {
             throw new IllegalArgumentException("Null OutputStream specified");
         }
 
+        if (Saver.OutputStreamSaver.save(_cur, options, os)) {
+            return;
+        }
+
         try (InputStream is = _newInputStream(options)) {
             byte[] bytes = new byte[8192];
 
@@ -1747,27 +1757,7 @@ public final class Cursor implements XmlCursor, ChangeListener {
             }
         }
 
-        boolean acquired = false;
-
-        try {
-            GlobalLock.acquire();
-            acquired = true;
-
-            synchronized (locale) {
-                synchronized (otherLocale) {
-                    GlobalLock.release();
-                    acquired = false;
-
-                    return twoLocaleOp(other, op, arg);
-                }
-            }
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e.getMessage(), e);
-        } finally {
-            if (acquired) {
-                GlobalLock.release();
-            }
-        }
+        return OrderedLock.callLocked(locale, otherLocale, () -> twoLocaleOp(other, op, arg));
     }
 
     private int twoLocaleOp(Cursor other, int op, int arg) {
@@ -1931,6 +1921,10 @@ public final class Cursor implements XmlCursor, ChangeListener {
         return syncWrap(this::_documentProperties);
     }
 
+    public XmlCompactionStats compact() {
+        return syncWrap(this::_compact);
+    }
+
     public XmlCursor newCursor() {
         return syncWrap(this::_newCursor);
     }
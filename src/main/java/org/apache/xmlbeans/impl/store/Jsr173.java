@@ -97,7 +97,7 @@ public class Jsr173 {
             xs = new XMLStreamReaderForNode(c, false);
         }
 
-        if (c._locale.noSync()) {
+        if (c._locale.noSync() || options.isStreamReaderUnsynchronized()) {
             return new UnsyncedJsr173(c._locale, xs);
         } else {
             return new SyncedJsr173(c._locale, xs);
@@ -552,8 +552,8 @@ public class Jsr173 {
             return uri;
         }
 
-        private void fetchChars() {
-            if (!_textFetched) {
+        private void fetchSrc() {
+            if (!_srcFetched) {
                 int k = _cur.kind();
 
                 Cur cText = null;
@@ -567,17 +567,36 @@ public class Jsr173 {
                     throw new IllegalStateException();
                 }
 
-                Object src = cText.getChars(-1);
-
-                ensureCharBufLen(cText._cchSrc);
-
-                CharUtil.getChars(
-                    _chars, _offChars = 0, src, cText._offSrc, _cchChars = cText._cchSrc);
+                _src = cText.getChars(-1);
+                _offSrc = cText._offSrc;
+                _cchSrc = cText._cchSrc;
 
                 if (cText != _cur) {
                     cText.release();
                 }
 
+                _srcFetched = true;
+            }
+        }
+
+        private void fetchChars() {
+            if (!_textFetched) {
+                fetchSrc();
+
+                // The store never changes chars once they are written, so a contiguous
+                // run can be handed out directly instead of being copied
+
+                if (_src instanceof char[]) {
+                    _textChars = (char[]) _src;
+                    _offChars = _offSrc;
+                } else {
+                    ensureCharBufLen(_cchSrc);
+                    CharUtil.getChars(_chars, 0, _src, _offSrc, _cchSrc);
+                    _textChars = _chars;
+                    _offChars = 0;
+                }
+
+                _cchChars = _cchSrc;
                 _textFetched = true;
             }
         }
@@ -599,7 +618,7 @@ public class Jsr173 {
 
             fetchChars();
 
-            return _chars;
+            return _textChars;
         }
 
         public int getTextStart() {
@@ -621,6 +640,8 @@ public class Jsr173 {
         public int getTextCharacters(
             int sourceStart, char[] target, int targetStart, int length)
             throws XMLStreamException {
+            checkChanged();
+
             if (length < 0) {
                 throw new IndexOutOfBoundsException();
             }
@@ -633,32 +654,9 @@ public class Jsr173 {
                 throw new IndexOutOfBoundsException();
             }
 
-            if (!_srcFetched) {
-                int k = _cur.kind();
-
-                Cur cText = null;
+            fetchSrc();
 
-                if (k == Cur.COMMENT) {
-                    cText = _cur.tempCur();
-                    cText.next();
-                } else if (k == Cur.TEXT) {
-                    cText = _cur;
-                } else {
-                    throw new IllegalStateException();
-                }
-
-                _src = cText.getChars(-1);
-                _offSrc = cText._offSrc;
-                _cchSrc = cText._cchSrc;
-
-                if (cText != _cur) {
-                    cText.release();
-                }
-
-                _srcFetched = true;
-            }
-
-            if (sourceStart > _cchSrc) {
+            if (sourceStart < 0 || sourceStart > _cchSrc) {
                 throw new IndexOutOfBoundsException();
             }
 
@@ -666,7 +664,7 @@ public class Jsr173 {
                 length = _cchSrc - sourceStart;
             }
 
-            CharUtil.getChars(target, targetStart, _src, _offSrc, length);
+            CharUtil.getChars(target, targetStart, _src, _offSrc + sourceStart, length);
 
             return length;
         }
@@ -726,6 +724,7 @@ public class Jsr173 {
         private int _cchSrc;
 
         private boolean _textFetched;
+        private char[] _textChars;
         private char[] _chars;
         private int _offChars;
         private int _cchChars;
@@ -985,17 +984,30 @@ public class Jsr173 {
         public char[] getTextCharacters() {
             checkChanged();
 
-            char[] chars = new char[_cch];
-
-            CharUtil.getChars(chars, 0, _src, _off, _cch);
+            fetchChars();
 
-            return chars;
+            return _textChars;
         }
 
         public int getTextStart() {
             checkChanged();
 
-            return _off;
+            fetchChars();
+
+            return _offChars;
+        }
+
+        private void fetchChars() {
+            if (_textChars == null) {
+                if (_src instanceof char[]) {
+                    _textChars = (char[]) _src;
+                    _offChars = _off;
+                } else {
+                    _textChars = new char[_cch];
+                    CharUtil.getChars(_textChars, 0, _src, _off, _cch);
+                    _offChars = 0;
+                }
+            }
         }
 
         public int getTextLength() {
@@ -1011,7 +1023,7 @@ public class Jsr173 {
                 throw new IndexOutOfBoundsException();
             }
 
-            if (sourceStart > _cch) {
+            if (sourceStart < 0 || sourceStart > _cch) {
                 throw new IndexOutOfBoundsException();
             }
 
@@ -1159,6 +1171,9 @@ public class Jsr173 {
         private Object _src;
         private int _off;
         private int _cch;
+
+        private char[] _textChars;
+        private int _offChars;
     }
 
     //
@@ -22,6 +22,7 @@ import org.apache.xmlbeans.XmlCursor.XmlBookmark;
 import org.apache.xmlbeans.impl.common.QNameHelper;
 import org.apache.xmlbeans.impl.common.ResolverUtil;
 import org.apache.xmlbeans.impl.common.SAXHelper;
+import org.apache.xmlbeans.impl.common.SystemCache;
 import org.apache.xmlbeans.impl.common.XmlLocale;
 import org.apache.xmlbeans.impl.store.Cur.Locations;
 import org.apache.xmlbeans.impl.store.DomImpl.Dom;
@@ -43,10 +44,15 @@ import java.io.StringReader;
 import java.lang.ref.PhantomReference;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.SoftReference;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 
 import static org.apache.xmlbeans.impl.values.TypeStore.*;
 
@@ -102,6 +108,10 @@ public final class Locale
 
         _validateOnSet = options.isValidateOnSet();
 
+        _childIndexThreshold = options.getChildIndexThreshold();
+
+        _explicitCursorClose = options.isExplicitCursorClose();
+
         //
         // Check for Saaj implementation request
         //
@@ -520,7 +530,39 @@ public final class Locale
             return syncWrap(stl, options, (l) -> {
                 Cur c;
                 try {
-                    c = l.loadXMLStreamReader(xsr, options);
+                    c = l.loadXMLStreamReader(xsr, options, null);
+                } catch (XMLStreamException e) {
+                    throw new XmlException(e.getMessage(), e);
+                }
+
+                autoTypeDocument(c, type, options);
+                XmlObject x = (XmlObject) c.getUser();
+                c.release();
+                return x;
+            });
+        } catch (IOException e) {
+            assert false : "doesn't throw IOException";
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Loads the element the reader is positioned at into a new document and leaves the reader
+     * at the end of the element.
+     *
+     * @param inheritedNamespaces the namespaces in scope of the enclosing elements, keyed by prefix
+     *                            ("" for the default namespace), which are declared on the loaded element
+     *                            unless it redeclares the prefix
+     */
+    public static XmlObject parseElementToXmlObject(SchemaTypeLoader stl, XMLStreamReader xsr, SchemaType type,
+                                                    XmlOptions options, Map<String, String> inheritedNamespaces)
+        throws XmlException {
+        assert xsr.getEventType() == XMLStreamReader.START_ELEMENT;
+        try {
+            return syncWrap(stl, options, (l) -> {
+                Cur c;
+                try {
+                    c = l.loadXMLStreamReader(xsr, options, inheritedNamespaces);
                 } catch (XMLStreamException e) {
                     throw new XmlException(e.getMessage(), e);
                 }
@@ -573,7 +615,28 @@ public final class Locale
 
     }
 
-    private Cur loadXMLStreamReader(XMLStreamReader xsr, XmlOptions options)
+    private void doInheritedNamespaces(XMLStreamReader xsr, LoadContext context, Map<String, String> namespaces) {
+        Set<String> declared = new HashSet<>();
+        for (int a = 0, n = xsr.getNamespaceCount(); a < n; a++) {
+            String prefix = xsr.getNamespacePrefix(a);
+            declared.add(prefix == null ? "" : prefix);
+        }
+
+        namespaces.forEach((prefix, uri) -> {
+            if (declared.contains(prefix)) {
+                return;
+            }
+            if (prefix.isEmpty()) {
+                if (!uri.isEmpty()) {
+                    context.attr("xmlns", _xmlnsUri, null, uri);
+                }
+            } else {
+                context.attr(prefix, _xmlnsUri, "xmlns", uri);
+            }
+        });
+    }
+
+    private Cur loadXMLStreamReader(XMLStreamReader xsr, XmlOptions options, Map<String, String> inheritedNamespaces)
         throws XMLStreamException {
         options = XmlOptions.maskNull(options);
 
@@ -623,6 +686,11 @@ public final class Locale
                     doAttributes(xsr, context);
                     doNamespaces(xsr, context);
 
+                    if (inheritedNamespaces != null) {
+                        doInheritedNamespaces(xsr, context, inheritedNamespaces);
+                        inheritedNamespaces = null;
+                    }
+
                     break;
                 }
 
@@ -1180,6 +1248,61 @@ public final class Locale
             return _sb.toString();
         }
 
+        /**
+         * Applies the whitespace rule to the chars and returns a view of the result, which
+         * is only valid until the next use of this buffer.
+         * <p>
+         * If the chars don't need any change besides trimming, the view is backed by the
+         * source array or the reused copy buffer, otherwise by the scrubbed result.
+         */
+        CharSequence scrubToChars(Object src, int off, int cch) {
+            if (cch == 0) {
+                return "";
+            }
+
+            char[] chars;
+
+            if (src instanceof char[]) {
+                chars = (char[]) src;
+            } else if (cch <= _srcBuf.length) {
+                chars = _srcBuf;
+                CharUtil.getChars(chars, 0, src, off, cch);
+                off = 0;
+            } else {
+                scrub(src, off, cch);
+                return _sb;
+            }
+
+            int start = off;
+            int end = off + cch;
+
+            if (_wsr == WS_COLLAPSE) {
+                while (start < end && isWhiteSpace(chars[start])) {
+                    start++;
+                }
+                while (end > start && isWhiteSpace(chars[end - 1])) {
+                    end--;
+                }
+            }
+
+            if (_wsr != WS_PRESERVE) {
+                for (int i = start; i < end; i++) {
+                    if (isWhiteSpace(chars[i])) {
+                        // fall back to the scrubbed copy
+                        scrub(chars, off, cch);
+                        return _sb;
+                    }
+                }
+            }
+
+            _view.set(chars, start, end - start);
+            return _view;
+        }
+
+        private static boolean isWhiteSpace(char ch) {
+            return ch == ' ' || ch == '\n' || ch == '\r' || ch == '\t';
+        }
+
         private static final int START_STATE = 0;
         private static final int SPACE_SEEN_STATE = 1;
         private static final int NOSPACE_STATE = 2;
@@ -1190,6 +1313,45 @@ public final class Locale
 
         private char[] _srcBuf = new char[1024];
         private final StringBuffer _sb;
+        private final CharArrayView _view = new CharArrayView();
+    }
+
+    /**
+     * A reusable CharSequence over a slice of a char array
+     */
+    static final class CharArrayView implements CharSequence {
+        private char[] _buf;
+        private int _off;
+        private int _len;
+
+        void set(char[] buf, int off, int len) {
+            _buf = buf;
+            _off = off;
+            _len = len;
+        }
+
+        @Override
+        public int length() {
+            return _len;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= _len) {
+                throw new IndexOutOfBoundsException("index: " + index + ", length: " + _len);
+            }
+            return _buf[_off + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return new String(_buf, _off, _len);
+        }
     }
 
     private static final ThreadLocal<SoftReference<ScrubBuffer>> tl_scrubBuffer =
@@ -1313,6 +1475,13 @@ public final class Locale
             return null;
         }
 
+        if (name != null) {
+            ChildIndex ci = parent.childIndex();
+            if (ci != null) {
+                return ci.find(name, n);
+            }
+        }
+
         int da = _nthCache_A.distance(parent, name, set, n);
         int db = _nthCache_B.distance(parent, name, set, n);
 
@@ -1331,6 +1500,13 @@ public final class Locale
     }
 
     int count(Xobj parent, QName name, QNameSet set) {
+        if (name != null && parent != null) {
+            ChildIndex ci = parent.childIndex();
+            if (ci != null) {
+                return ci.count(name);
+            }
+        }
+
         int n = 0;
 
         for (Xobj x = findNthChildElem(parent, name, set, 0);
@@ -1906,14 +2082,135 @@ public final class Locale
         return _refQueue;
     }
 
+    /**
+     * @return the cur of a new cursor, which is only tracked by a phantom reference
+     * if the cursors of this locale aren't closed explicitly
+     */
+    Cur cursorCur(Object cursor) {
+        if (!_explicitCursorClose) {
+            return weakCur(cursor);
+        }
+
+        UNTRACKED_CURSOR_OPEN.increment();
+        return getCur();
+    }
+
+    /**
+     * Copies the text of the document containing x into a single buffer of the exact size.
+     * <p>
+     * The text of a loaded document shares the load buffers of the thread with other documents
+     * and edits leave joins and partly used strings behind, which are all released by this.
+     * The content doesn't change, so neither the version nor the cursors are affected.
+     */
+    static XmlCompactionStats compact(Xobj x) {
+        Xobj root = x;
+        while (root._parent != null) {
+            root = root._parent;
+        }
+
+        Set<Object> sources = Collections.newSetFromMap(new IdentityHashMap<>());
+        long retainedBefore = 0;
+        int joins = 0;
+        long total = 0;
+
+        for (Xobj y = root; y != null; y = y.walk(root, true)) {
+            retainedBefore += retainedChars(y._srcValue, sources) + retainedChars(y._srcAfter, sources);
+            total += y._cchValue + y._cchAfter;
+        }
+
+        for (Object src : sources) {
+            if (src instanceof CharUtil.CharJoin) {
+                joins++;
+            }
+        }
+
+        if (total > Integer.MAX_VALUE) {
+            throw new IllegalStateException("The text of the document is too large to compact");
+        }
+
+        char[] buf = new char[(int) total];
+        int pos = 0;
+
+        for (Xobj y = root; y != null; y = y.walk(root, true)) {
+            if (y._cchValue > 0) {
+                CharUtil.getChars(buf, pos, y._srcValue, y._offValue, y._cchValue);
+                y._srcValue = buf;
+                y._offValue = pos;
+                pos += y._cchValue;
+            } else {
+                y._srcValue = null;
+                y._offValue = 0;
+            }
+
+            if (y._cchAfter > 0) {
+                CharUtil.getChars(buf, pos, y._srcAfter, y._offAfter, y._cchAfter);
+                y._srcAfter = buf;
+                y._offAfter = pos;
+                pos += y._cchAfter;
+            } else {
+                y._srcAfter = null;
+                y._offAfter = 0;
+            }
+        }
+
+        assert pos == buf.length;
+
+        return new XmlCompactionStats(buf.length, retainedBefore, buf.length, joins);
+    }
+
+    // the size of the text buffers referenced by src, which haven't been counted yet
+    private static long retainedChars(Object src, Set<Object> sources) {
+        if (src == null || !sources.add(src)) {
+            return 0;
+        }
+        if (src instanceof char[]) {
+            return ((char[]) src).length;
+        }
+        if (src instanceof String) {
+            return ((String) src).length();
+        }
+        // joins are limited to CharJoin.MAX_DEPTH, so the recursion is bounded
+        CharUtil.CharJoin join = (CharUtil.CharJoin) src;
+        return retainedChars(join._srcLeft, sources) + retainedChars(join._srcRight, sources);
+    }
+
+    private static final LongAdder CURSOR_RECLAIMED = new LongAdder();
+    private static final LongAdder UNTRACKED_CURSOR_OPEN = new LongAdder();
+
+    /**
+     * Called when a cursor is closed before its cur is released
+     */
+    static void cursorClosed(Cur c) {
+        if (c._ref == null) {
+            UNTRACKED_CURSOR_OPEN.decrement();
+        }
+    }
+
+    /**
+     * @return the number of cursors which were not closed, but released after being garbage collected
+     */
+    public static long getCursorReclaimedCount() {
+        return CURSOR_RECLAIMED.sum();
+    }
+
+    /**
+     * @return the number of currently open cursors of documents with {@link XmlOptions#isExplicitCursorClose()}.
+     * A steadily growing value hints at cursors which are not closed.
+     */
+    public static long getUntrackedCursorOpenCount() {
+        return UNTRACKED_CURSOR_OPEN.sum();
+    }
+
     final static class Ref extends PhantomReference {
         Ref(Cur c, Object obj) {
             super(obj, c._locale.refQueue());
 
             _cur = c;
+            _cursor = obj instanceof Cursor;
         }
 
         Cur _cur;
+        final boolean _cursor;
     }
 
     Cur tempCur() {
@@ -2031,6 +2328,9 @@ public final class Locale
                 }
 
                 if (ref._cur != null) {
+                    if (ref._cursor) {
+                        CURSOR_RECLAIMED.increment();
+                    }
                     ref._cur.release();
                 }
             }
@@ -2227,35 +2527,88 @@ public final class Locale
         }
 
         XMLReader xr = options.getLoadUseXMLReader();
+        SaxLoader sl;
 
         if (xr == null) {
-            try {
-                xr = SAXHelper.newXMLReader(new XmlOptions(options));
-            } catch (Exception e) {
-                throw new XmlException("Problem creating XMLReader", e);
+            // reuse the configured reader of this thread, if the security relevant options match
+            SystemCache cache = SystemCache.get();
+            Object cached = cache.getSaxLoader();
+            if (cached instanceof XmlReaderSaxLoader && ((XmlReaderSaxLoader) cached).isReusableFor(options)) {
+                SAX_LOADER_REUSED.increment();
+                sl = (SaxLoader) cached;
+                xr = sl.getXMLReader();
+            } else {
+                try {
+                    xr = SAXHelper.newXMLReader(new XmlOptions(options));
+                } catch (Exception e) {
+                    throw new XmlException("Problem creating XMLReader", e);
+                }
+                SAX_LOADER_CREATED.increment();
+                sl = new XmlReaderSaxLoader(xr, options);
+                // a loader which is still busy with an outer document is not replaced
+                if (!(cached instanceof SaxLoader && ((SaxLoader) cached).isLoading())) {
+                    cache.setSaxLoader(sl);
+                }
             }
+        } else {
+            sl = new XmlReaderSaxLoader(xr, null);
         }
 
-        SaxLoader sl = new XmlReaderSaxLoader(xr);
-
         // I've noticed that most XMLReaders don't like a null EntityResolver...
-
-        if (er != null) {
-            xr.setEntityResolver(er);
-        }
+        // a reused reader needs to get back the resolver of SAXHelper
+        xr.setEntityResolver(er != null ? er : SAXHelper.IGNORING_ENTITY_RESOLVER);
 
         return sl;
     }
 
+    private static final LongAdder SAX_LOADER_CREATED = new LongAdder();
+    private static final LongAdder SAX_LOADER_REUSED = new LongAdder();
+
+    /**
+     * @return the number of XMLReaders which were created and configured for loading documents
+     */
+    public static long getSaxLoaderCreatedCount() {
+        return SAX_LOADER_CREATED.sum();
+    }
+
+    /**
+     * @return the number of documents which were loaded with a reused XMLReader
+     */
+    public static long getSaxLoaderReusedCount() {
+        return SAX_LOADER_REUSED.sum();
+    }
+
     private static class XmlReaderSaxLoader
         extends SaxLoader {
-        XmlReaderSaxLoader(XMLReader xr) {
+        // the reader settings derived from the options, a reader provided by the user is never reused
+        private final boolean _loadDTDGrammar;
+        private final boolean _loadExternalDTD;
+        private final boolean _disallowDocTypeDecl;
+        private final int _entityExpansionLimit;
+        private final boolean _reusable;
+
+        XmlReaderSaxLoader(XMLReader xr, XmlOptions options) {
             super(xr, null);
+            _reusable = options != null;
+            _loadDTDGrammar = _reusable && options.isLoadDTDGrammar();
+            _loadExternalDTD = _reusable && options.isLoadExternalDTD();
+            _disallowDocTypeDecl = _reusable && options.disallowDocTypeDeclaration();
+            _entityExpansionLimit = _reusable ? options.getEntityExpansionLimit() : 0;
+        }
+
+        boolean isReusableFor(XmlOptions options) {
+            return _reusable && !isLoading() &&
+                   _loadDTDGrammar == options.isLoadDTDGrammar() &&
+                   _loadExternalDTD == options.isLoadExternalDTD() &&
+                   _disallowDocTypeDecl == options.disallowDocTypeDeclaration() &&
+                   _entityExpansionLimit == options.getEntityExpansionLimit();
         }
     }
 
     private static abstract class SaxHandler
         implements ContentHandler, LexicalHandler, DeclHandler, DTDHandler {
+        private static final int DEFAULT_ENTITY_BYTES_LIMIT = 10240;
+
         protected Locale _locale;
 
         protected LoadContext _context;
@@ -2265,7 +2618,7 @@ public final class Locale
         private boolean _wantCdataBookmarks;
         private Locator _startLocator;
         private boolean _insideCDATA = false;
-        private int _entityBytesLimit = 10240;
+        private int _entityBytesLimit = DEFAULT_ENTITY_BYTES_LIMIT;
         private int _entityBytes = 0;
         private int _insideEntity = 0;
         private Map<String, String> delayedPrefixMappings = new LinkedHashMap<>();
@@ -2274,6 +2627,19 @@ public final class Locale
             _startLocator = startLocator;
         }
 
+        /**
+         * Clears the state of a previous document, when a SaxLoader is reused
+         */
+        void resetSaxHandler() {
+            // the reader sets the locator again on the next document
+            _startLocator = null;
+            _insideCDATA = false;
+            _entityBytesLimit = DEFAULT_ENTITY_BYTES_LIMIT;
+            _entityBytes = 0;
+            _insideEntity = 0;
+            delayedPrefixMappings.clear();
+        }
+
         void initSaxHandler(Locale l, final XmlOptions options) {
             _locale = l;
 
@@ -2536,8 +2902,15 @@ public final class Locale
             throws XmlException, IOException {
             is.setSystemId("file://");
 
+            if (_used) {
+                resetSaxHandler();
+            }
+            _used = true;
+            _loading = true;
+
             initSaxHandler(l, options);
 
+            boolean success = false;
             try {
                 _xr.parse(is);
 
@@ -2547,6 +2920,8 @@ public final class Locale
 
                 postLoad(c);
 
+                success = true;
+
                 return c;
             } catch (XmlRuntimeException e) {
                 _context.abort();
@@ -2571,9 +2946,27 @@ public final class Locale
                 _context.abort();
 
                 throw e;
+            } finally {
+                _loading = false;
+                if (!success) {
+                    // don't keep the document alive and don't reuse a reader in an unknown state
+                    postLoad(null);
+                    SystemCache cache = SystemCache.get();
+                    if (cache.getSaxLoader() == this) {
+                        cache.setSaxLoader(null);
+                    }
+                }
             }
         }
 
+        boolean isLoading() {
+            return _loading;
+        }
+
+        XMLReader getXMLReader() {
+            return _xr;
+        }
+
         public void fatalError(SAXParseException e)
             throws SAXException {
             throw e;
@@ -2590,6 +2983,8 @@ public final class Locale
         }
 
         private final XMLReader _xr;
+        private boolean _used;
+        private boolean _loading;
     }
 
     private Dom load(InputSource is, XmlOptions options)
@@ -2736,19 +3131,14 @@ public final class Locale
 
         public QName getQName(char[] uriSrc, int uriPos, int uriCch,
                               char[] localSrc, int localPos, int localCch) {
-            return
-                _cache.getName(new String(uriSrc, uriPos, uriCch),
-                    new String(localSrc, localPos, localCch),
-                    "");
+            return _cache.getName(uriSrc, uriPos, uriCch, localSrc, localPos, localCch);
         }
 
         public QName getQName(char[] uriSrc, int uriPos, int uriCch,
                               char[] localSrc, int localPos, int localCch,
                               char[] prefixSrc, int prefixPos, int prefixCch) {
-            return
-                _cache.getName(new String(uriSrc, uriPos, uriCch),
-                    new String(localSrc, localPos, localCch),
-                    new String(prefixSrc, prefixPos, prefixCch));
+            return _cache.getName(uriSrc, uriPos, uriCch, localSrc, localPos, localCch,
+                prefixSrc, prefixPos, prefixCch);
         }
     }
 
@@ -2788,8 +3178,16 @@ public final class Locale
 
     boolean _validateOnSet;
 
+    int _childIndexThreshold;
+
+    boolean _explicitCursorClose;
+
     int _posTemp;
 
+    // the attribute indexes of elements with many attributes, valid for _attrIndexVersion
+    Map<Xobj, AttrIndex> _attrIndexes;
+    long _attrIndexVersion;
+
     nthCache _nthCache_A = new nthCache();
     nthCache _nthCache_B = new nthCache();
 
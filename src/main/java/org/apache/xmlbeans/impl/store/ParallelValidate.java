@@ -0,0 +1,534 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.store;
+
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlDocumentProperties;
+import org.apache.xmlbeans.XmlError;
+import org.apache.xmlbeans.XmlLineNumber;
+import org.apache.xmlbeans.XmlRuntimeException;
+import org.apache.xmlbeans.impl.common.ValidatorListener;
+import org.apache.xmlbeans.impl.validator.Validator;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.Location;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Validates the children of the top element on a pool of threads.
+ * <p>
+ * The store can't be read concurrently, so the document is still walked by the calling
+ * thread. The events of the split elements are copied into immutable snapshots, which are
+ * replayed into the validators split off the main validator on the worker threads, while the
+ * main validator only sees the begin and end events of the split elements.
+ * <p>
+ * The results are merged in document order: the errors of the main validator and the
+ * batches are added to the error listener in the order they occur, and the IDs and IDREFs
+ * of the batches are merged into the main validator before the end event of the validated
+ * node, where the IDREFs are resolved.
+ * <p>
+ * The batches run on the executor of the caller, or else on a pool shared by all validations.
+ */
+final class ParallelValidate implements Validate.Splitter {
+    private static final int BATCH_EVENTS = 4096;
+
+    private final Validator _validator;
+    private final List<XmlError> _validatorErrors;
+    private final Collection<XmlError> _errorListener;
+    private final Executor _executor;
+    private final int _maxPending;
+    private final String _sourceName;
+
+    private final Deque<Segment> _segments = new ArrayDeque<>();
+    private int _pendingBatches;
+    private Batch _batch;
+
+    // the in-scope namespaces of the parent of the split elements
+    private Xobj _nsParent;
+    private Map<String, String> _nsInherited;
+
+    private ParallelValidate(Cur c, Validator validator, List<XmlError> validatorErrors,
+                             Collection<XmlError> errorListener, Executor executor, int parallelism) {
+        _validator = validator;
+        _validatorErrors = validatorErrors;
+        _errorListener = errorListener;
+        _executor = executor;
+        _maxPending = parallelism * 2;
+
+        XmlDocumentProperties props = Locale.getDocProps(c, false);
+        _sourceName = (props == null) ? null : props.getSourceName();
+    }
+
+    /**
+     * Validates the node at the cursor with the given validator, which reports its errors
+     * to validatorErrors. All errors are passed on to errorListener in document order.
+     * The split elements are validated by the executor, or by the shared pool if it is null.
+     */
+    static void validate(Cur c, Validator validator, List<XmlError> validatorErrors,
+                         Collection<XmlError> errorListener, int parallelism, Executor executor) {
+        if (!c.isContainer()) {
+            new Validate(c, validator);
+            addErrors(errorListener, validatorErrors);
+            return;
+        }
+
+        if (executor == null) {
+            executor = SharedPool.EXECUTOR;
+        }
+
+        ParallelValidate pv = new ParallelValidate(c, validator, validatorErrors, errorListener, executor, parallelism);
+
+        // for documents, the children of the document element are split
+        new Validate(c, validator, pv, c.isRoot() ? 2 : 1);
+
+        // the errors of the end event
+        addErrors(errorListener, validatorErrors);
+    }
+
+    public boolean split(Cur c, ValidatorListener.Event event) {
+        flushValidatorErrors();
+
+        if (_batch == null) {
+            _batch = new Batch();
+        }
+
+        Validator subtree = _validator.splitCurrentElement(event, _batch._errors);
+
+        if (subtree == null) {
+            return false;
+        }
+
+        _batch.add(new Chunk(subtree, snapshot(c, inheritedNamespaces(c._xobj._parent))));
+
+        if (_batch._eventCount >= BATCH_EVENTS) {
+            submitBatch();
+        }
+
+        return true;
+    }
+
+    public void finish(ValidatorListener.Event event) {
+        flushValidatorErrors();
+        submitBatch();
+
+        while (!_segments.isEmpty()) {
+            drainSegment();
+        }
+    }
+
+    private void flushValidatorErrors() {
+        if (!_validatorErrors.isEmpty()) {
+            List<XmlError> errors = new ArrayList<>(_validatorErrors);
+            _validatorErrors.clear();
+
+            submitBatch();
+            _segments.add(new Segment(errors, null));
+        }
+    }
+
+    private void submitBatch() {
+        if (_batch == null || _batch._chunks.isEmpty()) {
+            return;
+        }
+
+        FutureTask<Batch> task = new FutureTask<>(_batch);
+        _segments.add(new Segment(null, task));
+        _batch = null;
+
+        _executor.execute(task);
+
+        if (++_pendingBatches > _maxPending) {
+            // bound the memory of the snapshots, which are produced faster than validated
+            while (_pendingBatches > _maxPending / 2) {
+                drainSegment();
+            }
+        }
+    }
+
+    private void drainSegment() {
+        Segment segment = _segments.removeFirst();
+
+        if (segment._errors != null) {
+            addErrors(_errorListener, segment._errors);
+            return;
+        }
+
+        Batch batch;
+        try {
+            batch = segment._batch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new XmlRuntimeException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new XmlRuntimeException(cause);
+        }
+
+        _pendingBatches--;
+
+        addErrors(_errorListener, batch._errors);
+
+        for (Chunk chunk : batch._chunks) {
+            _validator.mergeSubtree(chunk._validator, chunk._events.get(0));
+        }
+
+        // duplicate IDs found by the merge
+        addErrors(_errorListener, _validatorErrors);
+        _validatorErrors.clear();
+    }
+
+    private static void addErrors(Collection<XmlError> errorListener, List<XmlError> errors) {
+        if (errorListener != null) {
+            errorListener.addAll(errors);
+        }
+    }
+
+    private Map<String, String> inheritedNamespaces(Xobj parent) {
+        if (parent != _nsParent) {
+            Map<String, String> inherited = new HashMap<>();
+
+            for (Xobj x = parent; x != null; x = x._parent) {
+                for (Xobj a = x._firstChild; a != null && a.isAttr(); a = a._nextSibling) {
+                    if (a.isXmlns()) {
+                        inherited.putIfAbsent(a.getXmlnsPrefix(), a.getXmlnsUri());
+                    }
+                }
+            }
+
+            _nsParent = parent;
+            _nsInherited = inherited;
+        }
+
+        return _nsInherited;
+    }
+
+    /**
+     * Copies the events of the element at the cursor and leaves the cursor at its end
+     */
+    private List<Snapshot> snapshot(Cur c, Map<String, String> inherited) {
+        List<Snapshot> events = new ArrayList<>();
+        List<Snapshot> open = new ArrayList<>();
+
+        Snapshot root = begin(c, null, events);
+        root._inherited = inherited;
+        root._sourceName = _sourceName;
+        open.add(root);
+
+        String text = null;
+
+        while (!open.isEmpty()) {
+            c.next();
+
+            switch (c.kind()) {
+                case Cur.ELEM:
+                    text = flushText(text, open, events);
+                    open.add(begin(c, open.get(open.size() - 1), events));
+                    break;
+
+                case -Cur.ELEM:
+                    text = flushText(text, open, events);
+                    Snapshot begin = open.remove(open.size() - 1);
+                    events.add(new Snapshot(ValidatorListener.END, begin._name, null, begin));
+                    break;
+
+                case Cur.TEXT:
+                    String s = c.getCharsAsString();
+                    text = (text == null) ? s : text + s;
+                    break;
+
+                case Cur.COMMENT:
+                case Cur.PROCINST:
+                    c.toEnd();
+                    break;
+
+                default:
+                    throw new RuntimeException("Unexpected kind: " + c.kind());
+            }
+        }
+
+        return events;
+    }
+
+    private static String flushText(String text, List<Snapshot> open, List<Snapshot> events) {
+        if (text != null) {
+            Snapshot owner = open.get(open.size() - 1);
+            events.add(new Snapshot(ValidatorListener.TEXT, owner._name, text, owner));
+        }
+        return null;
+    }
+
+    private static Snapshot begin(Cur c, Snapshot parent, List<Snapshot> events) {
+        Snapshot begin = new Snapshot(ValidatorListener.BEGIN, c.getName(), null, parent);
+
+        XmlLineNumber ln = (XmlLineNumber) c.getBookmark(XmlLineNumber.class);
+        if (ln != null) {
+            begin._line = ln.getLine();
+            begin._column = ln.getColumn();
+            begin._offset = ln.getOffset();
+        }
+
+        events.add(begin);
+
+        if (c.toFirstAttr()) {
+            List<String> nsDecls = null;
+
+            do {
+                if (c.isXmlns()) {
+                    if (nsDecls == null) {
+                        nsDecls = new ArrayList<>();
+                    }
+                    nsDecls.add(c.getXmlnsPrefix());
+                    nsDecls.add(c.getXmlnsUri());
+                } else if (c.isNormalAttr()) {
+                    QName name = c.getName();
+
+                    if (!name.getNamespaceURI().equals(Locale._xsi)) {
+                        events.add(new Snapshot(ValidatorListener.ATTR, name, c.getValueAsString(), begin));
+                    } else if (name.equals(Locale._xsiType)) {
+                        begin._xsiType = firstValue(begin._xsiType, c);
+                    } else if (name.equals(Locale._xsiNil)) {
+                        begin._xsiNil = firstValue(begin._xsiNil, c);
+                    } else if (name.equals(Locale._xsiLoc)) {
+                        begin._xsiLoc = firstValue(begin._xsiLoc, c);
+                    } else if (name.equals(Locale._xsiNoLoc)) {
+                        begin._xsiNoLoc = firstValue(begin._xsiNoLoc, c);
+                    }
+                }
+            } while (c.toNextAttr());
+
+            c.toParent();
+
+            if (nsDecls != null) {
+                begin._nsDecls = nsDecls.toArray(new String[0]);
+            }
+        }
+
+        events.add(new Snapshot(ValidatorListener.ENDATTRS, begin._name, null, begin));
+
+        return begin;
+    }
+
+    private static String firstValue(String value, Cur c) {
+        return (value != null) ? value : c.getValueAsString();
+    }
+
+    /**
+     * The pool of the validations without an executor, which is created on first use.
+     * Its threads are daemons and time out when idle.
+     */
+    private static final class SharedPool {
+        static final ExecutorService EXECUTOR;
+
+        static {
+            int threads = Runtime.getRuntime().availableProcessors();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "xmlbeans-validate");
+                    t.setDaemon(true);
+                    return t;
+                });
+            pool.allowCoreThreadTimeOut(true);
+            EXECUTOR = pool;
+        }
+    }
+
+    private static final class Segment {
+        final List<XmlError> _errors;
+        final Future<Batch> _batch;
+
+        Segment(List<XmlError> errors, Future<Batch> batch) {
+            _errors = errors;
+            _batch = batch;
+        }
+    }
+
+    private static final class Chunk {
+        final Validator _validator;
+        final List<Snapshot> _events;
+
+        Chunk(Validator validator, List<Snapshot> events) {
+            _validator = validator;
+            _events = events;
+        }
+    }
+
+    private static final class Batch implements Callable<Batch> {
+        final List<Chunk> _chunks = new ArrayList<>();
+        final List<XmlError> _errors = new ArrayList<>();
+        int _eventCount;
+
+        void add(Chunk chunk) {
+            _chunks.add(chunk);
+            _eventCount += chunk._events.size();
+        }
+
+        public Batch call() {
+            for (Chunk chunk : _chunks) {
+                for (Snapshot event : chunk._events) {
+                    chunk._validator.nextEvent(event._kind, event);
+                }
+            }
+            return this;
+        }
+    }
+
+    /**
+     * An immutable copy of a validation event, which doesn't refer to the store
+     */
+    private static final class Snapshot implements ValidatorListener.Event, Location {
+        final int _kind;
+        final QName _name;
+        final String _text;
+
+        // for begin events the begin event of the parent, otherwise the one of the element
+        final Snapshot _owner;
+
+        // begin events only
+        String[] _nsDecls;
+        String _xsiType;
+        String _xsiNil;
+        String _xsiLoc;
+        String _xsiNoLoc;
+        int _line = -1;
+        int _column = -1;
+        int _offset = -1;
+
+        // the begin event of the split element only
+        Map<String, String> _inherited;
+        String _sourceName;
+
+        Snapshot(int kind, QName name, String text, Snapshot owner) {
+            _kind = kind;
+            _name = name;
+            _text = text;
+            _owner = owner;
+        }
+
+        private Snapshot element() {
+            return (_kind == ValidatorListener.BEGIN) ? this : _owner;
+        }
+
+        public String getNamespaceForPrefix(String prefix) {
+            if (prefix == null) {
+                prefix = "";
+            }
+
+            if (prefix.equals("xml")) {
+                return Locale._xml1998Uri;
+            }
+
+            if (prefix.equals("xmlns")) {
+                return Locale._xmlnsUri;
+            }
+
+            for (Snapshot e = element(); e != null; e = e._owner) {
+                if (e._nsDecls != null) {
+                    for (int i = 0; i < e._nsDecls.length; i += 2) {
+                        if (e._nsDecls[i].equals(prefix)) {
+                            return e._nsDecls[i + 1];
+                        }
+                    }
+                }
+
+                if (e._inherited != null) {
+                    String uri = e._inherited.get(prefix);
+                    if (uri != null) {
+                        return uri;
+                    }
+                }
+            }
+
+            return prefix.length() == 0 ? "" : null;
+        }
+
+        public XmlCursor getLocationAsCursor() {
+            // the store can't be accessed from the worker threads
+            return null;
+        }
+
+        public Location getLocation() {
+            return (element()._line < 0) ? null : this;
+        }
+
+        public String getXsiType() {
+            return _xsiType;
+        }
+
+        public String getXsiNil() {
+            return _xsiNil;
+        }
+
+        public String getXsiLoc() {
+            return _xsiLoc;
+        }
+
+        public String getXsiNoLoc() {
+            return _xsiNoLoc;
+        }
+
+        public QName getName() {
+            return _name;
+        }
+
+        public String getText() {
+            return _text;
+        }
+
+        public String getText(int wsr) {
+            return Locale.applyWhiteSpaceRule(_text, wsr);
+        }
+
+        public boolean textIsWhitespace() {
+            for (int i = 0; i < _text.length(); i++) {
+                if (!CharUtil.isWhiteSpace(_text.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public int getLineNumber() {
+            return element()._line;
+        }
+
+        public int getColumnNumber() {
+            return element()._column;
+        }
+
+        public int getCharacterOffset() {
+            return element()._offset;
+        }
+
+        public String getPublicId() {
+            return null;
+        }
+
+        public String getSystemId() {
+            Snapshot e = element();
+            while (e._owner != null) {
+                e = e._owner;
+            }
+            return e._sourceName;
+        }
+    }
+}
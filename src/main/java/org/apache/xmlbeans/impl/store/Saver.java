@@ -28,6 +28,8 @@ import org.xml.sax.helpers.AttributesImpl;
 
 import javax.xml.namespace.QName;
 import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 abstract class Saver {
@@ -1697,6 +1699,20 @@ abstract class Saver {
         }
 
         public int write(Writer writer, int cchMin) {
+            try {
+                return write((buf, len) -> {
+                    writer.write(buf, 0, len);
+                    writer.flush();
+                }, cchMin);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        /**
+         * Hands at least cchMin chars, if available, from the start of the buffer to the sink
+         */
+        int write(CharSink sink, int cchMin) throws IOException {
             while (getAvailable() < cchMin) {
                 if (!process()) {
                     break;
@@ -1716,13 +1732,7 @@ abstract class Saver {
                 }
                 assert _free == _cbuf.length - _in;
 
-                try {
-//System.out.println("-------------\nWriting in converter: TextSaver.write():1703  " + charsAvailable + " chars\n" + new String(_cbuf, 0, charsAvailable));
-                    writer.write(_cbuf, 0, charsAvailable);
-                    writer.flush();
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
-                }
+                sink.write(_cbuf, charsAvailable);
 
                 _free += charsAvailable;
 
@@ -2236,49 +2246,194 @@ abstract class Saver {
         private boolean _closed;
     }
 
-    static final class InputStreamSaver extends InputStream {
+    /**
+     * @return the IANA name of the encoding the document is saved with
+     */
+    static String getSaveEncoding(Cur c, XmlOptions options) {
+        String encoding = null;
 
-        InputStreamSaver(Cur c, XmlOptions options) {
-            _locale = c._locale;
+        XmlDocumentProperties props = Locale.getDocProps(c, false);
 
-            _closed = false;
+        if (props != null && props.getEncoding() != null) {
+            encoding = EncodingMap.getIANA2JavaMapping(props.getEncoding());
+        }
 
-            assert _locale.entered();
+        String enc = options.getCharacterEncoding();
+        if (enc != null) {
+            encoding = enc;
+        }
 
-            options = XmlOptions.maskNull(options);
+        if (encoding != null) {
+            String ianaEncoding = EncodingMap.getJava2IANAMapping(encoding);
 
-            _outStreamImpl = new OutputStreamImpl();
+            if (ianaEncoding != null) {
+                encoding = ianaEncoding;
+            }
+        }
+
+        if (encoding == null) {
+            encoding = EncodingMap.getJava2IANAMapping("UTF8");
+        }
+
+        return encoding;
+    }
+
+    private static String getJavaEncoding(String encoding) {
+        String javaEncoding = (encoding == null) ? null : EncodingMap.getIANA2JavaMapping(encoding);
+
+        if (javaEncoding == null) {
+            throw new IllegalStateException("Unknown encoding: " + encoding);
+        }
+
+        return javaEncoding;
+    }
+
+    /**
+     * Receives the chars of the TextSaver buffer
+     */
+    @FunctionalInterface
+    interface CharSink {
+        void write(char[] buf, int len) throws IOException;
+    }
+
+    /**
+     * Saves to an OutputStream by encoding the chars of a TextSaver straight into a byte buffer.
+     * <p>
+     * This avoids the OutputStreamWriter and the intermediate byte queue of the {@link InputStreamSaver}
+     * for the encodings which don't need a CharsetEncoder, i.e. UTF-8, US-ASCII and ISO-8859-1.
+     * Unmappable chars and unpaired surrogates are replaced by '?' as an OutputStreamWriter does.
+     */
+    static final class OutputStreamSaver implements CharSink {
+        private static final int BUFFER_SIZE = 8192;
+        private static final int CHUNK_SIZE = 2048;
+
+        private final OutputStream _os;
+        private final boolean _utf8;
+        private final char _maxSingleByte;
+        private final byte[] _buf = new byte[BUFFER_SIZE];
+        private int _pos;
+        private char _pendingHigh;
+
+        private OutputStreamSaver(OutputStream os, boolean utf8, char maxSingleByte) {
+            _os = os;
+            _utf8 = utf8;
+            _maxSingleByte = maxSingleByte;
+        }
+
+        /**
+         * @return false, if the encoding isn't handled by this saver and the document hasn't been written
+         */
+        static boolean save(Cur c, XmlOptions options, OutputStream os) throws IOException {
+            assert c._locale.entered();
 
-            String encoding = null;
+            options = XmlOptions.maskNull(options);
 
-            XmlDocumentProperties props = Locale.getDocProps(c, false);
+            String encoding = getSaveEncoding(c, options);
+            Charset charset;
+            try {
+                charset = Charset.forName(getJavaEncoding(encoding));
+            } catch (IllegalArgumentException e) {
+                // let the InputStreamSaver report the unknown encoding
+                return false;
+            }
 
-            if (props != null && props.getEncoding() != null) {
-                encoding = EncodingMap.getIANA2JavaMapping(props.getEncoding());
+            OutputStreamSaver saver;
+            if (StandardCharsets.UTF_8.equals(charset)) {
+                saver = new OutputStreamSaver(os, true, (char) 0x7F);
+            } else if (StandardCharsets.US_ASCII.equals(charset)) {
+                saver = new OutputStreamSaver(os, false, (char) 0x7F);
+            } else if (StandardCharsets.ISO_8859_1.equals(charset)) {
+                saver = new OutputStreamSaver(os, false, (char) 0xFF);
+            } else {
+                return false;
             }
 
-            String enc = options.getCharacterEncoding();
-            if (enc != null) {
-                encoding = enc;
+            TextSaver textSaver = new TextSaver(c, options, encoding);
+            while (textSaver.write(saver, CHUNK_SIZE) >= CHUNK_SIZE) {
+                // continue until the document is written
             }
+            saver.finish();
+            return true;
+        }
 
-            if (encoding != null) {
-                String ianaEncoding = EncodingMap.getJava2IANAMapping(encoding);
+        @Override
+        public void write(char[] cbuf, int len) throws IOException {
+            final byte[] buf = _buf;
+            int pos = _pos;
 
-                if (ianaEncoding != null) {
-                    encoding = ianaEncoding;
+            for (int i = 0; i < len; i++) {
+                // the longest sequence is a replaced high surrogate followed by a 3 byte char
+                if (pos + 4 > buf.length) {
+                    _os.write(buf, 0, pos);
+                    pos = 0;
+                }
+
+                char ch = cbuf[i];
+
+                if (_pendingHigh != 0) {
+                    char high = _pendingHigh;
+                    _pendingHigh = 0;
+                    if (Character.isLowSurrogate(ch)) {
+                        if (_utf8) {
+                            int cp = Character.toCodePoint(high, ch);
+                            buf[pos++] = (byte) (0xF0 | (cp >> 18));
+                            buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                            buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                            buf[pos++] = (byte) (0x80 | (cp & 0x3F));
+                        } else {
+                            buf[pos++] = '?';
+                        }
+                        continue;
+                    }
+                    buf[pos++] = '?';
+                }
+
+                if (ch <= _maxSingleByte) {
+                    buf[pos++] = (byte) ch;
+                } else if (Character.isHighSurrogate(ch)) {
+                    _pendingHigh = ch;
+                } else if (!_utf8 || Character.isLowSurrogate(ch)) {
+                    buf[pos++] = '?';
+                } else if (ch < 0x800) {
+                    buf[pos++] = (byte) (0xC0 | (ch >> 6));
+                    buf[pos++] = (byte) (0x80 | (ch & 0x3F));
+                } else {
+                    buf[pos++] = (byte) (0xE0 | (ch >> 12));
+                    buf[pos++] = (byte) (0x80 | ((ch >> 6) & 0x3F));
+                    buf[pos++] = (byte) (0x80 | (ch & 0x3F));
                 }
             }
 
-            if (encoding == null) {
-                encoding = EncodingMap.getJava2IANAMapping("UTF8");
+            _pos = pos;
+        }
+
+        private void finish() throws IOException {
+            if (_pendingHigh != 0) {
+                _pendingHigh = 0;
+                _buf[_pos++] = '?';
+            }
+            if (_pos > 0) {
+                _os.write(_buf, 0, _pos);
+                _pos = 0;
             }
+        }
+    }
 
-            String javaEncoding = (encoding == null) ? null : EncodingMap.getIANA2JavaMapping(encoding);
+    static final class InputStreamSaver extends InputStream {
 
-            if (javaEncoding == null) {
-                throw new IllegalStateException("Unknown encoding: " + encoding);
-            }
+        InputStreamSaver(Cur c, XmlOptions options) {
+            _locale = c._locale;
+
+            _closed = false;
+
+            assert _locale.entered();
+
+            options = XmlOptions.maskNull(options);
+
+            _outStreamImpl = new OutputStreamImpl();
+
+            String encoding = getSaveEncoding(c, options);
+            String javaEncoding = getJavaEncoding(encoding);
 
             try {
                 _converter = new OutputStreamWriter(_outStreamImpl, javaEncoding);
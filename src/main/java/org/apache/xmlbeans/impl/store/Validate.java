@@ -23,10 +23,21 @@ import javax.xml.namespace.QName;
 final class Validate implements ValidatorListener.Event
 {
     Validate ( Cur c, ValidatorListener sink )
+    {
+        this( c, sink, null, -1 );
+    }
+
+    /**
+     * Offers the elements at the given depth below the validated node to the splitter,
+     * which may validate them on its own.
+     */
+    Validate ( Cur c, ValidatorListener sink, Splitter splitter, int splitDepth )
     {
         if (!c.isUserNode())
             throw new IllegalStateException( "Inappropriate location to validate" );
 
+        _splitter = splitter;
+        _splitDepth = splitDepth;
         _sink = sink;
         _cur = c;
         _textCur = c.tempCur();
@@ -71,16 +82,28 @@ final class Validate implements ValidatorListener.Event
 
             doAttrs();
 
+            int depth = 0;
+
             for ( _cur.next() ; ! _cur.isAtEndOfLastPush() ; _cur.next() )
             {
                 switch ( _cur.kind() )
                 {
                 case Cur.ELEM :
                     emitEvent( ValidatorListener.BEGIN );
-                    doAttrs();
+
+                    if (++depth == _splitDepth && _splitter.split( _cur, this ))
+                    {
+                        // The splitter left the cursor at the end of the element
+                        depth--;
+                        emitEvent( ValidatorListener.END );
+                    }
+                    else
+                        doAttrs();
+
                     break;
 
                 case - Cur.ELEM :
+                    depth--;
                     emitEvent( ValidatorListener.END );
                     break;
 
@@ -99,6 +122,9 @@ final class Validate implements ValidatorListener.Event
             }
         }
 
+        if (_splitter != null)
+            _splitter.finish( this );
+
         emitEvent( ValidatorListener.END );
     }
 
@@ -262,10 +288,27 @@ final class Validate implements ValidatorListener.Event
         return _cur.isAtLastPush() ? null : _cur.getName();
     }
 
+    interface Splitter
+    {
+        /**
+         * Called after the begin event of an element at the split depth. Returns true, if the
+         * element is validated by the splitter, in which case the cursor is left at its end.
+         */
+        boolean split ( Cur c, ValidatorListener.Event event );
+
+        /**
+         * Called before the end event of the validated node.
+         */
+        void finish ( ValidatorListener.Event event );
+    }
+
     //
     //
     //
 
+    private final Splitter _splitter;
+    private final int      _splitDepth;
+
     private ValidatorListener _sink;
 
     private Cur _cur;
@@ -24,13 +24,16 @@ import org.apache.xmlbeans.impl.values.TypeStore;
 import org.apache.xmlbeans.impl.values.TypeStoreUser;
 import org.apache.xmlbeans.impl.values.TypeStoreUserFactory;
 import org.apache.xmlbeans.impl.values.TypeStoreVisitor;
+import org.apache.xmlbeans.impl.validator.Validator;
 import org.apache.xmlbeans.impl.xpath.XPathFactory;
 
 import javax.xml.namespace.QName;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 import static org.apache.xmlbeans.impl.store.Cur.*;
@@ -565,6 +568,10 @@ abstract class Xobj implements TypeStore {
 
             QName oldName = _name;
 
+            if (isElem() && _parent != null) {
+                _parent.childrenChanged(null, null);
+            }
+
             _name = newName;
             if (this instanceof NamedNodeXobj) {
                 NamedNodeXobj me = (NamedNodeXobj) this;
@@ -719,6 +726,10 @@ abstract class Xobj implements TypeStore {
 
     final void removeXobj() {
         if (_parent != null) {
+            if (isElem()) {
+                _parent.childrenChanged(null, this);
+            }
+
             if (_parent._firstChild == this) {
                 _parent._firstChild = _nextSibling;
             }
@@ -751,6 +762,10 @@ abstract class Xobj implements TypeStore {
 
         ensureParent();
 
+        if (s.isElem()) {
+            _parent.childrenChanged(null, null);
+        }
+
         s._parent = _parent;
         s._prevSibling = _prevSibling;
         s._nextSibling = this;
@@ -773,6 +788,10 @@ abstract class Xobj implements TypeStore {
         assert c._nextSibling == null;
         assert _lastChild == null || _firstChild != null;
 
+        if (c.isElem()) {
+            childrenChanged(c, null);
+        }
+
         c._parent = this;
         c._prevSibling = _lastChild;
 
@@ -792,6 +811,8 @@ abstract class Xobj implements TypeStore {
         assert first._parent == this;
         assert last._parent == this;
 
+        childrenChanged(null, null);
+
         if (_firstChild == first) {
             _firstChild = last._nextSibling;
         }
@@ -825,6 +846,8 @@ abstract class Xobj implements TypeStore {
         assert first._prevSibling == null;
         assert last._nextSibling == null;
 
+        _parent.childrenChanged(null, null);
+
         first._prevSibling = _prevSibling;
         last._nextSibling = this;
 
@@ -849,6 +872,12 @@ abstract class Xobj implements TypeStore {
         assert last._nextSibling == null;
         assert !first.isRoot();
 
+        for (Xobj x = first; x != null; x = x._nextSibling) {
+            if (x.isElem()) {
+                childrenChanged(x, null);
+            }
+        }
+
         first._prevSibling = _lastChild;
 
         if (_lastChild == null) {
@@ -1559,7 +1588,12 @@ abstract class Xobj implements TypeStore {
     }
 
     final Xobj getAttr(QName name) {
+        int n = 0;
         for (Xobj x = _firstChild; x != null && x.isAttr(); x = x._nextSibling) {
+            if (++n > AttrIndex.THRESHOLD) {
+                return AttrIndex.forElement(this).find(name);
+            }
+
             if (x._name.equals(name)) {
                 return x;
             }
@@ -1731,6 +1765,24 @@ abstract class Xobj implements TypeStore {
         }
     }
 
+    public CharSequence fetch_chars(int wsr) {
+        _locale.enter();
+
+        try {
+            assert isValid() && isOccupied();
+
+            if (hasChildren()) {
+                return getValueAsString(wsr);
+            }
+
+            Object src = getFirstChars();
+
+            return Locale.getScrubBuffer(wsr).scrubToChars(src, _locale._offSrc, _locale._cchSrc);
+        } finally {
+            _locale.exit();
+        }
+    }
+
     public XmlCursor new_cursor() {
         _locale.enter();
 
@@ -1789,6 +1841,19 @@ abstract class Xobj implements TypeStore {
         }
     }
 
+    public void validate_parallel(Validator validator, List<XmlError> validatorErrors,
+                                  Collection<XmlError> errorListener, int parallelism, Executor executor) {
+        _locale.enter();
+
+        try {
+            Cur c = tempCur();
+            ParallelValidate.validate(c, validator, validatorErrors, errorListener, parallelism, executor);
+            c.release();
+        } finally {
+            _locale.exit();
+        }
+    }
+
     public TypeStoreUser change_type(SchemaType type) {
         _locale.enter();
 
@@ -1962,7 +2027,68 @@ abstract class Xobj implements TypeStore {
         return _locale.count(this, null, names);
     }
 
+    /**
+     * @return the name index of the element children, if this container has at least as many
+     * element children as configured by the child index threshold of the locale, otherwise {@code null}
+     */
+    final ChildIndex childIndex() {
+        int threshold = _locale._childIndexThreshold;
+        if (threshold <= 0) {
+            return null;
+        }
+
+        ChildIndex ci = _childIndex;
+        if (ci != null) {
+            if (ci.isIndex()) {
+                return ci;
+            }
+            if (ci == ChildIndex.NARROW) {
+                return null;
+            }
+            if (ci == ChildIndex.STALE) {
+                _childIndex = ChildIndex.PENDING;
+                return null;
+            }
+        }
+
+        int n = 0;
+        for (Xobj x = _firstChild; x != null; x = x._nextSibling) {
+            if (x.isElem() && ++n >= threshold) {
+                _childIndex = ci = new ChildIndex(this);
+                return ci;
+            }
+        }
+
+        _childIndex = ChildIndex.NARROW;
+        return null;
+    }
+
+    /**
+     * Updates the child index of this container after a structural change of its children
+     *
+     * @param added   the element child, which was appended as last child, otherwise null
+     * @param removed the element child, which was removed, otherwise null
+     */
+    private void childrenChanged(Xobj added, Xobj removed) {
+        ChildIndex ci = _childIndex;
+        if (ci == null) {
+            return;
+        }
+        // a removal would have to search the list of the name, so it invalidates the index
+        if (ci.isIndex() && added != null) {
+            ci.append(added);
+        } else if (ci != ChildIndex.NARROW || added != null || removed == null) {
+            _childIndex = ci.invalidate();
+        }
+    }
+
     public TypeStoreUser find_element_user(QName name, int i) {
+        ChildIndex ci = childIndex();
+        if (ci != null) {
+            Xobj x = ci.find(name, i);
+            return x == null ? null : x.getUser();
+        }
+
         for (Xobj x = _firstChild; x != null; x = x._nextSibling) {
             if (x.isElem() && x._name.equals(name) && --i < 0) {
                 return x.getUser();
@@ -1985,6 +2111,14 @@ abstract class Xobj implements TypeStore {
     @SuppressWarnings("unchecked")
     @Override
     public <T extends XmlObject> void find_all_element_users(QName name, List<T> fillMeUp) {
+        ChildIndex ci = childIndex();
+        if (ci != null) {
+            for (Xobj x : ci.findAll(name)) {
+                fillMeUp.add((T) x.getUser());
+            }
+            return;
+        }
+
         for (Xobj x = _firstChild; x != null; x = x._nextSibling) {
             if (x.isElem() && x._name.equals(name)) {
                 fillMeUp.add((T) x.getUser());
@@ -2002,6 +2136,35 @@ abstract class Xobj implements TypeStore {
         }
     }
 
+    public void visit_element_values(QName name, int wsr, ElementValueVisitor visitor) {
+        ChildIndex ci = childIndex();
+        if (ci != null) {
+            for (Xobj x : ci.findAll(name)) {
+                visitElementValue(x, wsr, visitor);
+            }
+            return;
+        }
+
+        for (Xobj x = _firstChild; x != null; x = x._nextSibling) {
+            if (x.isElem() && x._name.equals(name)) {
+                visitElementValue(x, wsr, visitor);
+            }
+        }
+    }
+
+    private static void visitElementValue(Xobj x, int wsr, ElementValueVisitor visitor) {
+        // a user may hold a newer value than the text and attributes may be xsi:type or xsi:nil
+        if (x._user == null && x._firstChild == null) {
+            Object src = x.getFirstChars();
+            Locale l = x._locale;
+            if (visitor.chars(Locale.getScrubBuffer(wsr).scrubToChars(src, l._offSrc, l._cchSrc))) {
+                return;
+            }
+        }
+
+        visitor.user(x.getUser());
+    }
+
     private static TypeStoreUser insertElement(QName name, Xobj x, int pos) {
         x._locale.enter();
 
@@ -2121,9 +2284,14 @@ abstract class Xobj implements TypeStore {
 
         Xobj x;
 
-        for (x = _firstChild; x != null; x = x._nextSibling) {
-            if (x.isElem() && x._name.equals(name) && --i < 0) {
-                break;
+        ChildIndex ci = childIndex();
+        if (ci != null) {
+            x = ci.find(name, i);
+        } else {
+            for (x = _firstChild; x != null; x = x._nextSibling) {
+                if (x.isElem() && x._name.equals(name) && --i < 0) {
+                    break;
+                }
             }
         }
 
@@ -2434,4 +2602,6 @@ abstract class Xobj implements TypeStore {
 
     // TODO - put this in a ptr off this node
     TypeStoreUser _user;
+
+    ChildIndex _childIndex;
 }
@@ -29,6 +29,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import javax.tools.*;
 
 public class CodeGenUtil {
     public static final String DEFAULT_MEM_START = "8m";
@@ -236,6 +238,135 @@ public class CodeGenUtil {
         return true;
     }
 
+    /**
+     * Compiles the given sources in-process with the system java compiler of the running JVM.
+     * The sources are read from memory and the compiled classes are handed back in memory,
+     * so no temporary files are written or read.
+     *
+     * @param sources     the sources by their fully qualified class name
+     * @param srcFiles    additional source files or directories, may be null
+     * @param cp          the classpath, if null the classpath of the running JVM is used
+     * @param genver      the java version of the generated classes, defaults to 1.8
+     * @param classOutput receives the compiled classes by their relative path, e.g. {@code a/b/C$D.class}
+     * @return true, if the compilation succeeded
+     */
+    public static boolean internalCompile(Map<String, String> sources, List<File> srcFiles, File[] cp, boolean debug,
+                                          String genver, boolean quiet, boolean verbose, Map<String, byte[]> classOutput) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            System.err.println("No system java compiler available - the in-process compilation needs a JDK");
+            return false;
+        }
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager stdManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            stdManager.setLocation(StandardLocation.CLASS_PATH, Arrays.asList(cp == null ? systemClasspath() : cp));
+
+            List<JavaFileObject> units = new ArrayList<>(sources.size());
+            for (Map.Entry<String, String> me : sources.entrySet()) {
+                units.add(new MemorySource(me.getKey(), me.getValue()));
+            }
+            if (srcFiles != null) {
+                List<File> files = new ArrayList<>();
+                collectJavaFiles(srcFiles, files);
+                for (JavaFileObject jfo : stdManager.getJavaFileObjectsFromFiles(files)) {
+                    units.add(jfo);
+                }
+            }
+
+            List<String> args = new ArrayList<>();
+            if (genver == null) {
+                genver = "1.8";
+            }
+            if (compiler.isSupportedOption("--release") >= 0) {
+                args.add("--release");
+                args.add(genver.startsWith("1.") ? genver.substring(2) : genver);
+            } else {
+                args.add("-source");
+                args.add(genver);
+                args.add("-target");
+                args.add(genver);
+            }
+            args.add(debug ? "-g" : "-g:none");
+            args.add("-proc:none");
+            if (verbose) {
+                args.add("-verbose");
+            }
+
+            JavaFileManager fileManager = new ForwardingJavaFileManager<JavaFileManager>(stdManager) {
+                @Override
+                public JavaFileObject getJavaFileForOutput(Location location, String className,
+                                                           JavaFileObject.Kind kind, FileObject sibling) {
+                    return new MemoryClass(className, kind, classOutput);
+                }
+            };
+
+            boolean success = compiler.getTask(null, fileManager, diagnostics, args, null, units).call();
+
+            for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+                if (d.getKind() == Diagnostic.Kind.ERROR) {
+                    System.err.println(d);
+                } else if (verbose || (!quiet && !success)) {
+                    System.out.println(d);
+                }
+            }
+            return success;
+        } catch (IOException e) {
+            System.err.println(e.toString());
+            return false;
+        }
+    }
+
+    private static void collectJavaFiles(List<File> srcFiles, List<File> result) {
+        for (File f : srcFiles) {
+            if (f.isDirectory()) {
+                File[] files = f.listFiles(
+                    file -> (file.isFile() && file.getName().endsWith(".java")) || file.isDirectory()
+                );
+                if (files != null) {
+                    collectJavaFiles(Arrays.asList(files), result);
+                }
+            } else {
+                result.add(f);
+            }
+        }
+    }
+
+    private static class MemorySource extends SimpleJavaFileObject {
+        private final String source;
+
+        MemorySource(String className, String source) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+
+    private static class MemoryClass extends SimpleJavaFileObject {
+        private final String path;
+        private final Map<String, byte[]> classOutput;
+
+        MemoryClass(String className, Kind kind, Map<String, byte[]> classOutput) {
+            super(URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind);
+            this.path = className.replace('.', '/') + kind.extension;
+            this.classOutput = classOutput;
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return new ByteArrayOutputStream() {
+                @Override
+                public void close() {
+                    classOutput.put(path, toByteArray());
+                }
+            };
+        }
+    }
+
     public static File[] systemClasspath() {
         List<File> cp = new ArrayList<>();
         CodeSource cs = CodeGenUtil.class.getProtectionDomain().getCodeSource();
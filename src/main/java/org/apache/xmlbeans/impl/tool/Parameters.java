@@ -55,6 +55,9 @@ public class Parameters {
     private boolean debug;
     private boolean copyAnn;
     private boolean incrementalSrcGen;
+    private boolean inMemoryCompile;
+    private int parallelism = 1;
+    private boolean xsbPack;
     private String repackage;
     private List<Extension> extensions = Collections.emptyList();
     private Set<String> mdefNamespaces = Collections.emptySet();
@@ -231,6 +234,42 @@ public class Parameters {
         this.incrementalSrcGen = incrSrcGen;
     }
 
+    public boolean isInMemoryCompile() {
+        return inMemoryCompile;
+    }
+
+    /**
+     * Compile the generated sources with the system java compiler inside of the running JVM
+     * and keep the generated sources and classes in memory until the output is written.
+     * The classes are written to the classes directory, if no output jar is given or
+     * if schema compiler extensions are registered.
+     */
+    public void setInMemoryCompile(boolean inMemoryCompile) {
+        this.inMemoryCompile = inMemoryCompile;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * The number of threads used for checking the schemas and generating the sources
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public boolean isXsbPack() {
+        return xsbPack;
+    }
+
+    /**
+     * Save the compiled schema components as a single xsb pack instead of separate .xsb files
+     */
+    public void setXsbPack(boolean xsbPack) {
+        this.xsbPack = xsbPack;
+    }
+
     public boolean isDebug() {
         return debug;
     }
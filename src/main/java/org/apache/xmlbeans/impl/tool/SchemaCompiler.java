@@ -22,6 +22,7 @@ import org.apache.xmlbeans.impl.config.BindingConfigImpl;
 import org.apache.xmlbeans.impl.repackage.Repackager;
 import org.apache.xmlbeans.impl.schema.*;
 import org.apache.xmlbeans.impl.util.FilerImpl;
+import org.apache.xmlbeans.impl.util.MemoryFiler;
 import org.apache.xmlbeans.impl.values.XmlListImpl;
 import org.apache.xmlbeans.impl.xb.xmlconfig.ConfigDocument;
 import org.apache.xmlbeans.impl.xb.xmlconfig.Extensionconfig;
@@ -34,6 +35,7 @@ import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URI;
 import java.net.URL;
+import java.nio.file.Files;
 import java.util.*;
 
 public class SchemaCompiler {
@@ -57,6 +59,9 @@ public class SchemaCompiler {
         System.out.println("    -ms - initial memory for external java compiler (default '" + CodeGenUtil.DEFAULT_MEM_START + "')");
         System.out.println("    -mx - maximum memory for external java compiler (default '" + CodeGenUtil.DEFAULT_MEM_MAX + "')");
         System.out.println("    -debug - compile with debug symbols");
+        System.out.println("    -inmemory - compile with the java compiler of the running JDK without writing the sources to disk (not with -compiler, -ms or -mx)");
+        System.out.println("    -xsbpack - save the compiled schema components as a single memory-mappable index.xsbpack");
+        System.out.println("    -parallel n - number of threads for checking schemas and generating sources (default 1)");
         System.out.println("    -quiet - print fewer informational messages");
         System.out.println("    -verbose - print more informational messages");
         System.out.println("    -version - prints version information");
@@ -98,6 +103,8 @@ public class SchemaCompiler {
         flags.add("noext");
         flags.add("srconly");
         flags.add("debug");
+        flags.add("inmemory");
+        flags.add("xsbpack");
 
         Set<String> opts = new HashSet<>();
         opts.add("out");
@@ -117,6 +124,7 @@ public class SchemaCompiler {
         opts.add("catalog");
         opts.add("partialMethods");
         opts.add("copyann");
+        opts.add("parallel");
 
         CommandLine cl = new CommandLine(args, flags, opts);
 
@@ -186,6 +194,19 @@ public class SchemaCompiler {
         boolean nojavac = (cl.getOpt("srconly") != null);
         boolean debug = (cl.getOpt("debug") != null);
         boolean copyAnn = (cl.getOpt("copyann") != null);
+        boolean inMemory = (cl.getOpt("inmemory") != null);
+        boolean xsbPack = (cl.getOpt("xsbpack") != null);
+
+        int parallelism = 1;
+        if (cl.getOpt("parallel") != null) {
+            try {
+                parallelism = Integer.parseInt(cl.getOpt("parallel"));
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid number of threads for -parallel: " + cl.getOpt("parallel"));
+                System.exit(1);
+                return;
+            }
+        }
 
         String allowmdef = cl.getOpt("allowmdef");
         Set<String> mdefNamespaces = (allowmdef == null ? Collections.emptySet() :
@@ -289,6 +310,13 @@ public class SchemaCompiler {
         String memoryInitialSize = cl.getOpt("ms");
         String memoryMaximumSize = cl.getOpt("mx");
 
+        if (inMemory && !nojavac && (compiler != null || memoryInitialSize != null || memoryMaximumSize != null)) {
+            // the in-memory compilation runs inside this JVM, so there is no external compiler to configure
+            System.out.println("The options -compiler, -ms and -mx can't be combined with -inmemory.");
+            System.exit(1);
+            return;
+        }
+
         File[] xsdFiles = cl.filesEndingWith(".xsd");
         File[] wsdlFiles = cl.filesEndingWith(".wsdl");
         File[] javaFiles = cl.filesEndingWith(".java");
@@ -341,6 +369,9 @@ public class SchemaCompiler {
         params.setSchemaCodePrinter(codePrinter);
         params.setPartialMethods(parsePartialMethods(partialMethods));
         params.setCopyAnn(copyAnn);
+        params.setInMemoryCompile(inMemory);
+        params.setParallelism(parallelism);
+        params.setXsbPack(xsbPack);
         boolean result = compile(params);
 
         if (tempdir != null) {
@@ -358,7 +389,8 @@ public class SchemaCompiler {
                                                    File[] javaFiles, ResourceLoader cpResourceLoader,
                                                    boolean download, boolean noUpa, boolean noPvr, boolean noAnn, boolean noVDoc, boolean noExt,
                                                    Set<String> mdefNamespaces, File baseDir, Map<String, String> sourcesToCopyMap,
-                                                   Collection<XmlError> outerErrorListener, File schemasDir, EntityResolver entResolver, File[] classpath) {
+                                                   Collection<XmlError> outerErrorListener, File schemasDir, EntityResolver entResolver, File[] classpath,
+                                                   int parallelism, boolean xsbPack) {
         XmlErrorWatcher errorListener = new XmlErrorWatcher(outerErrorListener);
 
         // construct the state (have to initialize early in case of errors)
@@ -525,6 +557,8 @@ public class SchemaCompiler {
                 opts.setCompileMdefNamespaces(mdefNamespaces);
             }
             opts.setCompileNoValidation(); // already validated here
+            opts.setCompileParallelism(parallelism);
+            opts.setCompileXsbPack(xsbPack);
             opts.setEntityResolver(entResolver);
 
             // now pass it to the main compile function
@@ -595,16 +629,10 @@ public class SchemaCompiler {
         File[] javaFiles = params.getJavaFiles();
         File[] configFiles = params.getConfigFiles();
         File[] classpath = params.getClasspath();
-        File outputJar = params.getOutputJar();
         String name = params.getName();
         File srcDir = params.getSrcDir();
         File classesDir = params.getClassesDir();
-        String compiler = params.getCompiler();
-        String memoryInitialSize = params.getMemoryInitialSize();
-        String memoryMaximumSize = params.getMemoryMaximumSize();
         boolean nojavac = params.isNojavac();
-        boolean debug = params.isDebug();
-        boolean verbose = params.isVerbose();
         boolean quiet = params.isQuiet();
         boolean download = params.isDownload();
         boolean noUpa = params.isNoUpa();
@@ -614,7 +642,14 @@ public class SchemaCompiler {
         boolean noExt = params.isNoExt();
         boolean incrSrcGen = params.isIncrementalSrcGen();
         boolean copyAnn = params.isCopyAnn();
+        boolean inMemory = params.isInMemoryCompile() && !nojavac && !incrSrcGen;
+        int parallelism = params.getParallelism();
         Collection<XmlError> outerErrorListener = params.getErrorListener();
+
+        if (inMemory && !quiet && (params.getCompiler() != null ||
+            params.getMemoryInitialSize() != null || params.getMemoryMaximumSize() != null)) {
+            System.out.println("The in-memory compilation ignores the compiler and memory settings of the external compiler.");
+        }
         Set<BeanMethod> partialMethods = params.getPartialMethods();
 
         String repackage = params.getRepackage();
@@ -667,7 +702,7 @@ public class SchemaCompiler {
         XmlErrorWatcher errorListener = new XmlErrorWatcher(outerErrorListener);
         SchemaTypeSystem system = loadTypeSystem(name, xsdFiles, wsdlFiles, urlFiles, configFiles,
             javaFiles, cpResourceLoader, download, noUpa, noPvr, noAnn, noVDoc, noExt, mdefNamespaces,
-            baseDir, sourcesToCopyMap, errorListener, schemasDir, cmdLineEntRes, classpath);
+            baseDir, sourcesToCopyMap, errorListener, schemasDir, cmdLineEntRes, classpath, parallelism, params.isXsbPack());
         if (errorListener.hasError()) {
             result = false;
         }
@@ -681,10 +716,6 @@ public class SchemaCompiler {
         {
             start = System.currentTimeMillis();
 
-            // filer implementation writes binary .xsd and generated source to disk
-            Repackager repackager = (repackage == null ? null : new Repackager(repackage));
-            FilerImpl filer = new FilerImpl(classesDir, srcDir, repackager, verbose, incrSrcGen);
-
             // currently just for schemaCodePrinter
             XmlOptions options = new XmlOptions();
             if (codePrinter != null) {
@@ -693,71 +724,154 @@ public class SchemaCompiler {
             options.setCompilePartialMethod(partialMethods);
             options.setCompileNoAnnotations(noAnn);
             options.setCompileAnnotationAsJavadoc(copyAnn);
+            options.setCompileParallelism(parallelism);
+
+            Repackager repackager = (repackage == null ? null : new Repackager(repackage));
+            if (inMemory) {
+                // schema compiler extensions expect the compiled classes in the classes directory
+                boolean writeClasses = extensions != null && !extensions.isEmpty();
+                result = compileInMemory(system, repackager, options, params, writeClasses, start);
+            } else {
+                result = compileOnDisk(system, repackager, options, params, start);
+            }
+        }
+
+        if (!result && !quiet) {
+            System.out.println("BUILD FAILED");
+        } else {
+            // call schema compiler extension if registered
+            runExtensions(extensions, system, classesDir);
+        }
+
+        if (cpResourceLoader != null) {
+            cpResourceLoader.close();
+        }
+        return result;
+    }
+
+    private static boolean compileOnDisk(SchemaTypeSystem system, Repackager repackager, XmlOptions options,
+                                         Parameters params, long start) {
+        File srcDir = params.getSrcDir();
+        File classesDir = params.getClassesDir();
+        File[] javaFiles = params.getJavaFiles();
+        File outputJar = params.getOutputJar();
+        boolean quiet = params.isQuiet();
+        boolean incrSrcGen = params.isIncrementalSrcGen();
 
-            // save .xsb files
-            system.save(filer);
+        // filer implementation writes binary .xsd and generated source to disk
+        FilerImpl filer = new FilerImpl(classesDir, srcDir, repackager, params.isVerbose(), incrSrcGen);
 
-            // gen source files
-            result = SchemaTypeSystemCompiler.generateTypes(system, filer, options);
+        // save .xsb files
+        system.save(filer);
 
-            if (incrSrcGen) {
-                // We have to delete extra source files that may be out of date
-                SchemaCodeGenerator.deleteObsoleteFiles(srcDir, srcDir,
-                    new HashSet<>(filer.getSourceFiles()));
-            }
+        // gen source files
+        boolean result = SchemaTypeSystemCompiler.generateTypes(system, filer, options);
 
-            if (result) {
-                finish = System.currentTimeMillis();
-                if (!quiet) {
-                    System.out.println("Time to generate code: " + ((double) (finish - start) / 1000.0) + " seconds");
-                }
+        if (incrSrcGen) {
+            // We have to delete extra source files that may be out of date
+            SchemaCodeGenerator.deleteObsoleteFiles(srcDir, srcDir,
+                new HashSet<>(filer.getSourceFiles()));
+        }
+
+        if (result) {
+            long finish = System.currentTimeMillis();
+            if (!quiet) {
+                System.out.println("Time to generate code: " + ((double) (finish - start) / 1000.0) + " seconds");
             }
+        }
+
+        // compile source
+        if (result && !params.isNojavac()) {
+            start = System.currentTimeMillis();
+
+            List<File> sourcefiles = filer.getSourceFiles();
 
-            // compile source
-            if (result && !nojavac) {
-                start = System.currentTimeMillis();
+            if (javaFiles != null) {
+                sourcefiles.addAll(java.util.Arrays.asList(javaFiles));
+            }
+            if (!CodeGenUtil.externalCompile(sourcefiles, classesDir, params.getClasspath(), params.isDebug(),
+                params.getCompiler(), params.getMemoryInitialSize(), params.getMemoryMaximumSize(), quiet, params.isVerbose())) {
+                result = false;
+            }
 
-                List<File> sourcefiles = filer.getSourceFiles();
+            long finish = System.currentTimeMillis();
+            if (result && !quiet) {
+                System.out.println("Time to compile code: " + ((double) (finish - start) / 1000.0) + " seconds");
+            }
 
-                if (javaFiles != null) {
-                    sourcefiles.addAll(java.util.Arrays.asList(javaFiles));
-                }
-                if (!CodeGenUtil.externalCompile(sourcefiles, classesDir, classpath, debug, compiler, memoryInitialSize, memoryMaximumSize, quiet, verbose)) {
+            // jar classes and .xsb
+            if (result && outputJar != null) {
+                try {
+                    new JarHelper().jarDir(classesDir, outputJar);
+                } catch (IOException e) {
+                    System.err.println("IO Error " + e);
                     result = false;
                 }
 
-                finish = System.currentTimeMillis();
-                if (result && !params.isQuiet()) {
-                    System.out.println("Time to compile code: " + ((double) (finish - start) / 1000.0) + " seconds");
+                if (result && !quiet) {
+                    System.out.println("Compiled types to: " + outputJar);
                 }
+            }
+        }
+        return result;
+    }
 
-                // jar classes and .xsb
-                if (result && outputJar != null) {
-                    try {
-                        new JarHelper().jarDir(classesDir, outputJar);
-                    } catch (IOException e) {
-                        System.err.println("IO Error " + e);
-                        result = false;
-                    }
+    private static boolean compileInMemory(SchemaTypeSystem system, Repackager repackager, XmlOptions options,
+                                           Parameters params, boolean writeClasses, long start) {
+        File classesDir = params.getClassesDir();
+        File[] javaFiles = params.getJavaFiles();
+        File outputJar = params.getOutputJar();
+        boolean quiet = params.isQuiet();
 
-                    if (result && !params.isQuiet()) {
-                        System.out.println("Compiled types to: " + outputJar);
-                    }
-                }
-            }
+        // the .xsb files and the generated sources are kept in memory
+        MemoryFiler filer = new MemoryFiler(repackager);
+        system.save(filer);
+
+        if (!SchemaTypeSystemCompiler.generateTypes(system, filer, options)) {
+            return false;
         }
 
-        if (!result && !quiet) {
-            System.out.println("BUILD FAILED");
-        } else {
-            // call schema compiler extension if registered
-            runExtensions(extensions, system, classesDir);
+        long finish = System.currentTimeMillis();
+        if (!quiet) {
+            System.out.println("Time to generate code: " + ((double) (finish - start) / 1000.0) + " seconds");
         }
 
-        if (cpResourceLoader != null) {
-            cpResourceLoader.close();
+        start = System.currentTimeMillis();
+
+        // compiler, memoryInitialSize and memoryMaximumSize only apply to the external compiler - the
+        // source/target level is left to the same default as the one of compileOnDisk
+        Map<String, byte[]> output = new LinkedHashMap<>(filer.getBinaryFiles());
+        if (!CodeGenUtil.internalCompile(filer.getSourceFiles(), javaFiles == null ? null : Arrays.asList(javaFiles),
+            params.getClasspath(), params.isDebug(), null, quiet, params.isVerbose(), output)) {
+            return false;
         }
-        return result;
+
+        finish = System.currentTimeMillis();
+        if (!quiet) {
+            System.out.println("Time to compile code: " + ((double) (finish - start) / 1000.0) + " seconds");
+        }
+
+        try {
+            if (outputJar != null) {
+                // the classes directory only contains the copies of the schema sources
+                new JarHelper().jarDir(classesDir, output, outputJar);
+            }
+            if (outputJar == null || writeClasses) {
+                for (Map.Entry<String, byte[]> me : output.entrySet()) {
+                    File file = new File(classesDir, me.getKey());
+                    IOUtil.createDir(file.getParentFile(), null);
+                    Files.write(file.toPath(), me.getValue());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("IO Error " + e);
+            return false;
+        }
+
+        if (!quiet) {
+            System.out.println("Compiled types to: " + (outputJar != null ? outputJar : classesDir));
+        }
+        return true;
     }
 
     static Set<BeanMethod> parsePartialMethods(String partialMethods) {
@@ -24,6 +24,7 @@ import org.apache.xmlbeans.soap.SOAPArrayType;
 import javax.xml.namespace.QName;
 import java.io.*;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.*;
@@ -36,7 +37,7 @@ public class XsbDumper {
         System.out.println("An XSB file contains schema meta information needed to ");
         System.out.println("perform tasks such as binding and validation.");
         System.out.println("Usage: dumpxsb myfile.xsb");
-        System.out.println("    myfile.xsb - Path to an XSB file.");
+        System.out.println("    myfile.xsb - Path to an XSB file, an index.xsbpack or a component.xsbindex.");
         System.out.println();
     }
 
@@ -55,7 +56,7 @@ public class XsbDumper {
     private static void dump(File file, boolean force) {
         if (file.isDirectory()) {
             File[] files = file.listFiles(
-                file1 -> file1.isDirectory() || file1.isFile() && file1.getName().endsWith(".xsb")
+                file1 -> file1.isDirectory() || file1.isFile() && isXsbFile(file1.getName())
             );
             if (files != null) {
                 for (File value : files) {
@@ -64,7 +65,7 @@ public class XsbDumper {
             }
         } else if (file.getName().endsWith(".jar") || file.getName().endsWith(".zip")) {
             dumpZip(file);
-        } else if (force || file.getName().endsWith(".xsb")) {
+        } else if (force || isXsbFile(file.getName())) {
             try {
                 System.out.println(file.toString());
                 dump(Files.newInputStream(file.toPath()), "  ");
@@ -80,7 +81,7 @@ public class XsbDumper {
             Enumeration<? extends ZipEntry> e = zipFile.entries();
             while (e.hasMoreElements()) {
                 ZipEntry entry = e.nextElement();
-                if (entry.getName().endsWith(".xsb")) {
+                if (isXsbFile(entry.getName())) {
                     System.out.println(entry.getName());
                     dump(zipFile.getInputStream(entry), "  ");
                     System.out.println();
@@ -91,6 +92,10 @@ public class XsbDumper {
         }
     }
 
+    private static boolean isXsbFile(String name) {
+        return name.endsWith(".xsb") || name.endsWith(".xsbpack") || name.endsWith(".xsbindex");
+    }
+
     public static void dump(InputStream input) {
         dump(input, "", System.out);
     }
@@ -153,6 +158,13 @@ public class XsbDumper {
     public static final int FILETYPE_SCHEMAPOINTER = 5;
     public static final int FILETYPE_SCHEMAMODELGROUP = 6;
     public static final int FILETYPE_SCHEMAATTRIBUTEGROUP = 7;
+    public static final int FILETYPE_SCHEMAIDENTITYCONSTRAINT = 8;
+    public static final int FILETYPE_SCHEMAPACK = 9;
+    public static final int FILETYPE_COMPONENTINDEX = 10;
+
+    // the size of the header of a pack, which is included in its offsets
+    private static final int PACK_HEADER_SIZE = 12;
+    private static final int PACK_ENTRY_SIZE = 14;
 
     static String filetypeString(int code) {
         switch (code) {
@@ -170,6 +182,12 @@ public class XsbDumper {
                 return "FILETYPE_SCHEMAMODELGROUP";
             case FILETYPE_SCHEMAATTRIBUTEGROUP:
                 return "FILETYPE_SCHEMAATTRIBUTEGROUP";
+            case FILETYPE_SCHEMAIDENTITYCONSTRAINT:
+                return "FILETYPE_SCHEMAIDENTITYCONSTRAINT";
+            case FILETYPE_SCHEMAPACK:
+                return "FILETYPE_SCHEMAPACK";
+            case FILETYPE_COMPONENTINDEX:
+                return "FILETYPE_COMPONENTINDEX";
             default:
                 return "Unknown FILETYPE (" + code + ")";
         }
@@ -353,7 +371,10 @@ public class XsbDumper {
     }
 
     void dumpAll() {
-        int filetype = dumpHeader();
+        dumpComponent(dumpHeader());
+    }
+
+    void dumpComponent(int filetype) {
         switch (filetype) {
             case FILETYPE_SCHEMAINDEX:
                 dumpIndexData();
@@ -376,6 +397,12 @@ public class XsbDumper {
             case FILETYPE_SCHEMAATTRIBUTEGROUP:
                 dumpAttributeGroupData();
                 break;
+            case FILETYPE_SCHEMAPACK:
+                dumpPackData();
+                break;
+            case FILETYPE_COMPONENTINDEX:
+                dumpComponentIndexData();
+                break;
         }
         readEnd();
     }
@@ -411,6 +438,11 @@ public class XsbDumper {
         int actualfiletype = readShort();
         emit("Filetype: " + filetypeString(actualfiletype));
 
+        if (actualfiletype == FILETYPE_SCHEMAPACK || actualfiletype == FILETYPE_COMPONENTINDEX) {
+            // packs share one string pool between the components and indexes don't have one
+            return actualfiletype;
+        }
+
         _stringPool = new StringPool();
         _stringPool.readFrom(_input);
 
@@ -421,6 +453,72 @@ public class XsbDumper {
         emit("Type system: " + readString());
     }
 
+    void dumpComponentIndexData() {
+        try {
+            emit("Type system: " + _input.readUTF());
+            int size = _input.readInt();
+            emit("Pointers (" + size + "):");
+            indent();
+            for (int i = 0; i < size; i++) {
+                emit(_input.readUTF());
+            }
+            outdent();
+        } catch (IOException e) {
+            error(e);
+        }
+    }
+
+    void dumpPackData() {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        try {
+            for (int len; (len = _input.read(buf)) != -1; ) {
+                bos.write(buf, 0, len);
+            }
+        } catch (IOException e) {
+            error(e);
+        }
+        // the offsets in the pack are relative to the start of the file including the header
+        byte[] data = bos.toByteArray();
+        ByteBuffer pack = ByteBuffer.wrap(data);
+
+        int count = pack.getInt(0);
+        int stringStart = 4 + count * PACK_ENTRY_SIZE;
+        int stringCount = pack.getInt(stringStart);
+        emit("String pool (" + stringCount + "):");
+        indent();
+        _stringPool = new StringPool();
+        for (int code = 1; code < stringCount; code++) {
+            int offset = pack.getInt(stringStart + code * 4) - PACK_HEADER_SIZE;
+            try {
+                String str = new LongUTFDataInputStream(new ByteArrayInputStream(data, offset, data.length - offset)).readLongUTF();
+                _stringPool.codeForString(str);
+                emit(code + " = \"" + str + "\"");
+            } catch (IOException e) {
+                error(e);
+            }
+        }
+        outdent();
+
+        emit("Components (" + count + "):");
+        indent();
+        for (int i = 0; i < count; i++) {
+            int pos = 4 + i * PACK_ENTRY_SIZE;
+            int filetype = pack.getShort(pos + 4) & 0xFFFF;
+            int offset = pack.getInt(pos + 6) - PACK_HEADER_SIZE;
+            emit(_stringPool.stringForCode(pack.getInt(pos)) + " (" + filetypeString(filetype) + ")");
+            indent();
+            XsbDumper dumper = new XsbDumper(new ByteArrayInputStream(data, offset, pack.getInt(pos + 10)), _indent, _out);
+            dumper._majorver = _majorver;
+            dumper._minorver = _minorver;
+            dumper._releaseno = _releaseno;
+            dumper._stringPool = _stringPool;
+            dumper.dumpComponent(filetype);
+            outdent();
+        }
+        outdent();
+    }
+
     protected void dumpIndexData() {
         // has a handle pool (count, handle/type, handle/type...)
         int size = readShort();
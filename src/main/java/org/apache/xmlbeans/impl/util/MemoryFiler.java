@@ -0,0 +1,104 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.util;
+
+import org.apache.xmlbeans.Filer;
+import org.apache.xmlbeans.impl.repackage.Repackager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This implementation of Filer keeps the binary files and the generated sources in memory,
+ * e.g. to compile them in-process and to write them directly into a jar.
+ */
+public class MemoryFiler implements Filer {
+    private final Repackager repackager;
+    private final Map<String, byte[]> binaryFiles = new LinkedHashMap<>();
+    private final Map<String, String> sourceFiles = new LinkedHashMap<>();
+
+    public MemoryFiler(Repackager repackager) {
+        this.repackager = repackager;
+    }
+
+    /**
+     * Creates a new schema binary file (.xsb) and returns a stream for writing to it.
+     *
+     * @param typename the relative path of the binary file
+     * @return a stream to write the type to
+     */
+    public OutputStream createBinaryFile(final String typename) {
+        return new ByteArrayOutputStream() {
+            public void close() {
+                addBinaryFile(typename, toByteArray());
+            }
+        };
+    }
+
+    /**
+     * Creates a new binding source file (.java) and returns a writer for it.
+     *
+     * @param typename fully qualified type name
+     * @return a stream to write the type to
+     */
+    public Writer createSourceFile(String typename) {
+        if (typename.indexOf('$') > 0) {
+            typename =
+                typename.substring(0, typename.lastIndexOf('.')) + "." +
+                typename.substring(typename.indexOf('$') + 1);
+        }
+
+        final String classname = typename;
+        return new StringWriter() {
+            public void close() {
+                addSourceFile(classname, repackager == null
+                    ? getBuffer().toString()
+                    : repackager.repackage(getBuffer()).toString());
+            }
+        };
+    }
+
+    private synchronized void addBinaryFile(String name, byte[] bytes) {
+        binaryFiles.put(name, bytes);
+    }
+
+    private synchronized void addSourceFile(String classname, String source) {
+        sourceFiles.put(classname, source);
+    }
+
+    /**
+     * @return the binary files by their relative path
+     */
+    public synchronized Map<String, byte[]> getBinaryFiles() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(binaryFiles));
+    }
+
+    /**
+     * @return the generated sources by their fully qualified class name
+     */
+    public synchronized Map<String, String> getSourceFiles() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(sourceFiles));
+    }
+
+    public Repackager getRepackager() {
+        return repackager;
+    }
+}
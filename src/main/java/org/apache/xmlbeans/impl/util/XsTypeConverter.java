@@ -246,8 +246,7 @@ public final class XsTypeConverter {
     // ======================== long ========================
     public static long lexLong(CharSequence cs)
         throws NumberFormatException {
-        final String v = cs.toString();
-        return Long.parseLong(trimInitialPlus(v));
+        return parseLongXsdNumber(cs);
     }
 
     public static long lexLong(CharSequence cs, Collection<XmlError> errors) {
@@ -635,6 +634,49 @@ public final class XsTypeConverter {
         return sign * result;
     }
 
+    private static long parseLongXsdNumber(CharSequence ch) {
+        // long parser on a CharSequence, accumulating negatively like Long.parseLong
+        int length = ch.length();
+        int start = 0;
+        boolean negative = false;
+
+        if (length > 0) {
+            char c = ch.charAt(0);
+            if (c == '-') {
+                negative = true;
+                start++;
+            } else if (c == '+') {
+                start++;
+            }
+        }
+
+        if (start == length) {
+            throw new NumberFormatException("For input string: \"" + ch + "\"");
+        }
+
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multmin = limit / 10;
+        long result = 0;
+
+        for (int i = start; i < length; i++) {
+            int v = Character.digit(ch.charAt(i), 10);
+
+            if (v < 0 || result < multmin) {
+                throw new NumberFormatException("For input string: \"" + ch + "\"");
+            }
+
+            result *= 10;
+
+            if (result < limit + v) {
+                throw new NumberFormatException("For input string: \"" + ch + "\"");
+            }
+
+            result -= v;
+        }
+
+        return negative ? result : -result;
+    }
+
     // ======================== anyURI ========================
 
     /**
@@ -52,6 +52,69 @@ public final class Validator
         _vc = new ValidatorVC();
     }
 
+    private Validator(Validator parent, SchemaType type, SchemaField field, Collection<XmlError> errorListener) {
+        _errorListener = errorListener;
+        _treatLaxAsSkip = parent._treatLaxAsSkip;
+        _strict = parent._strict;
+
+        _constraintEngine = parent._constraintEngine.forSubtree(errorListener);
+
+        _globalTypes = parent._globalTypes;
+        _rootType = type;
+        _rootField = field;
+
+        _vc = new ValidatorVC();
+    }
+
+    /**
+     * Hands the element whose begin event was just received over to a new validator,
+     * e.g. to validate its content on another thread. The new validator expects the
+     * events of the element, starting with its begin event. This validator only keeps
+     * the position of the element in the content model of its parent and skips the
+     * remaining events of the element up to and including its end event.
+     * <p>
+     * The results of the new validator have to be merged back with {@link #mergeSubtree}.
+     *
+     * @return the validator for the element or null, if the element can't be split off and
+     * its events have to be passed to this validator as usual, e.g. because an identity
+     * constraint of an ancestor selects from its content
+     */
+    public Validator splitCurrentElement(Event event, Collection<XmlError> errorListener) {
+        State state = topState();
+
+        if (_eatContent > 0 || state == null) {
+            return null;
+        }
+
+        for (State s = state._next; s != null; s = s._next) {
+            if (s._field instanceof SchemaLocalElement &&
+                ((SchemaLocalElement) s._field).getIdentityConstraints().length > 0) {
+                return null;
+            }
+        }
+
+        Validator subtree = new Validator(this, state._type, state._field, errorListener);
+
+        popState(event);
+        _constraintEngine.endElement(event);
+        _eatContent = 1;
+
+        return subtree;
+    }
+
+    /**
+     * Merges the validity and the IDs and IDREFs of a validator returned by
+     * {@link #splitCurrentElement}, after it has received all events of its element.
+     * IDs which are defined more than once across subtrees are reported at the given event.
+     */
+    public void mergeSubtree(Validator subtree, Event event) {
+        if (subtree._invalid) {
+            _invalid = true;
+        }
+
+        _constraintEngine.merge(subtree._constraintEngine, event);
+    }
+
     private class ValidatorVC implements ValidationContext {
         // KHK: remove this
         public void invalid(String message) {
@@ -885,7 +948,7 @@ public final class Validator
                     state._canHaveElements = particle != null;
 
                     if (state._canHaveElements) {
-                        state._visitor = initVisitor(particle);
+                        state._visitor = initVisitor(type);
                     }
 
                     break;
@@ -912,21 +975,20 @@ public final class Validator
         _stateStack = state;
     }
 
-    private final LinkedList<TypeStoreVisitor> _visitorPool = new LinkedList<>();
+    private final ArrayList<SchemaTypeVisitorImpl> _visitorPool = new ArrayList<>();
 
     private void poolVisitor(SchemaTypeVisitorImpl visitor) {
         _visitorPool.add(visitor);
     }
 
-    private SchemaTypeVisitorImpl initVisitor(SchemaParticle particle) {
+    private SchemaTypeVisitorImpl initVisitor(SchemaType type) {
         if (_visitorPool.isEmpty()) {
-            return new SchemaTypeVisitorImpl(particle);
+            return new SchemaTypeVisitorImpl(type);
         }
 
-        SchemaTypeVisitorImpl result =
-            (SchemaTypeVisitorImpl) _visitorPool.removeLast();
+        SchemaTypeVisitorImpl result = _visitorPool.remove(_visitorPool.size() - 1);
 
-        result.init(particle);
+        result.init(type);
 
         return result;
     }
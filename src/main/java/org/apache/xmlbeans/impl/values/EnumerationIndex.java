@@ -0,0 +1,133 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.values;
+
+import org.apache.xmlbeans.GDateSpecification;
+import org.apache.xmlbeans.SchemaType;
+import org.apache.xmlbeans.XmlAnySimpleType;
+import org.apache.xmlbeans.impl.schema.SchemaTypeImpl;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A hash set of the enumeration facet values of a simple type, keyed by value space.
+ * <p>
+ * Decimal values are keyed by their normalized {@link BigDecimal}, so 1.0 and 1 share a key
+ * in all types derived from xs:decimal. QNames are keyed by themselves and strings and URIs by
+ * their string value, so a lookup is exact for these types. Dates are keyed by their canonical
+ * string, which only identifies equal values, i.e. a miss has to be confirmed by comparing the
+ * values, as dates with and without time zone are compared by the range they can occupy.
+ */
+public final class EnumerationIndex {
+    private final Set<Object> _keys;
+
+    private EnumerationIndex(Set<Object> keys) {
+        _keys = keys;
+    }
+
+    /**
+     * @return the index of the type or null, if the type has no enumeration facet, is not
+     * resolved yet or if its values are not indexed
+     */
+    public static EnumerationIndex forType(SchemaType sType) {
+        return (sType instanceof SchemaTypeImpl) ? ((SchemaTypeImpl) sType).getEnumerationIndex() : null;
+    }
+
+    /**
+     * Builds the index of the given enumeration values of a simple type
+     *
+     * @return the index or null, if the values of the type are not indexed
+     */
+    public static EnumerationIndex build(SchemaType sType, XmlAnySimpleType[] values) {
+        if (values == null || sType.getSimpleVariety() != SchemaType.ATOMIC) {
+            return null;
+        }
+
+        int btc = sType.getPrimitiveType().getBuiltinTypeCode();
+        Set<Object> keys = new HashSet<>(values.length * 2);
+
+        for (XmlAnySimpleType value : values) {
+            XmlObjectBase v = (XmlObjectBase) value;
+            switch (btc) {
+                case SchemaType.BTC_STRING:
+                case SchemaType.BTC_ANY_URI:
+                    keys.add(v.getStringValue());
+                    break;
+
+                case SchemaType.BTC_DECIMAL:
+                    keys.add(decimalKey(v));
+                    break;
+
+                case SchemaType.BTC_QNAME:
+                case SchemaType.BTC_NOTATION:
+                    keys.add(v.getQNameValue());
+                    break;
+
+                case SchemaType.BTC_DATE_TIME:
+                case SchemaType.BTC_TIME:
+                case SchemaType.BTC_DATE:
+                case SchemaType.BTC_G_YEAR_MONTH:
+                case SchemaType.BTC_G_YEAR:
+                case SchemaType.BTC_G_MONTH_DAY:
+                case SchemaType.BTC_G_DAY:
+                case SchemaType.BTC_G_MONTH:
+                    keys.add(dateKey(v.getGDateValue()));
+                    break;
+
+                default:
+                    return null;
+            }
+        }
+
+        return new EnumerationIndex(keys);
+    }
+
+    public boolean contains(Object key) {
+        return _keys.contains(key);
+    }
+
+    public static Object decimalKey(BigDecimal v) {
+        return (v.signum() == 0) ? BigDecimal.ZERO : v.stripTrailingZeros();
+    }
+
+    public static Object decimalKey(BigInteger v) {
+        return decimalKey(new BigDecimal(v));
+    }
+
+    public static Object decimalKey(long v) {
+        return decimalKey(BigDecimal.valueOf(v));
+    }
+
+    public static Object dateKey(GDateSpecification v) {
+        return v.canonicalString();
+    }
+
+    private static Object decimalKey(XmlObjectBase v) {
+        switch (v.schemaType().getDecimalSize()) {
+            case SchemaType.SIZE_BIG_DECIMAL:
+                return decimalKey(v.getBigDecimalValue());
+            case SchemaType.SIZE_BIG_INTEGER:
+                return decimalKey(v.getBigIntegerValue());
+            case SchemaType.SIZE_LONG:
+                return decimalKey(v.getLongValue());
+            default:
+                return decimalKey(v.getIntValue());
+        }
+    }
+}
@@ -54,6 +54,11 @@ public abstract class JavaBooleanHolderEx extends JavaBooleanHolder {
         super.set_text(s);
     }
 
+    protected boolean set_chars(CharSequence chars) {
+        // the pattern is checked on the text
+        return !_validateOnSet() && super.set_chars(chars);
+    }
+
     protected void validate_simpleval(String lexical, ValidationContext ctx) {
         validateLexical(lexical, schemaType(), ctx);
     }
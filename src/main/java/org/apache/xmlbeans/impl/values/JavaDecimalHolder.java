@@ -52,6 +52,32 @@ public class JavaDecimalHolder extends XmlObjectBase {
         }
     }
 
+    protected boolean lexes_chars() {
+        return true;
+    }
+
+    protected boolean set_chars(CharSequence chars) {
+        // the lexical checks are done on the text
+        if (_validateOnSet()) {
+            return false;
+        }
+
+        // BigDecimal lexes a char array without the String copy
+        char[] buf = new char[chars.length()];
+        for (int i = 0; i < buf.length; i++) {
+            buf[i] = chars.charAt(i);
+        }
+
+        BigDecimal v;
+        try {
+            v = new BigDecimal(buf);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        set_BigDecimal(v);
+        return true;
+    }
+
     protected void set_nil() {
         _value = null;
     }
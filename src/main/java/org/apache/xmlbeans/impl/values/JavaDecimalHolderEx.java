@@ -176,6 +176,15 @@ public abstract class JavaDecimalHolderEx extends JavaDecimalHolder {
         }
 
         // enumeration
+        EnumerationIndex index = EnumerationIndex.forType(sType);
+        if (index != null) {
+            if (!index.contains(EnumerationIndex.decimalKey(v))) {
+                context.invalid(XmlErrorCodes.DATATYPE_ENUM_VALID,
+                    new Object[]{"decimal", v, QNameHelper.readable(sType)});
+            }
+            return;
+        }
+
         XmlObject[] vals = sType.getEnumerationValues();
         if (vals != null) {
             for (XmlObject val : vals) {
@@ -57,6 +57,31 @@ public abstract class JavaGDateHolderEx extends XmlObjectBase {
         _value = newVal;
     }
 
+    protected boolean lexes_chars() {
+        return true;
+    }
+
+    protected boolean set_chars(CharSequence chars) {
+        // the pattern and value facets are checked on the text
+        if (_validateOnSet()) {
+            return false;
+        }
+
+        GDate date;
+        try {
+            date = new GDate(chars);
+        } catch (Exception e) {
+            return false;
+        }
+
+        if (date.getBuiltinTypeCode() != _schemaType.getPrimitiveType().getBuiltinTypeCode() || !date.isValid()) {
+            return false;
+        }
+
+        _value = date;
+        return true;
+    }
+
     public static GDate lex(String v, SchemaType sType, ValidationContext context) {
         GDate date = null;
 
@@ -129,6 +154,12 @@ public abstract class JavaGDateHolderEx extends XmlObjectBase {
             }
         }
 
+        // equal canonical strings are equal dates, but not vice versa
+        EnumerationIndex index = EnumerationIndex.forType(sType);
+        if (index != null && index.contains(EnumerationIndex.dateKey(v))) {
+            return;
+        }
+
         XmlObject[] vals = sType.getEnumerationValues();
         if (vals != null) {
             for (XmlObject val : vals) {
@@ -47,6 +47,21 @@ public abstract class JavaIntHolder extends XmlObjectBase {
         }
     }
 
+    protected boolean lexes_chars() {
+        return true;
+    }
+
+    protected boolean set_chars(CharSequence chars) {
+        int v;
+        try {
+            v = XsTypeConverter.lexInt(chars);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        set_int(v);
+        return true;
+    }
+
     protected void set_nil() {
         _value = 0;
     }
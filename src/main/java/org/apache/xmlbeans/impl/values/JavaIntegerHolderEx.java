@@ -136,6 +136,15 @@ public class JavaIntegerHolderEx extends JavaIntegerHolder {
         }
 
         // enumeration
+        EnumerationIndex index = EnumerationIndex.forType(sType);
+        if (index != null) {
+            if (!index.contains(EnumerationIndex.decimalKey(v))) {
+                context.invalid(XmlErrorCodes.DATATYPE_ENUM_VALID,
+                    new Object[]{"integer", v, QNameHelper.readable(sType)});
+            }
+            return;
+        }
+
         XmlObject[] vals = sType.getEnumerationValues();
         if (vals != null) {
             for (XmlObject val : vals) {
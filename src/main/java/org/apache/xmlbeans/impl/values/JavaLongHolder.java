@@ -47,6 +47,21 @@ public abstract class JavaLongHolder extends XmlObjectBase {
         }
     }
 
+    protected boolean lexes_chars() {
+        return true;
+    }
+
+    protected boolean set_chars(CharSequence chars) {
+        long v;
+        try {
+            v = XsTypeConverter.lexLong(chars);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        set_long(v);
+        return true;
+    }
+
     protected void set_nil() {
         _value = 0L;
     }
@@ -52,6 +52,11 @@ public abstract class JavaLongHolderEx extends JavaLongHolder {
         super.set_long(v);
     }
 
+    protected boolean set_chars(CharSequence chars) {
+        // the lexical facets are checked on the text
+        return !_validateOnSet() && super.set_chars(chars);
+    }
+
     protected void set_long(long v) {
         if (_validateOnSet()) {
             validateValue(v, _schemaType, _voorVc);
@@ -134,6 +139,15 @@ public abstract class JavaLongHolderEx extends JavaLongHolder {
         }
 
         // enumeration
+        EnumerationIndex index = EnumerationIndex.forType(sType);
+        if (index != null) {
+            if (!index.contains(EnumerationIndex.decimalKey(v))) {
+                context.invalid(XmlErrorCodes.DATATYPE_ENUM_VALID,
+                    new Object[]{"long", v, QNameHelper.readable(sType)});
+            }
+            return;
+        }
+
         XmlObject[] vals = sType.getEnumerationValues();
         if (vals != null) {
             for (XmlObject val : vals) {
@@ -124,6 +124,15 @@ public abstract class JavaQNameHolderEx extends JavaQNameHolder
 
     public static void validateValue(QName v, SchemaType sType, ValidationContext context)
     {
+        EnumerationIndex index = EnumerationIndex.forType(sType);
+        if (index != null)
+        {
+            if (!index.contains(v))
+                context.invalid(XmlErrorCodes.DATATYPE_ENUM_VALID,
+                    new Object[] { "QName", v, QNameHelper.readable(sType) });
+            return;
+        }
+
         XmlObject[] vals = sType.getEnumerationValues();
         if (vals != null)
         {
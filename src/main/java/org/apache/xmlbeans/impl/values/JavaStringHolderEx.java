@@ -100,6 +100,15 @@ public abstract class JavaStringHolderEx extends JavaStringHolder {
         // here since we may be validating against a string enum value
         // during StscSimpleTypeResolver.resolveFacets() and the string
         // enum table hasn't been constructed yet.
+        EnumerationIndex index = EnumerationIndex.forType(sType);
+        if (index != null) {
+            if (!index.contains(v)) {
+                context.invalid(XmlErrorCodes.DATATYPE_ENUM_VALID,
+                    new Object[]{"string", v, QNameHelper.readable(sType)});
+            }
+            return;
+        }
+
         XmlAnySimpleType[] vals = sType.getEnumerationValues();
         if (vals != null) {
             for (XmlAnySimpleType val : vals) {
@@ -64,7 +64,13 @@ public class JavaUriHolderEx extends JavaUriHolder {
     public static void validateLexical(String v, SchemaType sType, ValidationContext context) {
         XmlAnyUriImpl.validateLexical(v, context);
 
-        XmlObject[] vals = sType.getEnumerationValues();
+        EnumerationIndex index = EnumerationIndex.forType(sType);
+        if (index != null && !index.contains(v)) {
+            context.invalid(XmlErrorCodes.DATATYPE_ENUM_VALID,
+                new Object[]{"anyURI", v, QNameHelper.readable(sType)});
+        }
+
+        XmlObject[] vals = (index == null) ? sType.getEnumerationValues() : null;
 
         if (vals != null) {
             int i;
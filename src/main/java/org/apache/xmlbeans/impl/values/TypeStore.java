@@ -18,9 +18,13 @@ package org.apache.xmlbeans.impl.values;
 import org.apache.xmlbeans.*;
 import org.apache.xmlbeans.impl.common.ValidatorListener;
 import org.apache.xmlbeans.impl.common.XmlLocale;
+import org.apache.xmlbeans.impl.validator.Validator;
 
 import javax.xml.namespace.QName;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 public interface TypeStore extends NamespaceManager
 {
@@ -34,6 +38,25 @@ public interface TypeStore extends NamespaceManager
      */
     void validate ( ValidatorListener vEventSink );
 
+    /**
+     * Validates this store with the given validator, splitting the children of the
+     * top element off to other threads. The validator reports its errors to
+     * validatorErrors, which are passed on to errorListener in document order
+     * together with the errors of the split off children. The children are
+     * validated by the executor, or by a shared pool if it is null.
+     * <p>
+     * The default implementation validates this store on the calling thread.
+     */
+    default void validate_parallel ( Validator validator, List<XmlError> validatorErrors,
+                                     Collection<XmlError> errorListener, int parallelism, Executor executor )
+    {
+        validate(validator);
+
+        if (errorListener != null) {
+            errorListener.addAll(validatorErrors);
+        }
+    }
+
     /**
      * Get the SchemaTypeLoader associated with the store contianing this
      * TypeStore.
@@ -75,6 +98,15 @@ public interface TypeStore extends NamespaceManager
     // BUGBUG (ericvas) 12111
     String fetch_text(int whitespaceRule);
 
+    /**
+     * Like fetch_text, but returns a transient view of the text, which is
+     * only valid until the next call into the store on this thread.
+     * This lets simple types lex their value without building a String.
+     */
+    default CharSequence fetch_chars(int whitespaceRule) {
+        return fetch_text(whitespaceRule);
+    }
+
     int WS_UNSPECIFIED = 0;
     int WS_PRESERVE = 1;
     int WS_REPLACE = 2;
@@ -185,6 +217,33 @@ public interface TypeStore extends NamespaceManager
      */
     <T extends XmlObject> void find_all_element_users(QNameSet name, List<T> fillMeUp);
 
+    /**
+     * Visits the elements with the given name in document order without
+     * creating users for them. Elements with plain text content are passed
+     * as a transient view of their text, elements which already have a user
+     * or which have attributes or child nodes are passed as their user.
+     * <p>
+     * The default implementation passes all elements as their user.
+     */
+    default void visit_element_values(QName name, int whitespaceRule, ElementValueVisitor visitor) {
+        List<XmlObject> users = new ArrayList<>();
+        find_all_element_users(name, users);
+        for (XmlObject user : users) {
+            visitor.user((TypeStoreUser) user);
+        }
+    }
+
+    interface ElementValueVisitor {
+        /**
+         * Called with the wscanon text of an element, which is only valid during
+         * this call. Returns false, if the value has to be read from the user,
+         * in which case user is called for the same element.
+         */
+        boolean chars(CharSequence chars);
+
+        void user(TypeStoreUser user);
+    }
+
     /**
      * Inserts a new element at the position that will make it
      * the ith element with the given name owned by this textstore,
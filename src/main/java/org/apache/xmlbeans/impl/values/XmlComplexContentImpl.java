@@ -84,7 +84,7 @@ public class XmlComplexContentImpl extends XmlObjectBase {
 
     // DONE
     public TypeStoreVisitor new_visitor() {
-        return new SchemaTypeVisitorImpl(_schemaType.getContentModel());
+        return new SchemaTypeVisitorImpl(_schemaType);
     }
 
     // DONE
@@ -20,6 +20,7 @@ import org.apache.xmlbeans.impl.common.*;
 import org.apache.xmlbeans.impl.schema.SchemaTypeImpl;
 import org.apache.xmlbeans.impl.schema.SchemaTypeVisitorImpl;
 import org.apache.xmlbeans.impl.util.LongUTFDataInputStream;
+import org.apache.xmlbeans.impl.util.XsTypeConverter;
 import org.apache.xmlbeans.impl.validator.Validator;
 import org.w3c.dom.Node;
 import org.xml.sax.ContentHandler;
@@ -127,6 +128,12 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
         }
     }
 
+    public XmlCompactionStats compact() {
+        try (XmlCursor cur = newCursorForce()) {
+            return cur.compact();
+        }
+    }
+
     public XMLStreamReader newXMLStreamReader() {
         return newXMLStreamReader(null);
     }
@@ -369,6 +376,21 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
 
             TypeStore typeStore = get_store();
 
+            if (options != null && options.getValidateParallelism() > 1) {
+                // collect the errors of the validator, to pass them on in document order
+                List<XmlError> errors = new ArrayList<>();
+
+                Validator validator =
+                    new Validator(
+                        type, field, typeStore.get_schematypeloader(),
+                        new XmlOptions(options).setErrorListener(errors), null);
+
+                typeStore.validate_parallel(validator, errors, options.getErrorListener(),
+                    options.getValidateParallelism(), options.getValidateExecutor());
+
+                return validator.isValid();
+            }
+
             Validator validator =
                 new Validator(
                     type, field, typeStore.get_schematypeloader(), options, null);
@@ -1035,7 +1057,7 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
         if (!_isComplexContent()) {
             return null;
         }
-        return new SchemaTypeVisitorImpl(schemaType().getContentModel());
+        return new SchemaTypeVisitorImpl(schemaType());
     }
 
     public SchemaField get_attribute_field(QName attrName) {
@@ -1122,6 +1144,47 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
         _flags &= ~(FLAG_NIL | FLAG_ISDEFAULT);
     }
 
+    /**
+     * Lexes the value from a transient view of the store text, if the
+     * type supports it. Returns false if the String based path has to be
+     * taken, e.g. to apply defaults or to report an invalid value.
+     */
+    private boolean update_from_store_chars() {
+        if ((_flags & FLAG_STORE) == 0 || !lexes_chars()) {
+            return false;
+        }
+
+        CharSequence chars = get_store().fetch_chars(get_wscanon_rule());
+
+        // defaults are only applied to the text
+        if (chars.length() == 0 && (_flags & FLAG_HASDEFAULT) != 0) {
+            return false;
+        }
+
+        if (!set_chars(chars)) {
+            return false;
+        }
+
+        _flags &= ~(FLAG_NIL | FLAG_ISDEFAULT);
+        return true;
+    }
+
+    /**
+     * Types which override set_chars return true here.
+     */
+    protected boolean lexes_chars() {
+        return false;
+    }
+
+    /**
+     * Sets the value from the chars of the wscanon text, which are only valid
+     * during this call. Returns false, if the value couldn't be lexed or needs
+     * to be validated, in which case set_text is called with the same text.
+     */
+    protected boolean set_chars(CharSequence chars) {
+        return false;
+    }
+
     /**
      * Types should return false if they don't treat the given
      * whitespace as a default value.
@@ -1242,14 +1305,18 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
             if (!nilled) {
                 String text;
 
-                if ((_flags & FLAG_COMPLEXCONTENT) != 0 || (text = get_wscanon_text()) == null) {
+                if ((_flags & FLAG_COMPLEXCONTENT) != 0) {
                     update_from_complex_content();
-                } else {
-                    NamespaceContext.push(new NamespaceContext(get_store()));
-                    try {
-                        update_from_wscanon_text(text);
-                    } finally {
-                        NamespaceContext.pop();
+                } else if (!update_from_store_chars()) {
+                    if ((text = get_wscanon_text()) == null) {
+                        update_from_complex_content();
+                    } else {
+                        NamespaceContext.push(new NamespaceContext(get_store()));
+                        try {
+                            update_from_wscanon_text(text);
+                        } finally {
+                            NamespaceContext.pop();
+                        }
                     }
                 }
             }
@@ -2025,30 +2092,9 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
                         synchronized (monitor()) {
                             newObj = setterHelper(obj);
                         }
-                    } else                                // both are sync can't avoid the global lock
+                    } else                                // both are sync, lock them in a deadlock-free order
                     {
-                        boolean acquired = false;
-
-                        try {
-                            // about to grab two locks: don't deadlock ourselves
-                            GlobalLock.acquire();
-                            acquired = true;
-
-                            synchronized (monitor()) {
-                                synchronized (obj.monitor()) {
-                                    GlobalLock.release();
-                                    acquired = false;
-
-                                    newObj = setterHelper(obj);
-                                }
-                            }
-                        } catch (InterruptedException e) {
-                            throw new XmlRuntimeException(e);
-                        } finally {
-                            if (acquired) {
-                                GlobalLock.release();
-                            }
-                        }
+                        newObj = OrderedLock.callLocked(monitor(), obj.monitor(), () -> setterHelper(obj));
                     }
                 }
             }
@@ -2113,29 +2159,9 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
                     return (XmlObject) objSetterHelper(srcObj, propName, index, kindSetterHelper);
                 }
             } else {
-                // both are sync can't avoid the global lock
-                boolean acquired = false;
-
-                try {
-                    // about to grab two locks: don't deadlock ourselves
-                    GlobalLock.acquire();
-                    acquired = true;
-
-                    synchronized (monitor()) {
-                        synchronized (srcObj.monitor()) {
-                            GlobalLock.release();
-                            acquired = false;
-
-                            return (XmlObject) objSetterHelper(srcObj, propName, index, kindSetterHelper);
-                        }
-                    }
-                } catch (InterruptedException e) {
-                    throw new XmlRuntimeException(e);
-                } finally {
-                    if (acquired) {
-                        GlobalLock.release();
-                    }
-                }
+                // both are sync, lock them in a deadlock-free order
+                return (XmlObject) OrderedLock.callLocked(monitor(), srcObj.monitor(),
+                    () -> objSetterHelper(srcObj, propName, index, kindSetterHelper));
             }
         }
     }
@@ -2382,39 +2408,21 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
     }
 
     public final boolean valueEquals(XmlObject xmlobj) {
-        boolean acquired = false;
-        try {
-            if (isImmutable()) {
-                if (xmlobj.isImmutable()) {
-                    return valueEqualsImpl(xmlobj);
-                } else {
-                    synchronized (xmlobj.monitor()) {
-                        return valueEqualsImpl(xmlobj);
-                    }
-                }
+        if (isImmutable()) {
+            if (xmlobj.isImmutable()) {
+                return valueEqualsImpl(xmlobj);
             } else {
-                if (xmlobj.isImmutable() || monitor() == xmlobj.monitor()) {
-                    synchronized (monitor()) {
-                        return valueEqualsImpl(xmlobj);
-                    }
-                } else {
-                    GlobalLock.acquire();
-                    acquired = true;
-                    synchronized (monitor()) {
-                        synchronized (xmlobj.monitor()) {
-                            GlobalLock.release();
-                            acquired = false;
-                            return valueEqualsImpl(xmlobj);
-                        }
-                    }
+                synchronized (xmlobj.monitor()) {
+                    return valueEqualsImpl(xmlobj);
                 }
             }
-
-        } catch (InterruptedException e) {
-            throw new XmlRuntimeException(e);
-        } finally {
-            if (acquired) {
-                GlobalLock.release();
+        } else {
+            if (xmlobj.isImmutable() || monitor() == xmlobj.monitor()) {
+                synchronized (monitor()) {
+                    return valueEqualsImpl(xmlobj);
+                }
+            } else {
+                return OrderedLock.callLocked(monitor(), xmlobj.monitor(), () -> valueEqualsImpl(xmlobj));
             }
         }
     }
@@ -2476,39 +2484,21 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
             return 2;
         }
 
-        boolean acquired = false;
-        try {
-            if (isImmutable()) {
-                if (xmlobj.isImmutable()) {
-                    return compareValueImpl(xmlobj);
-                } else {
-                    synchronized (xmlobj.monitor()) {
-                        return compareValueImpl(xmlobj);
-                    }
-                }
+        if (isImmutable()) {
+            if (xmlobj.isImmutable()) {
+                return compareValueImpl(xmlobj);
             } else {
-                if (xmlobj.isImmutable() || monitor() == xmlobj.monitor()) {
-                    synchronized (monitor()) {
-                        return compareValueImpl(xmlobj);
-                    }
-                } else {
-                    GlobalLock.acquire();
-                    acquired = true;
-                    synchronized (monitor()) {
-                        synchronized (xmlobj.monitor()) {
-                            GlobalLock.release();
-                            acquired = false;
-                            return compareValueImpl(xmlobj);
-                        }
-                    }
+                synchronized (xmlobj.monitor()) {
+                    return compareValueImpl(xmlobj);
                 }
             }
-
-        } catch (InterruptedException e) {
-            throw new XmlRuntimeException(e);
-        } finally {
-            if (acquired) {
-                GlobalLock.release();
+        } else {
+            if (xmlobj.isImmutable() || monitor() == xmlobj.monitor()) {
+                synchronized (monitor()) {
+                    return compareValueImpl(xmlobj);
+                }
+            } else {
+                return OrderedLock.callLocked(monitor(), xmlobj.monitor(), () -> compareValueImpl(xmlobj));
             }
         }
     }
@@ -3112,6 +3102,75 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
         return targetList;
     }
 
+    /**
+     * Reads the values of the child elements without creating users for
+     * elements with plain text. Users are still created for the elements
+     * which can't be lexed from the text, e.g. to apply defaults or to
+     * report invalid values.
+     */
+    private <A> A visitElementValues(QName elementName, ElementValues<A> values) {
+        check_orphaned();
+        get_store().visit_element_values(elementName, TypeStore.WS_COLLAPSE, values);
+        return values.toArray();
+    }
+
+    /**
+     * Collects the element values into a primitive array of type A, which
+     * is grown as needed. The subclasses only lex or read a single value
+     * into the slot of the given index.
+     */
+    private abstract static class ElementValues<A> implements TypeStore.ElementValueVisitor {
+        private final IntFunction<A> _arrayCon;
+        private A _values;
+        private int _capacity = 16;
+        private int _size;
+
+        ElementValues(IntFunction<A> arrayCon) {
+            _arrayCon = arrayCon;
+            _values = arrayCon.apply(_capacity);
+        }
+
+        abstract void lex(A values, int index, CharSequence chars);
+
+        abstract void read(A values, int index, SimpleValue value);
+
+        public boolean chars(CharSequence chars) {
+            // empty values may have a default
+            if (chars.length() == 0) {
+                return false;
+            }
+            grow();
+            try {
+                lex(_values, _size, chars);
+            } catch (NumberFormatException | InvalidLexicalValueException e) {
+                return false;
+            }
+            _size++;
+            return true;
+        }
+
+        public void user(TypeStoreUser user) {
+            grow();
+            read(_values, _size, (SimpleValue) user);
+            _size++;
+        }
+
+        private void grow() {
+            if (_size == _capacity) {
+                _capacity *= 2;
+                A values = _arrayCon.apply(_capacity);
+                System.arraycopy(_values, 0, values, 0, _size);
+                _values = values;
+            }
+        }
+
+        A toArray() {
+            A result = _arrayCon.apply(_size);
+            System.arraycopy(_values, 0, result, 0, _size);
+            return result;
+        }
+    }
+
     protected <T> T[] getObjectArray(QName elementName, Function<SimpleValue, T> fun, IntFunction<T[]> arrayCon) {
         synchronized (monitor()) {
             return getBaseArray(elementName).stream().map(fun).toArray(arrayCon);
@@ -3126,6 +3185,17 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
 
     protected boolean[] getBooleanArray(QName elementName) {
         synchronized (monitor()) {
+            if (!_validateOnSet()) {
+                return visitElementValues(elementName, new ElementValues<boolean[]>(boolean[]::new) {
+                    void lex(boolean[] values, int index, CharSequence chars) {
+                        values[index] = XsTypeConverter.lexBoolean(chars);
+                    }
+
+                    void read(boolean[] values, int index, SimpleValue value) {
+                        values[index] = value.getBooleanValue();
+                    }
+                });
+            }
             List<XmlObjectBase> targetList = getBaseArray(elementName);
             boolean[] result = new boolean[targetList.size()];
             for (int i = 0; i < result.length; i++) {
@@ -3137,6 +3207,17 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
 
     protected float[] getFloatArray(QName elementName) {
         synchronized (monitor()) {
+            if (!_validateOnSet()) {
+                return visitElementValues(elementName, new ElementValues<float[]>(float[]::new) {
+                    void lex(float[] values, int index, CharSequence chars) {
+                        values[index] = XsTypeConverter.lexFloat(chars);
+                    }
+
+                    void read(float[] values, int index, SimpleValue value) {
+                        values[index] = value.getFloatValue();
+                    }
+                });
+            }
             List<XmlObjectBase> targetList = getBaseArray(elementName);
             float[] result = new float[targetList.size()];
             for (int i = 0; i < result.length; i++) {
@@ -3148,6 +3229,17 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
 
     protected double[] getDoubleArray(QName elementName) {
         synchronized (monitor()) {
+            if (!_validateOnSet()) {
+                return visitElementValues(elementName, new ElementValues<double[]>(double[]::new) {
+                    void lex(double[] values, int index, CharSequence chars) {
+                        values[index] = XsTypeConverter.lexDouble(chars);
+                    }
+
+                    void read(double[] values, int index, SimpleValue value) {
+                        values[index] = value.getDoubleValue();
+                    }
+                });
+            }
             List<XmlObjectBase> targetList = getBaseArray(elementName);
             return targetList.stream()
                 .map(org.apache.xmlbeans.SimpleValue.class::cast)
@@ -3158,6 +3250,17 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
 
     protected byte[] getByteArray(QName elementName) {
         synchronized (monitor()) {
+            if (!_validateOnSet()) {
+                return visitElementValues(elementName, new ElementValues<byte[]>(byte[]::new) {
+                    void lex(byte[] values, int index, CharSequence chars) {
+                        values[index] = XsTypeConverter.lexByte(chars);
+                    }
+
+                    void read(byte[] values, int index, SimpleValue value) {
+                        values[index] = value.getByteValue();
+                    }
+                });
+            }
             List<XmlObjectBase> targetList = getBaseArray(elementName);
             byte[] result = new byte[targetList.size()];
             for (int i = 0; i < result.length; i++) {
@@ -3169,6 +3272,17 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
 
     protected short[] getShortArray(QName elementName) {
         synchronized (monitor()) {
+            if (!_validateOnSet()) {
+                return visitElementValues(elementName, new ElementValues<short[]>(short[]::new) {
+                    void lex(short[] values, int index, CharSequence chars) {
+                        values[index] = XsTypeConverter.lexShort(chars);
+                    }
+
+                    void read(short[] values, int index, SimpleValue value) {
+                        values[index] = value.getShortValue();
+                    }
+                });
+            }
             List<XmlObjectBase> targetList = getBaseArray(elementName);
             short[] result = new short[targetList.size()];
             for (int i = 0; i < result.length; i++) {
@@ -3180,6 +3294,17 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
 
     protected int[] getIntArray(QName elementName) {
         synchronized (monitor()) {
+            if (!_validateOnSet()) {
+                return visitElementValues(elementName, new ElementValues<int[]>(int[]::new) {
+                    void lex(int[] values, int index, CharSequence chars) {
+                        values[index] = XsTypeConverter.lexInt(chars);
+                    }
+
+                    void read(int[] values, int index, SimpleValue value) {
+                        values[index] = value.getIntValue();
+                    }
+                });
+            }
             List<XmlObjectBase> targetList = getBaseArray(elementName);
             return targetList.stream()
                 .map(org.apache.xmlbeans.SimpleValue.class::cast)
@@ -3190,6 +3315,17 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
 
     protected long[] getLongArray(QName elementName) {
         synchronized (monitor()) {
+            if (!_validateOnSet()) {
+                return visitElementValues(elementName, new ElementValues<long[]>(long[]::new) {
+                    void lex(long[] values, int index, CharSequence chars) {
+                        values[index] = XsTypeConverter.lexLong(chars);
+                    }
+
+                    void read(long[] values, int index, SimpleValue value) {
+                        values[index] = value.getLongValue();
+                    }
+                });
+            }
             List<XmlObjectBase> targetList = getBaseArray(elementName);
             return targetList.stream()
                 .map(org.apache.xmlbeans.SimpleValue.class::cast)
@@ -0,0 +1,197 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.xpath;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of compiled XPaths / XQueries.
+ * <p>
+ * Lookups are lock-free and the cached values are strongly held, so hot expressions aren't compiled
+ * again after a garbage collection. When the cache exceeds its capacity, entries which weren't used
+ * since the last sweep are evicted (second chance / CLOCK policy). Concurrent misses of the same
+ * expression might compile it more than once, but only one compiled instance is kept.
+ *
+ * @param <V> the type of the compiled expression
+ */
+public final class XPathCache<V> {
+    private final ConcurrentHashMap<Key, Entry<V>> _map = new ConcurrentHashMap<>();
+    private final int _capacity;
+    private final AtomicBoolean _sweeping = new AtomicBoolean();
+
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _evictions = new LongAdder();
+
+    XPathCache(int capacity) {
+        _capacity = capacity;
+    }
+
+    V get(String expr, String currentVar, int engine, Map<String, String> namespaces, Supplier<V> compiler) {
+        if (_capacity <= 0) {
+            _misses.increment();
+            return compiler.get();
+        }
+
+        Entry<V> e = _map.get(new Key(expr, currentVar, engine, namespaces));
+        if (e != null) {
+            _hits.increment();
+            if (!e._used) {
+                e._used = true;
+            }
+            return e._value;
+        }
+
+        _misses.increment();
+        V value = compiler.get();
+        if (value == null) {
+            return null;
+        }
+
+        Key key = new Key(expr, currentVar, engine, namespaces == null ? null : new HashMap<>(namespaces));
+        Entry<V> old = _map.putIfAbsent(key, new Entry<>(value));
+        if (old != null) {
+            return old._value;
+        }
+
+        if (_map.size() > _capacity) {
+            evict();
+        }
+        return value;
+    }
+
+    private void evict() {
+        // a single thread sweeps, the others continue with a temporarily exceeded capacity
+        if (!_sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // the second round evicts at the latest, as the first one clears all the used flags
+            while (_map.size() > _capacity) {
+                for (Iterator<Entry<V>> it = _map.values().iterator(); it.hasNext() && _map.size() > _capacity; ) {
+                    Entry<V> e = it.next();
+                    if (e._used) {
+                        e._used = false;
+                    } else {
+                        it.remove();
+                        _evictions.increment();
+                    }
+                }
+            }
+        } finally {
+            _sweeping.set(false);
+        }
+    }
+
+    /**
+     * @return the maximum number of cached expressions, 0 if caching is disabled
+     */
+    public int getCapacity() {
+        return _capacity;
+    }
+
+    /**
+     * @return the current number of cached expressions
+     */
+    public int size() {
+        return _map.size();
+    }
+
+    /**
+     * @return the number of lookups, which returned a cached compiled expression
+     */
+    public long getHits() {
+        return _hits.sum();
+    }
+
+    /**
+     * @return the number of lookups, which needed to compile the expression
+     */
+    public long getMisses() {
+        return _misses.sum();
+    }
+
+    /**
+     * @return the number of compiled expressions, which were evicted because of the capacity limit
+     */
+    public long getEvictions() {
+        return _evictions.sum();
+    }
+
+    /**
+     * Removes all cached expressions - the statistics are kept
+     */
+    public void clear() {
+        _map.clear();
+    }
+
+    private static final class Entry<V> {
+        final V _value;
+        // benign race - only used as eviction hint
+        volatile boolean _used;
+
+        Entry(V value) {
+            _value = value;
+        }
+    }
+
+    private static final class Key {
+        private final String _expr;
+        private final String _currentVar;
+        private final int _engine;
+        private final Map<String, String> _namespaces;
+        private final int _hash;
+
+        Key(String expr, String currentVar, int engine, Map<String, String> namespaces) {
+            _expr = expr;
+            _currentVar = currentVar;
+            _engine = engine;
+            _namespaces = (namespaces == null || namespaces.isEmpty()) ? null : namespaces;
+            int h = expr.hashCode();
+            h = 31 * h + Objects.hashCode(currentVar);
+            h = 31 * h + engine;
+            h = 31 * h + Objects.hashCode(_namespaces);
+            _hash = h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return _hash == k._hash && _engine == k._engine &&
+                   _expr.equals(k._expr) &&
+                   Objects.equals(_currentVar, k._currentVar) &&
+                   Objects.equals(_namespaces, k._namespaces);
+        }
+
+        @Override
+        public int hashCode() {
+            return _hash;
+        }
+    }
+}
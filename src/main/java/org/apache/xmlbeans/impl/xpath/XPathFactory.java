@@ -15,6 +15,7 @@
 
 package org.apache.xmlbeans.impl.xpath;
 
+import org.apache.xmlbeans.SystemProperties;
 import org.apache.xmlbeans.XmlCursor;
 import org.apache.xmlbeans.XmlObject;
 import org.apache.xmlbeans.XmlOptions;
@@ -23,18 +24,32 @@ import org.apache.xmlbeans.impl.xpath.saxon.SaxonXPath;
 import org.apache.xmlbeans.impl.xpath.saxon.SaxonXQuery;
 import org.apache.xmlbeans.impl.xpath.xmlbeans.XmlbeansXPath;
 
-import java.lang.ref.WeakReference;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.WeakHashMap;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class XPathFactory {
     private static final int USE_XMLBEANS = 0x01;
     private static final int USE_SAXON = 0x04;
 
-    private static final Map<String, WeakReference<Path>> _xmlbeansPathCache = new WeakHashMap<>();
-    private static final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private static final int CACHE_SIZE =
+        Integer.parseInt(SystemProperties.getProperty("xmlbean.xpath.cachesize", "512"));
+
+    private static final XPathCache<Path> PATH_CACHE = new XPathCache<>(CACHE_SIZE);
+    private static final XPathCache<XQuery> QUERY_CACHE = new XPathCache<>(CACHE_SIZE);
+
+    /**
+     * @return the cache of compiled XPaths, e.g. to read its statistics
+     */
+    public static XPathCache<Path> getPathCache() {
+        return PATH_CACHE;
+    }
+
+    /**
+     * @return the cache of compiled XQueries, e.g. to read its statistics
+     */
+    public static XPathCache<XQuery> getQueryCache() {
+        return QUERY_CACHE;
+    }
 
     static String getCurrentNodeVar(XmlOptions options) {
         String currentNodeVar = "this";
@@ -64,60 +79,39 @@ public class XPathFactory {
                 : options.isXPathUseXmlBeans() ? USE_XMLBEANS
                 : USE_XMLBEANS | USE_SAXON;
 
-        Path path = null;
-        WeakReference<Path> pathWeakRef = null;
-        Map<String, String> namespaces = (force & USE_SAXON) != 0 ? new HashMap<>() : null;
-        lock.readLock().lock();
-        try {
+        Path path = PATH_CACHE.get(pathExpr, currentVar, force, null,
+            () -> createPath(pathExpr, currentVar, force));
+
+        if (path == null) {
+            StringBuilder errMessage = new StringBuilder();
             if ((force & USE_XMLBEANS) != 0) {
-                pathWeakRef = _xmlbeansPathCache.get(pathExpr);
+                errMessage.append(" Trying XmlBeans path engine...");
             }
-            if (pathWeakRef != null) {
-                path = pathWeakRef.get();
+            if ((force & USE_SAXON) != 0) {
+                errMessage.append(" Trying Saxon path engine...");
             }
-            if (path != null) {
-                return path;
-            }
-        } finally {
-            lock.readLock().unlock();
+
+            throw new RuntimeException(errMessage.toString() + " FAILED on " + pathExpr);
         }
-        lock.writeLock().lock();
-        try {
-            if ((force & USE_XMLBEANS) != 0) {
-                pathWeakRef = _xmlbeansPathCache.get(pathExpr);
-                if (pathWeakRef != null) {
-                    path = pathWeakRef.get();
-                }
-                if (path == null) {
-                    path = getCompiledPathXmlBeans(pathExpr, currentVar, namespaces);
-                }
-            }
-            if (path == null && (force & USE_SAXON) != 0) {
-                path = getCompiledPathSaxon(pathExpr, currentVar, namespaces);
-            }
-            if (path == null) {
-                StringBuilder errMessage = new StringBuilder();
-                if ((force & USE_XMLBEANS) != 0) {
-                    errMessage.append(" Trying XmlBeans path engine...");
-                }
-                if ((force & USE_SAXON) != 0) {
-                    errMessage.append(" Trying Saxon path engine...");
-                }
-
-                throw new RuntimeException(errMessage.toString() + " FAILED on " + pathExpr);
-            }
-        } finally {
-            lock.writeLock().unlock();
+        return path;
+    }
+
+    private static Path createPath(String pathExpr, String currentVar, int force) {
+        Path path = null;
+        Map<String, String> namespaces = (force & USE_SAXON) != 0 ? new HashMap<>() : null;
+        if ((force & USE_XMLBEANS) != 0) {
+            path = getCompiledPathXmlBeans(pathExpr, currentVar, namespaces);
+        }
+        if (path == null && (force & USE_SAXON) != 0) {
+            path = getCompiledPathSaxon(pathExpr, currentVar, namespaces);
         }
         return path;
     }
 
     private static Path getCompiledPathXmlBeans(String pathExpr, String currentVar, Map<String, String> namespaces) {
         try {
-            Path path = new XmlbeansXPath(pathExpr, currentVar,
+            return new XmlbeansXPath(pathExpr, currentVar,
                 XPath.compileXPath(pathExpr, currentVar, namespaces));
-            _xmlbeansPathCache.put(pathExpr, new WeakReference<>(path));
-            return path;
         } catch (XPath.XPathCompileException ignored) {
             return null;
         }
@@ -159,14 +153,19 @@ public class XPathFactory {
         return getCompiledQuery(queryExpr, options).cursorExecute(c, options);
     }
 
-    public static synchronized XQuery getCompiledQuery(String queryExpr, XmlOptions options) {
+    public static XQuery getCompiledQuery(String queryExpr, XmlOptions options) {
         return getCompiledQuery(queryExpr, XPathFactory.getCurrentNodeVar(options), options);
     }
 
-    static synchronized XQuery getCompiledQuery(String queryExpr, String currentVar, XmlOptions options) {
+    static XQuery getCompiledQuery(String queryExpr, String currentVar, XmlOptions options) {
         assert queryExpr != null;
-        options = XmlOptions.maskNull(options);
+        XmlOptions opt = XmlOptions.maskNull(options);
+
+        return QUERY_CACHE.get(queryExpr, currentVar, USE_SAXON, opt.getLoadAdditionalNamespaces(),
+            () -> createQuery(queryExpr, currentVar, opt));
+    }
 
+    private static XQuery createQuery(String queryExpr, String currentVar, XmlOptions options) {
         //Parse the query via XmlBeans: need to figure out end of prolog
         //in order to bind $this...not good but...
         Map<String, String> boundary = new HashMap<>();
@@ -182,7 +181,7 @@ public class XPathFactory {
         return new SaxonXQuery(queryExpr, currentVar, boundaryVal, options);
     }
 
-    public static synchronized String compileQuery(String queryExpr, XmlOptions options) {
+    public static String compileQuery(String queryExpr, XmlOptions options) {
         getCompiledQuery(queryExpr, options);
         return queryExpr;
     }
@@ -60,13 +60,12 @@ public class SaxonXQuery implements XQuery {
     private final String contextVar;
     private final Configuration config;
 
-    private Cur _cur;
-    private long _version;
-    private XmlOptions _options;
-
 
     /**
      * Construct given an XQuery expression string.
+     * <p>
+     * The compiled query doesn't keep any state of an execution, so it can be cached and
+     * executed by many threads concurrently.
      *
      * @param query      The XQuery expression
      * @param contextVar The name of the context variable
@@ -75,9 +74,6 @@ public class SaxonXQuery implements XQuery {
     public SaxonXQuery(final String query, String contextVar, Integer boundary, XmlOptions xmlOptions) {
         assert !(contextVar.startsWith(".") || contextVar.startsWith(".."));
 
-        _options = xmlOptions;
-
-
         config = new Configuration();
         StaticQueryContext sc = config.newStaticQueryContext();
         Map<String, String> nsMap = xmlOptions.getLoadAdditionalNamespaces();
@@ -99,17 +95,19 @@ public class SaxonXQuery implements XQuery {
 
 
     public XmlObject[] objectExecute(Cur c, XmlOptions options) {
-        _version = c.getLocale().version();
-        _cur = c.weakCur(this);
-        this._options = options;
-
-        Map<String, Object> bindings = XmlOptions.maskNull(_options).getXqueryVariables();
-        List<Object> resultsList = execQuery(_cur.getDom(), bindings);
+        Cur cur = c.weakCur(this);
+        List<Object> resultsList;
+        try {
+            Map<String, Object> bindings = XmlOptions.maskNull(options).getXqueryVariables();
+            resultsList = execQuery(cur.getDom(), bindings);
+        } finally {
+            cur.release();
+        }
 
         XmlObject[] result = new XmlObject[resultsList.size()];
         for (int i = 0; i < resultsList.size(); i++) {
             //copy objects into the locale
-            Locale l = Locale.getLocale(_cur.getLocale().getSchemaTypeLoader(), _options);
+            Locale l = Locale.getLocale(c.getLocale().getSchemaTypeLoader(), options);
 
             l.enter();
             Object node = resultsList.get(i);
@@ -123,7 +121,7 @@ public class SaxonXQuery implements XQuery {
                     Locale.autoTypeDocument(res, type, null);
                     result[i] = res.getObject();
                 } else {
-                    res = loadNode(l, (Node) node);
+                    res = loadNode(l, (Node) node, options);
                 }
                 result[i] = res.getObject();
             } catch (XmlException e) {
@@ -133,38 +131,38 @@ public class SaxonXQuery implements XQuery {
             }
             res.release();
         }
-        release();
         return result;
     }
 
     public XmlCursor cursorExecute(Cur c, XmlOptions options) {
-        _version = c.getLocale().version();
-        _cur = c.weakCur(this);
-        this._options = options;
-
-        Map<String, Object> bindings = XmlOptions.maskNull(_options).getXqueryVariables();
-        List<Object> resultsList = execQuery(_cur.getDom(), bindings);
+        Cur cur = c.weakCur(this);
+        List<Object> resultsList;
+        try {
+            Map<String, Object> bindings = XmlOptions.maskNull(options).getXqueryVariables();
+            resultsList = execQuery(cur.getDom(), bindings);
+        } finally {
+            cur.release();
+        }
 
         int i;
 
-        Locale locale = Locale.getLocale(_cur.getLocale().getSchemaTypeLoader(), _options);
+        Locale locale = Locale.getLocale(c.getLocale().getSchemaTypeLoader(), options);
         locale.enter();
-        Locale.LoadContext _context = new Cur.CurLoadContext(locale, _options);
+        Locale.LoadContext _context = new Cur.CurLoadContext(locale, options);
         Cursor resultCur = null;
         try {
             for (i = 0; i < resultsList.size(); i++) {
                 loadNodeHelper(locale, (Node) resultsList.get(i), _context);
             }
             Cur c2 = _context.finish();
-            Locale.associateSourceName(c, _options);
-            Locale.autoTypeDocument(c, null, _options);
+            Locale.associateSourceName(c, options);
+            Locale.autoTypeDocument(c, null, options);
             resultCur = new Cursor(c2);
         } catch (XmlException e) {
             LOG.atInfo().withThrowable(e).log("Can't autotype document");
         } finally {
             locale.exit();
         }
-        release();
         return resultCur;
     }
 
@@ -327,22 +325,14 @@ public class SaxonXQuery implements XQuery {
         return type;
     }
 
-    public void release() {
-        if (_cur != null) {
-            _cur.release();
-            _cur = null;
-        }
-    }
-
-
-    private Cur loadNode(Locale locale, Node node) {
-        Locale.LoadContext context = new Cur.CurLoadContext(locale, _options);
+    private Cur loadNode(Locale locale, Node node, XmlOptions options) {
+        Locale.LoadContext context = new Cur.CurLoadContext(locale, options);
 
         try {
             loadNodeHelper(locale, node, context);
             Cur c = context.finish();
-            Locale.associateSourceName(c, _options);
-            Locale.autoTypeDocument(c, null, _options);
+            Locale.associateSourceName(c, options);
+            Locale.autoTypeDocument(c, null, options);
             return c;
         } catch (Exception e) {
             throw new XmlRuntimeException(e.getMessage(), e);
@@ -18,6 +18,8 @@ package compile.scomp.checkin;
 import org.apache.xmlbeans.*;
 import org.apache.xmlbeans.XmlOptions.BeanMethod;
 import org.apache.xmlbeans.impl.common.QNameHelper;
+import org.apache.xmlbeans.impl.schema.ClassLoaderResourceLoader;
+import org.apache.xmlbeans.impl.schema.DocumentFactory;
 import org.apache.xmlbeans.impl.tool.*;
 import org.apache.xmlbeans.impl.util.FilerImpl;
 import org.apache.xmlbeans.impl.xb.xsdschema.SchemaDocument;
@@ -31,16 +33,24 @@ import org.junit.platform.launcher.core.LauncherFactory;
 import org.junit.platform.launcher.listeners.SummaryGeneratingListener;
 import org.junit.platform.launcher.listeners.TestExecutionSummary;
 
+import javax.xml.namespace.QName;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarFile;
 import java.util.stream.Stream;
 
 import static common.Common.SCOMP_CASE_ROOT;
@@ -167,6 +177,229 @@ public class CompilationTests {
         assertTrue(outputjar.exists(), "Cannot find " + outputjar);
     }
 
+    @Test
+    void testInMemoryCompilation() throws IOException {
+        deltree(xbeanOutput("compile/scomp/inmemory"));
+        File srcdir = xbeanOutput("compile/scomp/inmemory/src");
+        File classesdir = xbeanOutput("compile/scomp/inmemory/classes");
+        File outputjar = xbeanOutput("compile/scomp/inmemory/inmemory.jar");
+        Parameters params = new Parameters();
+        params.setXsdFiles(xbeanCase("../../simple/person/person.xsd"));
+        params.setSrcDir(srcdir);
+        params.setClassesDir(classesdir);
+        params.setOutputJar(outputjar);
+        params.setInMemoryCompile(true);
+        params.setParallelism(4);
+        List<XmlError> errors = new ArrayList<>();
+        params.setErrorListener(errors);
+        boolean result = SchemaCompiler.compile(params);
+        StringWriter message = new StringWriter();
+        if (!result)
+            dumpErrors(errors, new PrintWriter(message));
+        assertTrue(result, "Build failed:" + message);
+        assertTrue(outputjar.exists(), "Cannot find " + outputjar);
+
+        try (JarFile jar = new JarFile(outputjar)) {
+            assertNotNull(jar.getEntry("org/openuri/mytest/CustomerDocument.class"));
+            assertTrue(jar.stream().anyMatch(e -> e.getName().endsWith(".xsb")));
+        }
+    }
+
+    @Test
+    void testGeneratedImplFactory() throws Exception {
+        deltree(xbeanOutput("compile/scomp/implfactory"));
+        File outputjar = xbeanOutput("compile/scomp/implfactory/implfactory.jar");
+        Parameters params = new Parameters();
+        params.setXsdFiles(xbeanCase("../../simple/person/person.xsd"));
+        params.setSrcDir(xbeanOutput("compile/scomp/implfactory/src"));
+        params.setClassesDir(xbeanOutput("compile/scomp/implfactory/classes"));
+        params.setOutputJar(outputjar);
+        List<XmlError> errors = new ArrayList<>();
+        params.setErrorListener(errors);
+        assertTrue(SchemaCompiler.compile(params), "Build failed");
+
+        QName customer = new QName("http://openuri.org/mytest", "customer");
+        try (URLClassLoader cl = new URLClassLoader(new URL[]{outputjar.toURI().toURL()}, getClass().getClassLoader())) {
+            SchemaTypeLoader loader = XmlBeans.typeLoaderForClassLoader(cl);
+            SchemaType docType = loader.findDocumentType(customer);
+            assertNotNull(docType);
+            String implName = docType.getFullJavaImplName();
+
+            // the holder overrides the factory with a switch over the implementation classes
+            Class<?> holder = cl.loadClass(docType.getTypeSystem().getName() + ".TypeSystemHolder");
+            assertNotNull(holder.getDeclaredMethod("newImplInstance", String.class, SchemaType.class));
+
+            DocumentFactory<?> factory = (DocumentFactory<?>) cl.loadClass(docType.getFullJavaName()).getField("Factory").get(null);
+            XmlObject doc = (XmlObject) factory.newInstance();
+            assertEquals(implName, doc.getClass().getName());
+            assertEquals(docType, doc.schemaType());
+
+            assertEquals(implName, loader.newInstance(docType, null).getClass().getName());
+        }
+    }
+
+    @Test
+    void testXsbPack() throws Exception {
+        File out = xbeanOutput("compile/scomp/xsbpack");
+        deltree(out);
+        SchemaDocument.Schema schema = SchemaDocument.Factory.parse(xbeanCase("../../simple/person/person.xsd")).getSchema();
+        XmlOptions options = new XmlOptions().setCompileXsbPack();
+        SchemaTypeSystem sts = XmlBeans.compileXsd(new XmlObject[]{schema}, XmlBeans.getBuiltinTypeSystem(), options);
+        sts.saveToDirectory(out);
+
+        String base = sts.getName().replace('.', '/') + "/";
+        assertTrue(new File(out, base + "index.xsbpack").isFile());
+        assertFalse(new File(out, base + "index.xsb").exists());
+
+        ByteArrayOutputStream dump = new ByteArrayOutputStream();
+        try (InputStream is = Files.newInputStream(new File(out, base + "index.xsbpack").toPath())) {
+            XsbDumper.dump(is, "", new PrintStream(dump, true, "UTF-8"));
+        }
+        String dumped = dump.toString("UTF-8");
+        assertTrue(dumped.contains("Filetype: FILETYPE_SCHEMAPACK"));
+        assertTrue(dumped.contains("index (FILETYPE_SCHEMAINDEX)"));
+
+        QName customer = new QName("http://openuri.org/mytest", "customer");
+        try (URLClassLoader cl = new URLClassLoader(new URL[]{out.toURI().toURL()}, null)) {
+            SchemaTypeLoader loader = XmlBeans.typeLoaderForResource(new ClassLoaderResourceLoader(cl));
+            SchemaGlobalElement elt = loader.findElement(customer);
+            assertNotNull(elt);
+            SchemaType expected = sts.findElement(customer).getType();
+            assertEquals(expected.getName(), elt.getType().getName());
+            assertEquals(expected.getProperties().length, elt.getType().getProperties().length);
+            assertNotNull(loader.findDocumentType(customer));
+        }
+    }
+
+    @Test
+    void testComponentIndex() throws Exception {
+        File out = xbeanOutput("compile/scomp/componentindex");
+        deltree(out);
+        SchemaDocument.Schema schema = SchemaDocument.Factory.parse(xbeanCase("../../simple/person/person.xsd")).getSchema();
+        SchemaTypeSystem sts = XmlBeans.compileXsd(new XmlObject[]{schema}, XmlBeans.getBuiltinTypeSystem(), null);
+        sts.saveToDirectory(out);
+
+        String metadata = "org/apache/xmlbeans/metadata/";
+        assertTrue(new File(out, metadata + "component.xsbindex").isFile());
+        QName customer = new QName("http://openuri.org/mytest", "customer");
+        assertTrue(new File(out, metadata + "element/" + QNameHelper.hexsafedir(customer) + ".xsb").isFile());
+
+        // the type system itself can't be loaded without the holder class, but misses are answered by the index
+        try (URLClassLoader cl = new URLClassLoader(new URL[]{out.toURI().toURL()}, null)) {
+            SchemaTypeLoader loader = XmlBeans.typeLoaderForClassLoader(cl);
+            assertNull(loader.findElement(new QName("http://openuri.org/mytest", "nosuch")));
+            assertNull(loader.findType(new QName("http://openuri.org/mytest", "nosuch")));
+            assertNull(loader.findElement(new QName("urn:undefined", "any")));
+            assertFalse(loader.isNamespaceDefined("urn:undefined"));
+        }
+    }
+
+    @Test
+    void testComponentIndexHit() throws Exception {
+        File dir = xbeanOutput("compile/scomp/componentindexhit");
+        deltree(dir);
+        File classes = new File(dir, "classes");
+        compileSharedNamespaceSchema(new File(dir, "a"), classes, "a");
+
+        QName a = new QName("urn:shared", "a");
+        try (RecordingClassLoader cl = new RecordingClassLoader(classes)) {
+            SchemaTypeLoader loader = XmlBeans.typeLoaderForClassLoader(cl);
+            assertNotNull(loader.findElement(a));
+            assertTrue(loader.isNamespaceDefined("urn:shared"));
+
+            // the pointer resources of indexed components aren't read
+            assertFalse(cl.requested.contains("org/apache/xmlbeans/metadata/element/" + QNameHelper.hexsafedir(a) + ".xsb"));
+        }
+    }
+
+    @Test
+    void testComponentIndexSharedNamespace() throws Exception {
+        File dir = xbeanOutput("compile/scomp/componentindexshared");
+        deltree(dir);
+        File classes = new File(dir, "classes");
+        compileSharedNamespaceSchema(new File(dir, "a"), classes, "a");
+        // the index of the second type system replaces the index of the first one
+        compileSharedNamespaceSchema(new File(dir, "b"), classes, "b");
+
+        QName a = new QName("urn:shared", "a");
+        QName b = new QName("urn:shared", "b");
+        try (RecordingClassLoader cl = new RecordingClassLoader(classes)) {
+            SchemaTypeLoader loader = XmlBeans.typeLoaderForClassLoader(cl);
+            assertNotNull(loader.findElement(b));
+            assertFalse(cl.requested.contains("org/apache/xmlbeans/metadata/element/" + QNameHelper.hexsafedir(b) + ".xsb"));
+
+            // the element of the first type system isn't indexed, but is still found by its pointer
+            SchemaGlobalElement elt = loader.findElement(a);
+            assertNotNull(elt);
+            assertNotEquals(elt.getTypeSystem().getName(), loader.findElement(b).getTypeSystem().getName());
+            assertNull(loader.findElement(new QName("urn:shared", "nosuch")));
+        }
+    }
+
+    @Test
+    void testComponentIndexShadowed() throws Exception {
+        File dir = xbeanOutput("compile/scomp/componentindexshadowed");
+        deltree(dir);
+        File first = new File(dir, "first");
+        File second = new File(dir, "second");
+        compileSharedNamespaceSchema(new File(dir, "a1"), first, "a", "xs:int");
+        assertTrue(new File(first, "org/apache/xmlbeans/metadata/component.xsbindex").delete());
+        compileSharedNamespaceSchema(new File(dir, "a2"), second, "a", "xs:string");
+
+        // the earlier class path entry without index shadows the indexed component
+        try (RecordingClassLoader cl = new RecordingClassLoader(first, second)) {
+            SchemaTypeLoader loader = XmlBeans.typeLoaderForClassLoader(cl);
+            SchemaGlobalElement elt = loader.findElement(new QName("urn:shared", "a"));
+            assertNotNull(elt);
+            assertEquals(XmlInt.type, elt.getType());
+        }
+    }
+
+    private static void compileSharedNamespaceSchema(File dir, File classes, String element) throws IOException {
+        compileSharedNamespaceSchema(dir, classes, element, "xs:string");
+    }
+
+    private static void compileSharedNamespaceSchema(File dir, File classes, String element, String type) throws IOException {
+        File xsd = new File(dir, element + ".xsd");
+        dir.mkdirs();
+        String schema = "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' targetNamespace='urn:shared'>" +
+            "<xs:element name='" + element + "' type='" + type + "'/></xs:schema>";
+        Files.write(xsd.toPath(), schema.getBytes(StandardCharsets.UTF_8));
+
+        Parameters params = new Parameters();
+        params.setXsdFiles(xsd);
+        params.setSrcDir(new File(dir, "src"));
+        params.setClassesDir(classes);
+        List<XmlError> errors = new ArrayList<>();
+        params.setErrorListener(errors);
+        assertTrue(SchemaCompiler.compile(params), "Build failed: " + errors);
+    }
+
+    /**
+     * Records the resources read by the type loader
+     */
+    private static final class RecordingClassLoader extends URLClassLoader {
+        final Set<String> requested = ConcurrentHashMap.newKeySet();
+
+        RecordingClassLoader(File... classes) throws MalformedURLException {
+            super(toURLs(classes), CompilationTests.class.getClassLoader());
+        }
+
+        private static URL[] toURLs(File[] classes) throws MalformedURLException {
+            URL[] urls = new URL[classes.length];
+            for (int i = 0; i < classes.length; i++) {
+                urls[i] = classes[i].toURI().toURL();
+            }
+            return urls;
+        }
+
+        @Override
+        public InputStream getResourceAsStream(String name) {
+            requested.add(name);
+            return super.getResourceAsStream(name);
+        }
+    }
+
     @Test
     void testIncrementalCompilation() throws IOException, XmlException {
         File[] files = new File[]{
@@ -489,6 +722,69 @@ public class CompilationTests {
         assertTrue(act.contains("* / heck, I'm smart"));
     }
 
+    @Test
+    void parallelCompileErrorOrder() throws Exception {
+        StringBuilder xsd = new StringBuilder(
+            "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' targetNamespace='urn:par' xmlns:p='urn:par'>");
+        for (int i = 0; i < 50; i++) {
+            // two ID attributes and an invalid default value in each type
+            xsd.append("<xs:complexType name='t").append(i).append("'><xs:sequence>")
+                .append("<xs:element name='e' type='xs:int' default='x").append(i).append("'/>")
+                .append("</xs:sequence>")
+                .append("<xs:attribute name='a' type='xs:ID'/><xs:attribute name='b' type='xs:ID'/>")
+                .append("</xs:complexType>");
+        }
+        xsd.append("</xs:schema>");
+
+        List<String> expected = null;
+        for (int parallelism : new int[]{1, 4}) {
+            List<XmlError> errors = new ArrayList<>();
+            XmlOptions options = new XmlOptions().setErrorListener(errors).setCompileParallelism(parallelism);
+            XmlObject[] schemas = {XmlObject.Factory.parse(xsd.toString())};
+            assertThrows(XmlException.class, () -> XmlBeans.compileXsd(schemas, XmlBeans.getBuiltinTypeSystem(), options));
+
+            List<String> messages = new ArrayList<>();
+            errors.forEach(e -> messages.add(e.toString()));
+            assertTrue(messages.size() >= 50);
+            if (expected == null) {
+                expected = messages;
+            } else {
+                assertEquals(expected, messages);
+            }
+        }
+    }
+
+    @Test
+    void parallelCompileUnsynchronized() throws Exception {
+        StringBuilder xsd = new StringBuilder(
+            "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' targetNamespace='urn:par' xmlns:p='urn:par'>");
+        for (int i = 0; i < 200; i++) {
+            // the invalid defaults are located through their attributes in the shared document
+            xsd.append("<xs:complexType name='t").append(i).append("'><xs:sequence>")
+                .append("<xs:element name='e' type='xs:int' default='x").append(i).append("'/>")
+                .append("<xs:element name='f' type='xs:ID'/>")
+                .append("</xs:sequence></xs:complexType>");
+        }
+        xsd.append("</xs:schema>");
+
+        List<String> expected = null;
+        for (int parallelism : new int[]{1, 4, 4, 4}) {
+            List<XmlError> errors = new ArrayList<>();
+            XmlOptions options = new XmlOptions().setErrorListener(errors).setCompileParallelism(parallelism);
+            XmlObject[] schemas = {XmlObject.Factory.parse(xsd.toString(), new XmlOptions().setUnsynchronized())};
+            assertThrows(XmlException.class, () -> XmlBeans.compileXsd(schemas, XmlBeans.getBuiltinTypeSystem(), options));
+
+            List<String> messages = new ArrayList<>();
+            errors.forEach(e -> messages.add(e.toString()));
+            assertTrue(messages.size() >= 400);
+            if (expected == null) {
+                expected = messages;
+            } else {
+                assertEquals(expected, messages);
+            }
+        }
+    }
+
     //TESTENV:
 
     private static void dumpErrors(List<XmlError> errors, PrintWriter out) {
@@ -0,0 +1,56 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package misc.checkin;
+
+import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+public class OutputStreamSaveTest {
+    @ParameterizedTest
+    @ValueSource(strings = {"UTF-8", "US-ASCII", "ISO-8859-1", "UTF-16"})
+    void saveMatchesInputStream(String encoding) throws XmlException, IOException {
+        StringBuilder sb = new StringBuilder("<root a='é€'>");
+        for (int i = 0; i < 2000; i++) {
+            sb.append("<e i='").append(i).append("'>café € 😀 &lt;").append(i).append("</e>");
+        }
+        sb.append("<!--ÿ--></root>");
+        XmlObject xo = XmlObject.Factory.parse(sb.toString());
+
+        XmlOptions opts = new XmlOptions().setCharacterEncoding(encoding).setSavePrettyPrint();
+
+        ByteArrayOutputStream saved = new ByteArrayOutputStream();
+        xo.save(saved, opts);
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        try (InputStream is = xo.newInputStream(opts)) {
+            byte[] buf = new byte[1024];
+            for (int n; (n = is.read(buf)) != -1; ) {
+                expected.write(buf, 0, n);
+            }
+        }
+
+        assertArrayEquals(expected.toByteArray(), saved.toByteArray());
+    }
+}
@@ -0,0 +1,104 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package misc.checkin;
+
+import org.apache.xmlbeans.QNameCache;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.namespace.QName;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class QNameCacheTest {
+
+    @Test
+    void charLookup() {
+        QNameCache cache = new QNameCache(32);
+        char[] buf = "xxurn:testlocalpfx".toCharArray();
+
+        QName q = cache.getName(buf, 2, 8, buf, 10, 5, buf, 15, 3);
+        assertEquals(new QName("urn:test", "local", "pfx"), q);
+        assertEquals("pfx", q.getPrefix());
+        assertSame(q, cache.getName("urn:test", "local", "pfx"));
+        assertSame(q, cache.getName(buf, 2, 8, buf, 10, 5, buf, 15, 3));
+
+        QName noPrefix = cache.getName(buf, 2, 8, buf, 10, 5);
+        assertEquals("", noPrefix.getPrefix());
+        assertSame(noPrefix, cache.getName("urn:test", "local"));
+
+        assertEquals(2, cache.getMisses());
+        assertEquals(3, cache.getHits());
+    }
+
+    @Test
+    void boundedCache() {
+        QNameCache cache = new QNameCache(16, 0.7f, 10);
+        QName hot = cache.getName("urn:test", "hot");
+        for (int i = 0; i < 1000; i++) {
+            cache.getName("urn:test", "cold" + i);
+            // keep the hot entry referenced, so it survives the eviction
+            assertSame(hot, cache.getName("urn:test", "hot"));
+        }
+        assertEquals(1001, cache.getMisses());
+        assertTrue(cache.size() <= 10, "size " + cache.size());
+    }
+
+    @Test
+    void boundedSharedCache() {
+        QNameCache cache = QNameCache.newSharedCache(64);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(new QName("urn:test", "n" + i), cache.getName("urn:test", "n" + i));
+        }
+        assertEquals(1000, cache.getMisses());
+        assertTrue(cache.size() > 0);
+        assertTrue(cache.size() <= 64, "size " + cache.size());
+    }
+
+    @Test
+    void sharedCache() throws Exception {
+        QNameCache cache = QNameCache.newSharedCache(64);
+        assertTrue(cache.isShared());
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        String local = "n" + (i % 100);
+                        QName q = cache.getName("urn:test".toCharArray(), 0, 8, local.toCharArray(), 0, local.length());
+                        assertEquals(new QName("urn:test", local), q);
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(40000, cache.getHits() + cache.getMisses());
+    }
+}
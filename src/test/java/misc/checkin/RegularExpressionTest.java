@@ -1,45 +1,84 @@
-/*   Copyright 2004 The Apache Software Foundation
- *
- *   Licensed under the Apache License, Version 2.0 (the "License");
- *   you may not use this file except in compliance with the License.
- *   You may obtain a copy of the License at
- *
- *       http://www.apache.org/licenses/LICENSE-2.0
- *
- *   Unless required by applicable law or agreed to in writing, software
- *   distributed under the License is distributed on an "AS IS" BASIS,
- *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- *   See the License for the specific language governing permissions and
- *  limitations under the License.
- */
-
-package misc.checkin;
-
-import org.apache.xmlbeans.impl.regex.RegularExpression;
-import org.junit.jupiter.api.Test;
-
-import java.util.Random;
-
-import static org.junit.jupiter.api.Assertions.assertTrue;
-
-public class RegularExpressionTest {
-
-    @Test
-    void testLongString() {
-        RegularExpression regex = new RegularExpression("[A-Z0-9]+");
-        String rnd = randomString(10000);
-        assertTrue(regex.matches(rnd));
-    }
-
-
-    private static final String AB = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ";
-    private static final Random rnd = new Random();
-
-    private String randomString(int len) {
-        StringBuilder sb = new StringBuilder(len);
-        for (int i = 0; i < len; i++) {
-            sb.append(AB.charAt(rnd.nextInt(AB.length())));
-        }
-        return sb.toString();
-    }
-}
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package misc.checkin;
+
+import org.apache.xmlbeans.impl.regex.Match;
+import org.apache.xmlbeans.impl.regex.RegularExpression;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RegularExpressionTest {
+
+    @Test
+    void testLongString() {
+        RegularExpression regex = new RegularExpression("[A-Z0-9]+");
+        String rnd = randomString(10000);
+        assertTrue(regex.matches(rnd));
+    }
+
+    @Test
+    void testSchemaPatternsMatchLikeBacktracking() {
+        String[] patterns = {
+            "[A-Z]{2}[0-9]{2}[A-Z0-9]{1,30}", "a|ab", "(a|b)*abb", "\\p{L}+\\d?", "[^a-c]*x",
+            ".*", "(ab){2,4}c?", "[a-z-[aeiou]]+", "x{3,}", "((a|)b?)+", "a.c"
+        };
+        String chars = "aAbBcx0123F9-:_ \n\u00e9\ud800\udc00";
+        Random r = new Random(42);
+
+        for (String pattern : patterns) {
+            RegularExpression regex = new RegularExpression(pattern, "X");
+            for (int i = 0; i < 1000; i++) {
+                StringBuilder sb = new StringBuilder();
+                for (int j = r.nextInt(10); j > 0; j--) {
+                    sb.append(chars.charAt(r.nextInt(chars.length())));
+                }
+                String s = sb.toString();
+                // passing a Match forces the backtracking matcher
+                assertEquals(regex.matches(s, new Match()), regex.matches(s), pattern + " on " + s);
+            }
+        }
+    }
+
+    @Test
+    void testSchemaPatternSingleLine() {
+        RegularExpression dot = new RegularExpression("a.c", "X");
+        RegularExpression dotAll = new RegularExpression("a.c", "Xs");
+        for (char eol : new char[]{'\n', '\r', '\u2028', '\u2029'}) {
+            String s = "a" + eol + "c";
+            assertFalse(dot.matches(s));
+            assertTrue(dotAll.matches(s));
+            assertTrue(dotAll.matches(s, new Match()));
+        }
+        assertTrue(dotAll.matches("abc"));
+        assertFalse(dotAll.matches("ac"));
+    }
+
+    private static final String AB = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final Random rnd = new Random();
+
+    private String randomString(int len) {
+        StringBuilder sb = new StringBuilder(len);
+        for (int i = 0; i < len; i++) {
+            sb.append(AB.charAt(rnd.nextInt(AB.length())));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,57 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package misc.checkin;
+
+import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.apache.xmlbeans.impl.store.Locale;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SaxLoaderReuseTest {
+    @Test
+    void reuseReader() throws XmlException {
+        XmlObject.Factory.parse("<a/>");
+        long reused = Locale.getSaxLoaderReusedCount();
+
+        for (int i = 0; i < 10; i++) {
+            XmlObject xo = XmlObject.Factory.parse("<a xmlns='urn:" + i + "'><![CDATA[x]]><b>" + i + "</b></a>");
+            assertEquals("<a xmlns=\"urn:" + i + "\">x<b>" + i + "</b></a>", xo.xmlText());
+        }
+
+        assertTrue(Locale.getSaxLoaderReusedCount() >= reused + 10);
+    }
+
+    @Test
+    void recoverAfterError() throws XmlException {
+        assertThrows(XmlException.class, () -> XmlObject.Factory.parse("<a><b></a>"));
+        assertEquals("<a><b/></a>", XmlObject.Factory.parse("<a><b/></a>").xmlText());
+    }
+
+    @Test
+    void securityOptionsAreNotShared() throws XmlException {
+        String doctype = "<!DOCTYPE a [<!ENTITY e 'x'>]><a>&e;</a>";
+        assertEquals("<a>x</a>", XmlObject.Factory.parse(doctype).xmlText());
+
+        XmlOptions opts = new XmlOptions().setDisallowDocTypeDeclaration(true);
+        assertThrows(XmlException.class, () -> XmlObject.Factory.parse(doctype, opts));
+
+        // the reader of the default options doesn't pick up the restriction
+        assertEquals("<a>x</a>", XmlObject.Factory.parse(doctype).xmlText());
+    }
+}
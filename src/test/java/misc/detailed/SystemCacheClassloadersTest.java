@@ -18,6 +18,7 @@ package misc.detailed;
 
 import org.apache.xmlbeans.SchemaType;
 import org.apache.xmlbeans.SchemaTypeLoader;
+import org.apache.xmlbeans.ThreadLocalUtil;
 import org.apache.xmlbeans.XmlBeans;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -54,6 +55,31 @@ public class SystemCacheClassloadersTest {
 
     }
 
+    @Test
+    void testContextTypeLoaderSharedAcrossThreads() throws Exception {
+        Thread current = Thread.currentThread();
+        ClassLoader old = current.getContextClassLoader();
+        URLClassLoader cl = new URLClassLoader(new URL[0], old);
+        try {
+            current.setContextClassLoader(cl);
+            SchemaTypeLoader loader = XmlBeans.getContextTypeLoader();
+
+            SchemaTypeLoader[] other = new SchemaTypeLoader[1];
+            Thread t = new Thread(() -> other[0] = XmlBeans.getContextTypeLoader());
+            t.setContextClassLoader(cl);
+            t.start();
+            t.join();
+            assertSame(loader, other[0]);
+
+            // not a thread local
+            ThreadLocalUtil.clearAllThreadLocals();
+            assertSame(loader, XmlBeans.getContextTypeLoader());
+        } finally {
+            current.setContextClassLoader(old);
+            cl.close();
+        }
+    }
+
     public static class SystemCacheThread extends Thread {
         private String name;
 
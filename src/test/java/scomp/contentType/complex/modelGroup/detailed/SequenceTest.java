@@ -14,13 +14,21 @@
  */
 package scomp.contentType.complex.modelGroup.detailed;
 
+import org.apache.xmlbeans.SchemaType;
+import org.apache.xmlbeans.SchemaTypeElementSequencer;
+import org.apache.xmlbeans.SchemaTypeSystem;
+import org.apache.xmlbeans.XmlBeans;
 import org.apache.xmlbeans.XmlErrorCodes;
+import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlObject;
 import org.apache.xmlbeans.XmlOptions;
 import org.apache.xmlbeans.XmlString;
+import org.apache.xmlbeans.impl.schema.SchemaTypeImpl;
 import org.junit.jupiter.api.Test;
 import xbean.scomp.contentType.modelGroup.SequenceEltDocument;
 import xbean.scomp.contentType.modelGroup.SequenceT;
 
+import javax.xml.namespace.QName;
 import java.math.BigInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -45,6 +53,82 @@ public class SequenceTest {
         assertArrayEquals(errExpected, getErrorCodes(validateOptions));
     }
 
+    @Test
+    void testContentModelAutomaton() {
+        assertNotNull(((SchemaTypeImpl) SequenceT.type).getContentModelAutomaton());
+
+        SchemaTypeElementSequencer seq = SequenceT.type.getElementSequencer();
+        assertFalse(seq.peek(new QName("child2")));
+        assertTrue(seq.next(new QName("child1")));
+        assertTrue(seq.next(new QName("child2")));
+        assertTrue(seq.next(new QName("child2")));
+        assertFalse(seq.next(new QName("child2")));
+        assertTrue(seq.peek(new QName("child3")));
+        assertFalse(seq.next(null));
+        assertTrue(seq.next(new QName("child3")));
+        assertTrue(seq.next(new QName("child3")));
+        assertFalse(seq.next(new QName("child3")));
+        assertTrue(seq.next(null));
+    }
+
+    private static final String AUTOMATON_XSD =
+        "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' targetNamespace='urn:automaton' xmlns:t='urn:automaton' elementFormDefault='qualified'>" +
+        "<xs:complexType name='choiceT'><xs:choice maxOccurs='2'>" +
+        "<xs:element name='a' type='xs:string'/><xs:element name='b' type='xs:string'/></xs:choice></xs:complexType>" +
+        "<xs:complexType name='wildcardT'><xs:sequence><xs:element name='a' type='xs:string'/>" +
+        "<xs:any namespace='##other' processContents='skip' minOccurs='0' maxOccurs='unbounded'/>" +
+        "<xs:element name='b' type='xs:string'/></xs:sequence></xs:complexType>" +
+        "<xs:complexType name='boundsT'><xs:sequence>" +
+        "<xs:element name='a' type='xs:string' minOccurs='2' maxOccurs='3'/></xs:sequence></xs:complexType>" +
+        "<xs:complexType name='allT'><xs:all>" +
+        "<xs:element name='a' type='xs:string'/><xs:element name='b' type='xs:string'/></xs:all></xs:complexType>" +
+        "<xs:element name='all' type='t:allT'/>" +
+        "</xs:schema>";
+
+    @Test
+    void testContentModelAutomatonParticles() throws XmlException {
+        SchemaTypeSystem sts = XmlBeans.compileXsd(
+            new XmlObject[]{XmlObject.Factory.parse(AUTOMATON_XSD)}, XmlBeans.getBuiltinTypeSystem(), null);
+        QName a = new QName("urn:automaton", "a");
+        QName b = new QName("urn:automaton", "b");
+
+        SchemaType choiceT = sts.findType(new QName("urn:automaton", "choiceT"));
+        assertNotNull(((SchemaTypeImpl) choiceT).getContentModelAutomaton());
+        SchemaTypeElementSequencer seq = choiceT.getElementSequencer();
+        assertTrue(seq.next(b));
+        assertTrue(seq.next(a));
+        assertFalse(seq.next(a));
+
+        SchemaType wildcardT = sts.findType(new QName("urn:automaton", "wildcardT"));
+        assertNotNull(((SchemaTypeImpl) wildcardT).getContentModelAutomaton());
+        seq = wildcardT.getElementSequencer();
+        assertTrue(seq.next(a));
+        assertTrue(seq.next(new QName("urn:other", "x")));
+        assertTrue(seq.next(new QName("urn:other", "y")));
+        assertFalse(seq.peek(new QName("urn:automaton", "x")));
+        assertTrue(seq.next(b));
+        assertTrue(seq.next(null));
+
+        SchemaType boundsT = sts.findType(new QName("urn:automaton", "boundsT"));
+        assertNotNull(((SchemaTypeImpl) boundsT).getContentModelAutomaton());
+        seq = boundsT.getElementSequencer();
+        assertTrue(seq.next(a));
+        assertFalse(seq.peek(null));
+        assertTrue(seq.next(a));
+        assertTrue(seq.peek(null));
+        assertTrue(seq.next(a));
+        assertFalse(seq.next(a));
+
+        // all groups aren't compiled, the validation walks the particles
+        SchemaType allT = sts.findType(new QName("urn:automaton", "allT"));
+        assertNull(((SchemaTypeImpl) allT).getContentModelAutomaton());
+        SchemaType allDoc = sts.findDocumentType(new QName("urn:automaton", "all"));
+        XmlObject valid = sts.parse("<t:all xmlns:t='urn:automaton'><t:b/><t:a/></t:all>", allDoc, null);
+        assertTrue(valid.validate());
+        XmlObject invalid = sts.parse("<t:all xmlns:t='urn:automaton'><t:b/><t:b/></t:all>", allDoc, null);
+        assertFalse(invalid.validate());
+    }
+
     @Test
     void testWrongCardinality() {
         SequenceEltDocument doc = SequenceEltDocument.Factory.newInstance();
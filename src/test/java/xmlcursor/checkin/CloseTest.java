@@ -16,7 +16,10 @@
 
 package xmlcursor.checkin;
 
+import org.apache.xmlbeans.XmlBeans;
 import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import xmlcursor.common.Common;
@@ -33,5 +36,20 @@ public class CloseTest {
             Assertions.assertDoesNotThrow(m_xc::close);
         }
     }
-}
 
+    @Test
+    void testExplicitClose() throws Exception {
+        XmlObject xo = XmlObject.Factory.parse(Common.XML_FOO, new XmlOptions().setExplicitCursorClose());
+        long open = XmlBeans.getUntrackedCursorOpenCount();
+
+        XmlCursor c1 = xo.newCursor();
+        try (XmlCursor c2 = c1.newCursor()) {
+            Assertions.assertTrue(c2.toFirstChild());
+            Assertions.assertEquals(open + 2, XmlBeans.getUntrackedCursorOpenCount());
+        }
+        c1.close();
+        c1.close();
+
+        Assertions.assertEquals(open, XmlBeans.getUntrackedCursorOpenCount());
+    }
+}
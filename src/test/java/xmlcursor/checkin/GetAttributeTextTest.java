@@ -26,6 +26,7 @@ import javax.xml.namespace.QName;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static xmlcursor.common.BasicCursorTestCase.*;
 
 
@@ -69,5 +70,30 @@ public class GetAttributeTextTest {
             assertNull(m_xc.getAttributeText(new QName("attr1")));
         }
     }
-}
 
+    @Test
+    void testGetAttributeTextManyAttributes() throws Exception {
+        StringBuilder sb = new StringBuilder("<foo xmlns:p='urn:p'");
+        for (int i = 0; i < 80; i++) {
+            sb.append(" a").append(i).append("='v").append(i).append("' p:a").append(i).append("='p").append(i).append("'");
+        }
+        sb.append("/>");
+
+        try (XmlCursor m_xc = cur(sb.toString())) {
+            m_xc.toFirstChild();
+            for (int i = 0; i < 80; i++) {
+                assertEquals("v" + i, m_xc.getAttributeText(new QName("a" + i)));
+                assertEquals("p" + i, m_xc.getAttributeText(new QName("urn:p", "a" + i)));
+            }
+            assertNull(m_xc.getAttributeText(new QName("a80")));
+
+            // structural changes are visible to the lookups
+            assertTrue(m_xc.removeAttribute(new QName("a79")));
+            assertNull(m_xc.getAttributeText(new QName("a79")));
+            assertTrue(m_xc.setAttributeText(new QName("a80"), "v80"));
+            assertEquals("v80", m_xc.getAttributeText(new QName("a80")));
+            assertTrue(m_xc.setAttributeText(new QName("a40"), "x"));
+            assertEquals("x", m_xc.getAttributeText(new QName("a40")));
+        }
+    }
+}
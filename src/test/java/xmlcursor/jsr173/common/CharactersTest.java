@@ -18,12 +18,14 @@ package xmlcursor.jsr173.common;
 
 import org.apache.xmlbeans.XmlCursor;
 import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
 import org.junit.jupiter.api.Test;
 
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
+import java.util.ConcurrentModificationException;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -102,22 +104,21 @@ public class CharactersTest {
 
             assertEquals(XMLStreamConstants.COMMENT, m_stream.next());
             char[] result = m_stream.getTextCharacters();
-            assertEquals(" some comment ", new String(result).substring(m_stream.getTextStart(),
-                m_stream.getTextLength()));
+            assertEquals(" some comment ", new String(result, m_stream.getTextStart(), m_stream.getTextLength()));
 
             assertEquals(XMLStreamConstants.START_ELEMENT, m_stream.next());
             assertThrows(IllegalStateException.class, m_stream::getTextLength);
 
             assertEquals(XMLStreamConstants.CHARACTERS, m_stream.next());
             result = m_stream.getTextCharacters();
-            assertEquals("some text", new String(result).substring(m_stream.getTextStart(), m_stream.getTextLength()));
+            assertEquals("some text", new String(result, m_stream.getTextStart(), m_stream.getTextLength()));
 
             m_stream.next();
             m_stream.next();//skip empty elt
             m_stream.next(); //end foo
             assertEquals(XMLStreamConstants.CHARACTERS, m_stream.next());
             result = m_stream.getTextCharacters();
-            assertEquals("\t", new String(result).substring(m_stream.getTextStart(), m_stream.getTextLength()));
+            assertEquals("\t", new String(result, m_stream.getTextStart(), m_stream.getTextLength()));
             m_stream.next();
             assertThrows(IllegalStateException.class, m_stream::getTextLength);
 
@@ -219,4 +220,45 @@ public class CharactersTest {
             m_stream.close();
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetTextCharactersFromOffset() throws Exception {
+        XmlObject xo = XmlObject.Factory.parse("<a>first<b/>0123456789<!--abc--></a>");
+        try (XmlCursor cur = xo.newCursor()) {
+            XMLStreamReader m_stream = cur.newXMLStreamReader();
+            m_stream.next();
+            m_stream.next();
+            assertEquals(XMLStreamConstants.CHARACTERS, m_stream.next());
+            assertEquals("first", new String(m_stream.getTextCharacters(), m_stream.getTextStart(), m_stream.getTextLength()));
+
+            m_stream.next();
+            m_stream.next();
+            assertEquals(XMLStreamConstants.CHARACTERS, m_stream.next());
+            char[] buff = new char[4];
+            assertEquals(4, m_stream.getTextCharacters(3, buff, 0, 4));
+            assertEquals("3456", new String(buff));
+            assertEquals(2, m_stream.getTextCharacters(8, buff, 0, 4));
+            assertEquals("8956", new String(buff));
+            assertEquals("0123456789", new String(m_stream.getTextCharacters(), m_stream.getTextStart(), m_stream.getTextLength()));
+
+            assertEquals(XMLStreamConstants.COMMENT, m_stream.next());
+            assertEquals("abc", new String(m_stream.getTextCharacters(), m_stream.getTextStart(), m_stream.getTextLength()));
+            m_stream.close();
+        }
+    }
+
+    @Test
+    void testUnsynchronizedReader() throws Exception {
+        XmlObject xo = XmlObject.Factory.parse("<a>text</a>");
+        try (XmlCursor cur = xo.newCursor()) {
+            XMLStreamReader m_stream = cur.newXMLStreamReader(new XmlOptions().setStreamReaderUnsynchronized());
+            m_stream.next();
+            assertEquals(XMLStreamConstants.CHARACTERS, m_stream.next());
+            assertEquals("text", m_stream.getText());
+
+            cur.toFirstChild();
+            cur.setTextValue("changed");
+            assertThrows(ConcurrentModificationException.class, m_stream::getText);
+        }
+    }
+}
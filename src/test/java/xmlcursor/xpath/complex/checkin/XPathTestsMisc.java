@@ -16,8 +16,16 @@
 package xmlcursor.xpath.complex.checkin;
 
 import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.apache.xmlbeans.impl.xpath.Path;
+import org.apache.xmlbeans.impl.xpath.XPathCache;
+import org.apache.xmlbeans.impl.xpath.XPathFactory;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static xmlcursor.common.BasicCursorTestCase.cur;
 
 public class XPathTestsMisc {
@@ -36,4 +44,28 @@ public class XPathTestsMisc {
         }
     }
 
+    @Test
+    void testCompiledPathCache() throws Exception {
+        XPathCache<Path> cache = XPathFactory.getPathCache();
+        XmlOptions thisVar = new XmlOptions();
+        XmlOptions curVar = new XmlOptions().setXqueryCurrentNodeVar("cur");
+
+        Path p1 = XPathFactory.getCompiledPath("$this/foo", thisVar);
+        long hits = cache.getHits();
+        assertSame(p1, XPathFactory.getCompiledPath("$this/foo", thisVar));
+        assertEquals(hits + 1, cache.getHits());
+
+        // the same expression with another current node variable is a different compiled path
+        Path p2 = XPathFactory.getCompiledPath("foo", thisVar, "this");
+        Path p3 = XPathFactory.getCompiledPath("foo", thisVar, "cur");
+        assertNotSame(p2, p3);
+        assertSame(p3, XPathFactory.getCompiledPath("foo", curVar));
+
+        XmlObject xo = XmlObject.Factory.parse("<root><foo>1</foo><foo>2</foo></root>");
+        try (XmlCursor xc = xo.newCursor()) {
+            xc.toFirstChild();
+            xc.selectPath("$cur/foo", curVar);
+            assertEquals(2, xc.getSelectionCount());
+        }
+    }
 }
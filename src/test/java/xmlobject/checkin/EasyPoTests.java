@@ -17,12 +17,16 @@ package xmlobject.checkin;
 
 import com.easypo.XmlPurchaseOrderDocumentBean;
 import com.easypo.XmlPurchaseOrderDocumentBean.PurchaseOrder;
+import org.apache.xmlbeans.XmlCompactionStats;
+import org.apache.xmlbeans.XmlCursor;
 import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlOptions;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import javax.xml.namespace.QName;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 
@@ -61,6 +65,48 @@ public class EasyPoTests {
         assertEquals(3, order.sizeOfLineItemArray());
     }
 
+    @ParameterizedTest
+    @ValueSource(ints = {0, 2})
+    void testChildIndex(int threshold) throws XmlException {
+        XmlOptions opts = new XmlOptions().setChildIndexThreshold(threshold);
+        XmlPurchaseOrderDocumentBean doc = XmlPurchaseOrderDocumentBean.Factory.newInstance(opts);
+        PurchaseOrder order = doc.addNewPurchaseOrder();
+        order.addNewCustomer().setName("David Bau");
+        for (int i = 0; i < 10; i++) {
+            order.addNewLineItem().setDescription("item " + i);
+        }
+        order.addNewShipper().setName("UPS");
+
+        assertEquals(10, order.sizeOfLineItemArray());
+        assertEquals("item 0", order.getLineItemArray(0).getDescription());
+        assertEquals("item 9", order.getLineItemArray(9).getDescription());
+
+        order.insertNewLineItem(5).setDescription("inserted");
+        order.removeLineItem(0);
+        assertEquals(10, order.sizeOfLineItemArray());
+        assertEquals("item 1", order.getLineItemArray(0).getDescription());
+        assertEquals("inserted", order.getLineItemArray(4).getDescription());
+        assertEquals("item 9", order.getLineItemArray()[9].getDescription());
+        assertEquals("UPS", order.getShipper().getName());
+
+        // alternating inserts and lookups
+        for (int i = 0; i < 5; i++) {
+            order.insertNewLineItem(i).setDescription("front " + i);
+            assertEquals("front " + i, order.getLineItemArray(i).getDescription());
+            order.addNewLineItem().setDescription("back " + i);
+            assertEquals("back " + i, order.getLineItemArray(order.sizeOfLineItemArray() - 1).getDescription());
+        }
+        assertEquals(20, order.sizeOfLineItemArray());
+
+        // renamed children are no longer found under the old name
+        try (XmlCursor c = order.getLineItemArray(0).newCursor()) {
+            c.setName(new QName(c.getName().getNamespaceURI(), "renamed"));
+        }
+        assertEquals(19, order.sizeOfLineItemArray());
+        assertEquals("front 1", order.getLineItemArray(0).getDescription());
+        assertEquals("back 4", order.getLineItemArray(18).getDescription());
+    }
+
     @Test
     void testAutoValidationOk() {
         Assertions.assertDoesNotThrow(() -> XmlPurchaseOrderDocumentBean.Factory.parse(
@@ -78,4 +124,40 @@ public class EasyPoTests {
     void testSimpleAutoValidationNok(String xml) {
         assertThrows(XmlException.class, () -> XmlPurchaseOrderDocumentBean.Factory.parse(xml));
     }
+
+    @Test
+    void testTrimTextBuffer() throws Exception {
+        XmlPurchaseOrderDocumentBean plain = (XmlPurchaseOrderDocumentBean) jobj("xbean/xmlobject/easypo1.xml");
+        XmlOptions opts = new XmlOptions().setLoadTrimTextBuffer();
+        XmlPurchaseOrderDocumentBean doc = (XmlPurchaseOrderDocumentBean) jobj("xbean/xmlobject/easypo1.xml", opts);
+        assertEquals(plain.xmlText(), doc.xmlText());
+
+        // already trimmed while loading
+        XmlCompactionStats stats = doc.compact();
+        assertEquals(stats.getRetainedCharsBefore(), stats.getRetainedCharsAfter());
+        assertEquals(0, stats.getJoinsFlattened());
+
+        PurchaseOrder order = plain.getPurchaseOrder();
+        for (int i = 0; i < 10; i++) {
+            order.getCustomer().setName("Customer " + i);
+            order.addNewLineItem().setDescription("Item " + i);
+        }
+        String text = plain.xmlText();
+
+        try (XmlCursor c = order.newCursor()) {
+            assertTrue(c.toFirstChild());
+            stats = c.compact();
+            assertTrue(c.isStart());
+            assertEquals("customer", c.getName().getLocalPart());
+        }
+        assertEquals(stats.getTextChars(), stats.getRetainedCharsAfter());
+        assertTrue(stats.getRetainedCharsBefore() > stats.getRetainedCharsAfter());
+        assertEquals(text, plain.xmlText());
+        assertEquals("Customer 9", order.getCustomer().getName());
+        assertEquals(13, order.sizeOfLineItemArray());
+
+        // still editable
+        order.getCustomer().setName("David Bau");
+        assertEquals("David Bau", order.getCustomer().getName());
+    }
 }
@@ -26,6 +26,10 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -1805,6 +1809,147 @@ public class InstanceValidationTests {
         doTest(schemas, null, valid, invalid);
     }
 
+    @Test
+    void testEnumerationByValueSpace() throws XmlException {
+        String[] schemas = {
+            "<xsd:schema xmlns:xsd='http://www.w3.org/2001/XMLSchema'" +
+            "    xmlns:e='urn:enum' targetNamespace='urn:enum' elementFormDefault='qualified'>" +
+            "    <xsd:element name='root'>" +
+            "        <xsd:complexType>" +
+            "            <xsd:sequence>" +
+            "                <xsd:element name='dec' maxOccurs='unbounded'>" +
+            "                    <xsd:simpleType><xsd:restriction base='xsd:decimal'>" +
+            "                        <xsd:enumeration value='1.0'/><xsd:enumeration value='-2.50'/><xsd:enumeration value='0'/>" +
+            "                    </xsd:restriction></xsd:simpleType>" +
+            "                </xsd:element>" +
+            "                <xsd:element name='int' maxOccurs='unbounded'>" +
+            "                    <xsd:simpleType><xsd:restriction base='xsd:int'>" +
+            "                        <xsd:enumeration value='7'/><xsd:enumeration value='+8'/>" +
+            "                    </xsd:restriction></xsd:simpleType>" +
+            "                </xsd:element>" +
+            "                <xsd:element name='qname' maxOccurs='unbounded'>" +
+            "                    <xsd:simpleType><xsd:restriction base='xsd:QName'>" +
+            "                        <xsd:enumeration value='e:a'/>" +
+            "                    </xsd:restriction></xsd:simpleType>" +
+            "                </xsd:element>" +
+            "                <xsd:element name='date' maxOccurs='unbounded'>" +
+            "                    <xsd:simpleType><xsd:restriction base='xsd:dateTime'>" +
+            "                        <xsd:enumeration value='2020-01-01T12:00:00Z'/>" +
+            "                    </xsd:restriction></xsd:simpleType>" +
+            "                </xsd:element>" +
+            "            </xsd:sequence>" +
+            "        </xsd:complexType>" +
+            "    </xsd:element>" +
+            "</xsd:schema>"
+        };
+
+        SchemaTypeLoader stl = makeSchemaTypeLoader(schemas);
+
+        String valid =
+            "<e:root xmlns:e='urn:enum' xmlns:f='urn:enum'>" +
+            "  <e:dec>1</e:dec><e:dec>-2.5</e:dec><e:dec>0.000</e:dec>" +
+            "  <e:int>8</e:int><e:int>007</e:int>" +
+            "  <e:qname>f:a</e:qname>" +
+            "  <e:date>2020-01-01T13:00:00+01:00</e:date>" +
+            "</e:root>";
+        assertTrue(stl.parse(valid, null, null).validate());
+
+        String invalid =
+            "<e:root xmlns:e='urn:enum' xmlns:f='urn:other'>" +
+            "  <e:dec>1.01</e:dec>" +
+            "  <e:int>9</e:int>" +
+            "  <e:qname>f:a</e:qname>" +
+            "  <e:date>2020-01-01T12:00:00+01:00</e:date>" +
+            "</e:root>";
+        List<XmlError> errors = new ArrayList<>();
+        assertFalse(stl.parse(invalid, null, null).validate(new XmlOptions().setErrorListener(errors)));
+        assertEquals(4, errors.size());
+        for (XmlError error : errors) {
+            assertEquals(XmlErrorCodes.DATATYPE_ENUM_VALID, error.getErrorCode());
+        }
+    }
+
+    @Test
+    void testParallelValidation() throws XmlException {
+        String[] schemas = {
+            "<xsd:schema xmlns:xsd='http://www.w3.org/2001/XMLSchema'" +
+            "    xmlns:p='urn:par' targetNamespace='urn:par' elementFormDefault='qualified'>" +
+            "    <xsd:element name='root'>" +
+            "        <xsd:complexType>" +
+            "            <xsd:sequence>" +
+            "                <xsd:element name='item' maxOccurs='unbounded'>" +
+            "                    <xsd:complexType>" +
+            "                        <xsd:sequence>" +
+            "                            <xsd:element name='qty' type='xsd:int'/>" +
+            "                            <xsd:element name='kind' type='xsd:QName'/>" +
+            "                        </xsd:sequence>" +
+            "                        <xsd:attribute name='id' type='xsd:ID'/>" +
+            "                        <xsd:attribute name='ref' type='xsd:IDREF'/>" +
+            "                    </xsd:complexType>" +
+            "                </xsd:element>" +
+            "            </xsd:sequence>" +
+            "        </xsd:complexType>" +
+            "    </xsd:element>" +
+            "</xsd:schema>"
+        };
+
+        SchemaTypeLoader stl = makeSchemaTypeLoader(schemas);
+
+        StringBuilder sb = new StringBuilder("<p:root xmlns:p='urn:par' xmlns:k='urn:kind'>");
+        for (int i = 0; i < 200; i++) {
+            sb.append("<p:item id='i").append(i).append("' ref='i").append(199 - i).append("'>")
+                .append("<p:qty>").append(i).append("</p:qty><p:kind>k:v").append(i).append("</p:kind></p:item>");
+        }
+        String valid = sb.append("</p:root>").toString();
+
+        XmlObject x = stl.parse(valid, null, new XmlOptions().setLoadLineNumbers());
+        List<XmlError> errors = new ArrayList<>();
+        assertTrue(x.validate(new XmlOptions().setValidateParallelism(4).setErrorListener(errors)));
+        assertTrue(errors.isEmpty());
+
+        String invalid = valid
+            .replace("<p:qty>17</p:qty>", "<p:qty>x</p:qty>")
+            .replace("k:v42", "u:v42")
+            .replace("id='i100'", "id='i5'")
+            .replace("ref='i3'", "ref='none'");
+
+        x = stl.parse(invalid, null, new XmlOptions().setLoadLineNumbers());
+
+        List<XmlError> sequential = new ArrayList<>();
+        assertFalse(x.validate(new XmlOptions().setErrorListener(sequential)));
+
+        List<XmlError> parallel = new ArrayList<>();
+        assertFalse(x.validate(new XmlOptions().setValidateParallelism(4).setErrorListener(parallel)));
+
+        assertEquals(sequential.size(), parallel.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(sequential.get(i).getErrorCode(), parallel.get(i).getErrorCode());
+        }
+
+        // the batches run on the executor of the caller, which is left running
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            AtomicInteger tasks = new AtomicInteger();
+            Executor counting = r -> {
+                tasks.incrementAndGet();
+                executor.execute(r);
+            };
+
+            List<XmlError> supplied = new ArrayList<>();
+            assertFalse(x.validate(new XmlOptions().setValidateParallelism(4)
+                .setValidateExecutor(counting).setErrorListener(supplied)));
+            assertTrue(tasks.get() > 0);
+            assertFalse(executor.isShutdown());
+
+            assertEquals(sequential.size(), supplied.size());
+            for (int i = 0; i < sequential.size(); i++) {
+                assertEquals(sequential.get(i).getErrorCode(), supplied.get(i).getErrorCode());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     private void doTest(
         String[] schemas, QName docType,
         String[] validInstances, String[] invalidInstances)
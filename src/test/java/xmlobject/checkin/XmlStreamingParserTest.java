@@ -0,0 +1,90 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package xmlobject.checkin;
+
+import com.easypo.XmlLineItemBean;
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlStreamingParser;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.namespace.QName;
+import java.io.ByteArrayInputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class XmlStreamingParserTest {
+    private static final String NS = "http://openuri.org/easypo";
+
+    private static ByteArrayInputStream purchaseOrder(int items) {
+        StringBuilder sb = new StringBuilder("<purchase-order xmlns='" + NS + "'>" +
+            "<customer><name>Gladys Kravitz</name><address>Anytown, PA</address></customer>" +
+            "<date>2003-01-07T14:16:00-05:00</date>");
+        for (int i = 0; i < items; i++) {
+            sb.append("<line-item><description>item ").append(i).append("</description>")
+                .append("<per-unit-ounces>1.5</per-unit-ounces><price>2.5</price>")
+                .append("<quantity>").append(i).append("</quantity></line-item>");
+        }
+        sb.append("</purchase-order>");
+        return new ByteArrayInputStream(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void typedRecords() throws XmlException {
+        QName lineItem = new QName(NS, "line-item");
+        try (XmlStreamingParser parser = XmlStreamingParser.forElement(purchaseOrder(100), lineItem, XmlLineItemBean.type, null)) {
+            int cnt = 0;
+            while (parser.hasNext()) {
+                XmlLineItemBean item = (XmlLineItemBean) parser.next();
+                assertEquals("item " + cnt, item.getDescription());
+                assertEquals(BigInteger.valueOf(cnt), item.getQuantity());
+                // the default namespace of the purchase order is copied to the record
+                assertTrue(item.validate());
+                cnt++;
+            }
+            assertEquals(100, cnt);
+            assertFalse(parser.hasNext());
+            assertThrows(NoSuchElementException.class, parser::next);
+        }
+    }
+
+    @Test
+    void untypedRecords() throws XmlException {
+        String xml = "<a:feed xmlns:a='urn:a' xmlns:b='urn:b'><x><r v='b:one'/></x><r v='b:two'><r/></r></a:feed>";
+        QName r = new QName("r");
+        try (XmlStreamingParser parser = XmlStreamingParser.forElement(
+            new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), r, null, null)) {
+            assertTrue(parser.hasNext());
+            XmlObject first = parser.next();
+            try (XmlCursor c = first.newCursor()) {
+                assertTrue(c.toFirstChild());
+                assertEquals("b:one", c.getAttributeText(new QName("v")));
+                // the namespaces of the enclosing elements are in scope of the record
+                assertEquals("urn:b", c.namespaceForPrefix("b"));
+                assertEquals("urn:a", c.namespaceForPrefix("a"));
+            }
+
+            // nested records belong to the enclosing one
+            XmlObject second = parser.next();
+            assertEquals(1, second.selectPath("./r/r").length);
+            assertFalse(parser.hasNext());
+        }
+    }
+}
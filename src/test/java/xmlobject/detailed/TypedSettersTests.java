@@ -15,14 +15,26 @@
 
 package xmlobject.detailed;
 
+import org.apache.xmlbeans.GDate;
+import org.apache.xmlbeans.XmlBoolean;
 import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlDate;
+import org.apache.xmlbeans.XmlDecimal;
 import org.apache.xmlbeans.XmlInt;
+import org.apache.xmlbeans.XmlLong;
 import org.apache.xmlbeans.XmlObject;
 import org.apache.xmlbeans.XmlOptions;
+import org.apache.xmlbeans.impl.values.XmlValueOutOfRangeException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.openuri.test.selectChildren.NormalDocument;
+import org.openuri.test.selectChildren.NormalType;
 
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
@@ -129,4 +141,38 @@ public class TypedSettersTests {
         Assertions.assertSame(x2.schemaType(), XmlInt.type);
     }
 
+    @Test
+    void testLexFromStoreChars() throws Exception {
+        // collapsed text, text split by a comment and invalid text take different paths through the store
+        assertEquals(69, ((XmlInt) XmlObject.Factory.parse(fmt("<xml-fragment $type(xs:int) $xsi $schema>\n  69\t</xml-fragment>"))).getIntValue());
+        assertEquals(-6912, ((XmlInt) XmlObject.Factory.parse(fmt("<xml-fragment $type(xs:int) $xsi $schema>-69<!-- c -->12</xml-fragment>"))).getIntValue());
+        assertEquals(Long.MIN_VALUE, ((XmlLong) XmlObject.Factory.parse(fmt("<xml-fragment $type(xs:long) $xsi $schema> -9223372036854775808 </xml-fragment>"))).getLongValue());
+        assertTrue(((XmlBoolean) XmlObject.Factory.parse(fmt("<xml-fragment $type(xs:boolean) $xsi $schema> 1 </xml-fragment>"))).getBooleanValue());
+        assertEquals(new BigDecimal("-12.50"), ((XmlDecimal) XmlObject.Factory.parse(fmt("<xml-fragment $type(xs:decimal) $xsi $schema> -12.50\n</xml-fragment>"))).getBigDecimalValue());
+        assertEquals(new GDate("2024-02-29Z"), ((XmlDate) XmlObject.Factory.parse(fmt("<xml-fragment $type(xs:date) $xsi $schema> 2024-02-29Z </xml-fragment>"))).getGDateValue());
+
+        XmlInt invalid = (XmlInt) XmlObject.Factory.parse(fmt("<xml-fragment $type(xs:int) $xsi $schema>6 9</xml-fragment>"));
+        assertThrows(XmlValueOutOfRangeException.class, invalid::getIntValue);
+        // a valid date of the wrong kind is reported by the text path
+        XmlDate wrongKind = (XmlDate) XmlObject.Factory.parse(fmt("<xml-fragment $type(xs:date) $xsi $schema>2024-02</xml-fragment>"));
+        assertThrows(XmlValueOutOfRangeException.class, wrongKind::getGDateValue);
+    }
+
+    @Test
+    void testIntArrayFromStoreChars() throws Exception {
+        String xml = "<sc:Normal xmlns:sc='http://openuri.org/test/selectChildren'><sc:first/><sc:second/>" +
+            "<sc:numbers> 1 </sc:numbers><sc:numbers>2<!-- c --></sc:numbers><sc:numbers>3</sc:numbers>" +
+            "<sc:numbers>x</sc:numbers></sc:Normal>";
+        NormalType norm = NormalDocument.Factory.parse(xml).getNormal();
+
+        // the invalid value is reported by its user
+        assertThrows(XmlValueOutOfRangeException.class, norm::getNumbersArray);
+
+        norm.setNumbersArray(3, 4);
+        assertArrayEquals(new int[]{1, 2, 3, 4}, norm.getNumbersArray());
+
+        // values held by users are read from the users
+        norm.xgetNumbersArray(1).setIntValue(20);
+        assertArrayEquals(new int[]{1, 20, 3, 4}, norm.getNumbersArray());
+    }
 }